@@ -0,0 +1,85 @@
+package com.zenika.liquid.democracy.api.aspect;
+
+import java.util.Collection;
+import java.util.Map;
+
+import com.zenika.liquid.democracy.model.Category;
+import com.zenika.liquid.democracy.model.Channel;
+import com.zenika.liquid.democracy.model.Power;
+import com.zenika.liquid.democracy.model.Subject;
+import com.zenika.liquid.democracy.model.Vote;
+
+/**
+ * Bounded key=value rendering of service arguments: ids and sizes only, never the content of a subject or of its
+ * votes.
+ */
+public final class ArgumentSummary {
+
+    static final int MAX_STRING_LENGTH = 64;
+
+    private ArgumentSummary() {
+    }
+
+    public static String of(Object[] args) {
+        if (args == null || args.length == 0) {
+            return "[]";
+        }
+
+        StringBuilder summary = new StringBuilder("[");
+        for (int i = 0; i < args.length; i++) {
+            if (i > 0) {
+                summary.append(',');
+            }
+            summary.append(of(args[i]));
+        }
+        return summary.append(']').toString();
+    }
+
+    public static String of(Object arg) {
+        if (arg == null) {
+            return "null";
+        }
+        if (arg instanceof Subject) {
+            Subject s = (Subject) arg;
+            return "subject{uuid=" + s.getUuid() + ",propositions=" + size(s.getPropositions()) + ",votes="
+                    + size(s.getVotes()) + ",powers=" + size(s.getPowers()) + "}";
+        }
+        if (arg instanceof Vote) {
+            Vote v = (Vote) arg;
+            return "vote{collaborator=" + v.getCollaboratorId() + ",choices=" + size(v.getChoices()) + "}";
+        }
+        if (arg instanceof Power) {
+            Power p = (Power) arg;
+            return "power{from=" + p.getCollaboratorIdFrom() + ",to=" + p.getCollaboratorIdTo() + "}";
+        }
+        if (arg instanceof Category) {
+            Category c = (Category) arg;
+            return "category{uuid=" + c.getUuid() + ",powers=" + size(c.getPowers()) + "}";
+        }
+        if (arg instanceof Channel) {
+            return "channel{uuid=" + ((Channel) arg).getUuid() + "}";
+        }
+        if (arg instanceof Collection) {
+            return "collection{size=" + ((Collection<?>) arg).size() + "}";
+        }
+        if (arg instanceof Map) {
+            return "map{size=" + ((Map<?, ?>) arg).size() + "}";
+        }
+        if (arg instanceof CharSequence) {
+            String s = arg.toString();
+            return s.length() <= MAX_STRING_LENGTH ? s : s.substring(0, MAX_STRING_LENGTH) + "...";
+        }
+        if (arg instanceof Number || arg instanceof Boolean || arg instanceof Enum) {
+            return arg.toString();
+        }
+        return arg.getClass().getSimpleName();
+    }
+
+    /**
+     * Arguments come from request bodies, whose lists may be null.
+     */
+    private static String size(Collection<?> c) {
+        return c == null ? "null" : String.valueOf(c.size());
+    }
+
+}
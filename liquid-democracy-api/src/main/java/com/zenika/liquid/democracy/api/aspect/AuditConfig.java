@@ -0,0 +1,36 @@
+package com.zenika.liquid.democracy.api.aspect;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.audit")
+public class AuditConfig {
+
+    /**
+     * Share of the service calls traced, between 0 (none) and 1 (all).
+     */
+    private double samplingRate = 1.0;
+
+    /**
+     * Events kept waiting for the appenders; further events are dropped rather than blocking the request.
+     */
+    private int bufferSize = 512;
+
+    public double getSamplingRate() {
+        return samplingRate;
+    }
+
+    public void setSamplingRate(double samplingRate) {
+        this.samplingRate = samplingRate;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+}
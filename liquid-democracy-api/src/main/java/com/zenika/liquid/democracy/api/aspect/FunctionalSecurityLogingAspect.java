@@ -1,53 +1,115 @@
 package com.zenika.liquid.democracy.api.aspect;
 
+import java.util.Enumeration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.log4j.Appender;
+import org.apache.log4j.AsyncAppender;
 import org.apache.log4j.Logger;
-import org.aspectj.lang.JoinPoint;
-import org.aspectj.lang.annotation.After;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
-import org.aspectj.lang.annotation.Before;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.zenika.liquid.democracy.authentication.service.CollaboratorService;
 
-import java.util.Arrays;
-
+/**
+ * Traces every service call of the api as one start and one end line of key=value pairs: method, user, argument
+ * summaries and duration. Lines are written by a background thread, and only for the sampled calls.
+ */
 @Aspect
 @Component
 public class FunctionalSecurityLogingAspect {
 
     private static final Logger LOG = Logger.getLogger(FunctionalSecurityLogingAspect.class);
 
+    private static final String ASYNC_APPENDER_NAME = "audit-async";
+
+    private final CollaboratorService collaboratorService;
+
+    private final AuditConfig auditConfig;
+
     @Autowired
-    private CollaboratorService collaboratorService;
-
-    @Before("execution(* com.zenika.liquid.democracy.api.*.*.*(..))")
-    public void beforeLogging(JoinPoint joinPoint) {
-        String userId = collaboratorService.currentUser().getEmail();
-
-        StringBuilder infos = new StringBuilder();
-        infos.append("Starting ")
-                .append(joinPoint.getTarget().getClass())
-                .append(" ")
-                .append(joinPoint.getSignature().getName())
-                .append(" by ")
-                .append(userId)
-                .append(" with arguments ");
-
-        if (joinPoint.getArgs() != null && joinPoint.getArgs().length != 0) {
-            for (Object args : joinPoint.getArgs()) {
-                infos.append("\n \t \t").append(args);
-            }
-        } else {
-            infos.append("no args");
+    public FunctionalSecurityLogingAspect(CollaboratorService collaboratorService, AuditConfig auditConfig) {
+        this.collaboratorService = collaboratorService;
+        this.auditConfig = auditConfig;
+    }
+
+    /**
+     * Moves the appenders of the root logger behind an {@link AsyncAppender} for the audit lines only.
+     */
+    @PostConstruct
+    public void attachAsyncAppender() {
+        if (LOG.getAppender(ASYNC_APPENDER_NAME) != null) {
+            return;
+        }
+
+        AsyncAppender async = new AsyncAppender();
+        async.setName(ASYNC_APPENDER_NAME);
+        async.setBufferSize(auditConfig.getBufferSize());
+        // A full buffer drops audit lines instead of slowing the requests down
+        async.setBlocking(false);
+        Enumeration<?> appenders = Logger.getRootLogger().getAllAppenders();
+        while (appenders.hasMoreElements()) {
+            async.addAppender((Appender) appenders.nextElement());
+        }
+
+        LOG.addAppender(async);
+        LOG.setAdditivity(false);
+    }
+
+    @PreDestroy
+    public void detachAsyncAppender() {
+        Appender async = LOG.getAppender(ASYNC_APPENDER_NAME);
+        if (async != null) {
+            LOG.removeAppender(async);
+            LOG.setAdditivity(true);
+            async.close();
+        }
+    }
+
+    @Around("execution(public * com.zenika.liquid.democracy.api..service.impl.*ServiceImpl.*(..))")
+    public Object auditLogging(ProceedingJoinPoint joinPoint) throws Throwable {
+        // Nothing is rendered for the calls which are not traced
+        if (!LOG.isInfoEnabled() || !sampled()) {
+            return joinPoint.proceed();
         }
 
-        LOG.info(infos.toString());
+        String method = joinPoint.getSignature().getDeclaringType().getSimpleName() + "."
+                + joinPoint.getSignature().getName();
+        String user = currentUserId();
+        LOG.info("event=start method=" + method + " user=" + user + " args=" + ArgumentSummary.of(joinPoint.getArgs()));
+
+        long start = System.nanoTime();
+        String outcome = "ok";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            outcome = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            LOG.info("event=end method=" + method + " user=" + user + " outcome=" + outcome + " durationMs="
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
     }
 
-    @After("execution(* com.zenika.liquid.democracy.api.*.*(..))")
-    public void afterLogging(JoinPoint joinPoint) {
-        LOG.info("Ending " + joinPoint.getTarget().getClass() + " " + joinPoint.getSignature().getName() + " with arguments " + Arrays.toString(joinPoint.getArgs()));
+    private boolean sampled() {
+        double rate = auditConfig.getSamplingRate();
+        return rate >= 1 || ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    private String currentUserId() {
+        try {
+            return collaboratorService.currentUser().getEmail();
+        } catch (RuntimeException e) {
+            // Calls made outside of a request, at startup for instance, have no authenticated user
+            return "-";
+        }
     }
 
 }
@@ -0,0 +1,75 @@
+package com.zenika.liquid.democracy.api.aspect;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+/**
+ * Times the REST endpoints, the ballot stores and the Mongo repositories, and counts their errors by exception
+ * type. Each timer gives the latency histogram and the throughput of its method.
+ */
+@Aspect
+@Component
+public class MetricsAspect {
+
+    private final MetricRegistry metricRegistry;
+
+    private final ConcurrentMap<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+    @Autowired
+    public MetricsAspect(MetricRegistry metricRegistry) {
+        this.metricRegistry = metricRegistry;
+    }
+
+    @Around("within(com.zenika.liquid.democracy.api..controller.*)"
+            + " && @annotation(org.springframework.web.bind.annotation.RequestMapping)")
+    public Object timeController(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("http", joinPoint.getSignature().getDeclaringType().getSimpleName(), joinPoint);
+    }
+
+    @Around("execution(public * com.zenika.liquid.democracy.api..persistence.impl.*Store.*(..))")
+    public Object timeStore(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("mongo", joinPoint.getSignature().getDeclaringType().getSimpleName(), joinPoint);
+    }
+
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        // Inherited methods (save, findAll...) are declared by Spring Data: the name comes from the proxy
+        String repository = repositoryNames.computeIfAbsent(joinPoint.getThis().getClass(),
+                k -> repositoryName(joinPoint.getThis()));
+        return time("mongo", repository, joinPoint);
+    }
+
+    private Object time(String layer, String type, ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Context timer = metricRegistry.timer(MetricRegistry.name(layer, type, joinPoint.getSignature().getName()))
+                .time();
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            metricRegistry.counter(MetricRegistry.name(layer, "errors", e.getClass().getSimpleName())).inc();
+            throw e;
+        } finally {
+            timer.stop();
+        }
+    }
+
+    private static String repositoryName(Object proxy) {
+        for (Class<?> type : AopProxyUtils.proxiedUserInterfaces(proxy)) {
+            if (Repository.class.isAssignableFrom(type) && type.getName().startsWith("com.zenika.")) {
+                return type.getSimpleName();
+            }
+        }
+        return proxy.getClass().getSimpleName();
+    }
+
+}
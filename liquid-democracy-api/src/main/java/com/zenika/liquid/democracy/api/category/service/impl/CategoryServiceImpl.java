@@ -5,11 +5,14 @@ import com.zenika.liquid.democracy.api.category.exception.UnexistingCategoryExce
 import com.zenika.liquid.democracy.api.category.persistence.CategoryRepository;
 import com.zenika.liquid.democracy.api.category.service.CategoryService;
 import com.zenika.liquid.democracy.api.category.util.CategoryUtil;
+import com.zenika.liquid.democracy.api.util.TitleUtil;
 import com.zenika.liquid.democracy.authentication.service.CollaboratorService;
-import com.zenika.liquid.democracy.config.MapperConfig;
+import com.zenika.liquid.democracy.cache.EntityCache;
 import com.zenika.liquid.democracy.dto.CategoryDto;
+import com.zenika.liquid.democracy.dto.DtoMapper;
 import com.zenika.liquid.democracy.model.Category;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -21,31 +24,35 @@ public class CategoryServiceImpl implements CategoryService {
 
     private final CategoryRepository categoryRepository;
 
-    private final CollaboratorService collaboratorService;
+    private final EntityCache entityCache;
 
-    private final MapperConfig mapper;
+    private final CollaboratorService collaboratorService;
 
     @Autowired
-    public CategoryServiceImpl(CategoryRepository categoryRepository, CollaboratorService collaboratorService, MapperConfig mapper) {
+    public CategoryServiceImpl(CategoryRepository categoryRepository, EntityCache entityCache, CollaboratorService collaboratorService) {
         this.categoryRepository = categoryRepository;
+        this.entityCache = entityCache;
         this.collaboratorService = collaboratorService;
-        this.mapper = mapper;
     }
 
     public CategoryDto addCategory(Category newCategory) {
         // check category not blank
         CategoryUtil.checkCategory(newCategory);
 
-        // find duplicates
-        Boolean isPresent = categoryRepository.findAll().stream().anyMatch(p ->
-                p.getTitle().toLowerCase().trim().equals(newCategory.getTitle().toLowerCase().trim())
-        );
-        if (isPresent) {
-            throw new ExistingCategoryException();
+        // duplicates are refused by the unique index, even when created concurrently
+        newCategory.setNormalizedTitle(TitleUtil.normalizeTitle(newCategory.getTitle()));
+        Category category;
+        try {
+            category = categoryRepository.insert(newCategory);
+        } catch (DuplicateKeyException e) {
+            if (TitleUtil.isDuplicateTitle(e)) {
+                throw new ExistingCategoryException();
+            }
+            throw e;
         }
 
         String userId = collaboratorService.currentUser().getEmail();
-        return prepareCategoryForResponse(categoryRepository.save(newCategory), userId);
+        return prepareCategoryForResponse(category, userId);
     }
 
     public List<CategoryDto> getCategories() {
@@ -54,7 +61,7 @@ public class CategoryServiceImpl implements CategoryService {
     }
 
     public CategoryDto getCategoryByUuid(String categoryUuid) {
-        Optional<Category> c = categoryRepository.findCategoryByUuid(categoryUuid);
+        Optional<Category> c = entityCache.findCategoryByUuid(categoryUuid);
 
         if (!c.isPresent()) {
             throw new UnexistingCategoryException();
@@ -65,7 +72,7 @@ public class CategoryServiceImpl implements CategoryService {
     }
 
     private CategoryDto prepareCategoryForResponse(Category c, String userId) {
-        CategoryDto cdto = mapper.map(c, CategoryDto.class);
+        CategoryDto cdto = DtoMapper.toDto(c);
         cdto.setGivenDelegation(c.getGivenDelegation(userId));
         return cdto;
     }
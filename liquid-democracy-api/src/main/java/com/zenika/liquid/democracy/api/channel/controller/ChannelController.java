@@ -9,6 +9,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.util.List;
@@ -67,6 +68,11 @@ public class ChannelController {
         return ResponseEntity.ok().body(c);
     }
 
+    @RequestMapping(method = RequestMethod.GET, value = "/{channelUuid}/live", produces = "text/event-stream")
+    public SseEmitter watchChannel(@PathVariable String channelUuid) {
+        return channelService.watchChannel(channelUuid);
+    }
+
     @ResponseStatus(value = HttpStatus.BAD_REQUEST, reason = "Le titre est obligatoire")
     @ExceptionHandler(MalformedChannelException.class)
     public void malformedChannelHandler() {
@@ -82,6 +88,11 @@ public class ChannelController {
     public void existingChannelHandler() {
     }
 
+    @ResponseStatus(value = HttpStatus.FORBIDDEN, reason = "Seuls les membres du channel peuvent suivre ses résultats")
+    @ExceptionHandler(UnauthorizedChannelWatchException.class)
+    public void unauthorizedChannelWatchHandler() {
+    }
+
     @ResponseStatus(value = HttpStatus.BAD_REQUEST, reason = "Vous appartenez déjà à ce channel")
     @ExceptionHandler(UserAlreadyInChannelException.class)
     public void userAlreadyInChannelHandler() {
@@ -0,0 +1,5 @@
+package com.zenika.liquid.democracy.api.channel.exception;
+
+public class UnauthorizedChannelWatchException extends RuntimeException {
+
+}
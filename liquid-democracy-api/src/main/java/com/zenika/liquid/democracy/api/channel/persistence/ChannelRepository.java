@@ -2,12 +2,20 @@ package com.zenika.liquid.democracy.api.channel.persistence;
 
 import com.zenika.liquid.democracy.model.Channel;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 
-public interface ChannelRepository extends MongoRepository<Channel, Long> {
+public interface ChannelRepository extends MongoRepository<Channel, Long>, ChannelRepositoryCustom {
 
 	Optional<Channel> findChannelByUuid(String channelUuid);
 
 	Optional<Channel> findChannelByTitle(String title);
+
+	/**
+	 * Channels without their members, counted by {@link Channel#getMemberCount()}.
+	 */
+	@Query(value = "{}", fields = "{ collaboratorIds : 0 }")
+	List<Channel> findSummaries();
 }
@@ -0,0 +1,18 @@
+package com.zenika.liquid.democracy.api.channel.persistence;
+
+public interface ChannelRepositoryCustom {
+
+	/**
+	 * Adds the member in place, without reading the channel.
+	 *
+	 * @return false when the collaborator already was a member
+	 */
+	boolean addCollaborator(String channelUuid, String collaboratorId);
+
+	/**
+	 * Removes the member in place, without reading the channel.
+	 *
+	 * @return false when the collaborator was not a member
+	 */
+	boolean removeCollaborator(String channelUuid, String collaboratorId);
+}
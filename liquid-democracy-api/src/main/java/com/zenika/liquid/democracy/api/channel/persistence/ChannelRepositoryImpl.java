@@ -0,0 +1,39 @@
+package com.zenika.liquid.democracy.api.channel.persistence;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.zenika.liquid.democracy.model.Channel;
+
+/**
+ * Membership changes applied by the database: concurrent joins and quits never overwrite each other.
+ */
+public class ChannelRepositoryImpl implements ChannelRepositoryCustom {
+
+	private final MongoTemplate mongoTemplate;
+
+	@Autowired
+	public ChannelRepositoryImpl(MongoTemplate mongoTemplate) {
+		this.mongoTemplate = mongoTemplate;
+	}
+
+	@Override
+	public boolean addCollaborator(String channelUuid, String collaboratorId) {
+		return mongoTemplate.updateFirst(
+		        query(where("uuid").is(channelUuid).and("collaboratorIds").ne(collaboratorId)),
+		        new Update().addToSet("collaboratorIds", collaboratorId).inc("memberCount", 1),
+		        Channel.class).getN() == 1;
+	}
+
+	@Override
+	public boolean removeCollaborator(String channelUuid, String collaboratorId) {
+		return mongoTemplate.updateFirst(
+		        query(where("uuid").is(channelUuid).and("collaboratorIds").is(collaboratorId)),
+		        new Update().pull("collaboratorIds", collaboratorId).inc("memberCount", -1),
+		        Channel.class).getN() == 1;
+	}
+}
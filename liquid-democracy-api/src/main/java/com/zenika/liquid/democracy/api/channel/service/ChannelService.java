@@ -3,6 +3,7 @@ package com.zenika.liquid.democracy.api.channel.service;
 import com.zenika.liquid.democracy.dto.ChannelDto;
 import com.zenika.liquid.democracy.model.Channel;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -21,4 +22,9 @@ public interface ChannelService {
 
     void quitChannel(Channel c);
 
+    /**
+     * Pushes the results of the subjects of the channel each time they change.
+     */
+    SseEmitter watchChannel(String channelUuid);
+
 }
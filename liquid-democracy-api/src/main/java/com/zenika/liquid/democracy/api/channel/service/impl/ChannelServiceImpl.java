@@ -1,21 +1,29 @@
 package com.zenika.liquid.democracy.api.channel.service.impl;
 
 import com.zenika.liquid.democracy.api.channel.exception.ExistingChannelException;
+import com.zenika.liquid.democracy.api.channel.exception.UserAlreadyInChannelException;
+import com.zenika.liquid.democracy.api.channel.exception.UnauthorizedChannelWatchException;
 import com.zenika.liquid.democracy.api.channel.exception.UnexistingChannelException;
 import com.zenika.liquid.democracy.api.channel.exception.UserNotInChannelException;
 import com.zenika.liquid.democracy.api.channel.persistence.ChannelRepository;
 import com.zenika.liquid.democracy.api.channel.service.ChannelService;
 import com.zenika.liquid.democracy.api.channel.util.ChannelUtil;
+import com.zenika.liquid.democracy.api.subject.service.impl.LiveResults;
+import com.zenika.liquid.democracy.api.util.TitleUtil;
+import com.zenika.liquid.democracy.authentication.persistence.CollaboratorRepository;
 import com.zenika.liquid.democracy.authentication.service.CollaboratorService;
-import com.zenika.liquid.democracy.config.MapperConfig;
+import com.zenika.liquid.democracy.cache.EntityCache;
 import com.zenika.liquid.democracy.dto.ChannelDto;
+import com.zenika.liquid.democracy.dto.DtoMapper;
 import com.zenika.liquid.democracy.model.Channel;
 import com.zenika.si.core.zenika.model.Collaborator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,15 +31,23 @@ public class ChannelServiceImpl implements ChannelService {
 
     private final ChannelRepository channelRepository;
 
+    private final EntityCache entityCache;
+
+    private final CollaboratorRepository collaboratorRepository;
+
     private final CollaboratorService collaboratorService;
 
-    private final MapperConfig mapper;
+    private final LiveResults liveResults;
 
     @Autowired
-    public ChannelServiceImpl(ChannelRepository channelRepository, CollaboratorService collaboratorService, MapperConfig mapper) {
+    public ChannelServiceImpl(ChannelRepository channelRepository, EntityCache entityCache,
+            CollaboratorRepository collaboratorRepository, CollaboratorService collaboratorService,
+            LiveResults liveResults) {
         this.channelRepository = channelRepository;
+        this.entityCache = entityCache;
+        this.collaboratorRepository = collaboratorRepository;
         this.collaboratorService = collaboratorService;
-        this.mapper = mapper;
+        this.liveResults = liveResults;
     }
 
     public ChannelDto addChannel(Channel newChannel) {
@@ -39,21 +55,27 @@ public class ChannelServiceImpl implements ChannelService {
         ChannelUtil.checkChannel(newChannel);
 
         // trim and lowerCase title
-        newChannel.setTitle(newChannel.getTitle().toLowerCase().trim());
-
-        // find duplicates
-        Optional<Channel> c = channelRepository.findChannelByTitle(newChannel.getTitle());
-        if (c.isPresent()) {
-            throw new ExistingChannelException();
+        newChannel.setTitle(TitleUtil.normalizeTitle(newChannel.getTitle()));
+        newChannel.setNormalizedTitle(newChannel.getTitle());
+
+        // the creator is its first member
+        newChannel.setCollaboratorIds(new HashSet<>());
+        newChannel.setMemberCount(0);
+        newChannel.addCollaborator(collaboratorService.currentUser().getCollaboratorId());
+
+        // duplicates are refused by the unique index, even when created concurrently
+        try {
+            return prepareChannelForResponse(channelRepository.insert(newChannel));
+        } catch (DuplicateKeyException e) {
+            if (TitleUtil.isDuplicateTitle(e)) {
+                throw new ExistingChannelException();
+            }
+            throw e;
         }
-
-        // join the channel
-        this.joinChannel(newChannel);
-        return prepareChannelForResponse(channelRepository.save(newChannel));
     }
 
     public List<ChannelDto> getChannels() {
-        return channelRepository.findAll().stream()
+        return channelRepository.findSummaries().stream()
                 .map(this::prepareChannelForResponse)
                 .collect(Collectors.toList());
     }
@@ -64,25 +86,52 @@ public class ChannelServiceImpl implements ChannelService {
     }
 
     public ChannelDto getChannelDtoByUuid(String channelUuid) {
-        return prepareChannelForResponse(getChannelByUuid(channelUuid));
+        Channel c = entityCache.findChannelByUuid(channelUuid)
+                .orElseThrow(UnexistingChannelException::new);
+
+        ChannelDto dto = prepareChannelForResponse(c);
+        dto.setCollaborators(collaboratorRepository.findByCollaboratorIdIn(c.getCollaboratorIds()).stream()
+                .map(DtoMapper::toDto)
+                .collect(Collectors.toList()));
+        return dto;
     }
 
     public void joinChannel(Channel c) {
-        ChannelUtil.checkChannelForJoin(c, collaboratorService.currentUser().getCollaboratorId());
-        c.getCollaborators().add(collaboratorService.currentUser());
-        channelRepository.save(c);
+        String userId = collaboratorService.currentUser().getCollaboratorId();
+        ChannelUtil.checkChannelForJoin(c, userId);
+
+        // joined meanwhile by another request of the user
+        if (!channelRepository.addCollaborator(c.getUuid(), userId)) {
+            throw new UserAlreadyInChannelException();
+        }
+        c.addCollaborator(userId);
+        entityCache.invalidateChannel(c.getUuid());
     }
 
     public void quitChannel(Channel c) {
-        Collaborator collaborator = c.findCollaborator(collaboratorService.currentUser().getCollaboratorId())
-                .orElseThrow(UserNotInChannelException::new);
-        c.removeCollaborator(collaborator);
-        channelRepository.save(c);
+        String userId = collaboratorService.currentUser().getCollaboratorId();
+        if (!c.isMember(userId) || !channelRepository.removeCollaborator(c.getUuid(), userId)) {
+            throw new UserNotInChannelException();
+        }
+        c.removeCollaborator(userId);
+        entityCache.invalidateChannel(c.getUuid());
     }
 
+    @Override
+    public SseEmitter watchChannel(String channelUuid) {
+        Collaborator user = collaboratorService.currentUser();
+        Channel c = entityCache.findChannelByUuid(channelUuid)
+                .orElseThrow(UnexistingChannelException::new);
+
+        // the results of its subjects are only streamed to its members
+        if (!c.isMember(user.getCollaboratorId())) {
+            throw new UnauthorizedChannelWatchException();
+        }
+        return liveResults.watchChannel(channelUuid, user.getEmail());
+    }
 
     private ChannelDto prepareChannelForResponse(Channel c) {
-        return mapper.map(c, ChannelDto.class);
+        return DtoMapper.toDto(c);
     }
 
 }
@@ -3,11 +3,8 @@ package com.zenika.liquid.democracy.api.channel.util;
 import com.zenika.liquid.democracy.api.channel.exception.MalformedChannelException;
 import com.zenika.liquid.democracy.api.channel.exception.UserAlreadyInChannelException;
 import com.zenika.liquid.democracy.model.Channel;
-import com.zenika.si.core.zenika.model.Collaborator;
 import org.apache.commons.lang3.StringUtils;
 
-import java.util.Optional;
-
 public class ChannelUtil {
 
     public static void checkChannel(Channel c) {
@@ -17,9 +14,7 @@ public class ChannelUtil {
     }
 
     public static void checkChannelForJoin(Channel c, String userId) {
-        Optional<Collaborator> collaborator = c.findCollaborator(userId);
-
-        if (collaborator.isPresent()) {
+        if (c.isMember(userId)) {
             throw new UserAlreadyInChannelException();
         }
     }
@@ -1,11 +1,20 @@
 package com.zenika.liquid.democracy.api.collaborator.controller;
 
+import com.zenika.liquid.democracy.api.collaborator.service.CollaboratorDirectory;
+import com.zenika.liquid.democracy.api.subject.exception.MalformedPagingException;
 import com.zenika.liquid.democracy.authentication.service.CollaboratorService;
+import com.zenika.liquid.democracy.dto.CollaboratorDto;
 import com.zenika.si.core.zenika.model.Collaborator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
@@ -14,11 +23,20 @@ import java.util.List;
 @RequestMapping("/api/collaborators")
 public class CollaboratorController {
 
+    static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
+    private static final int DEFAULT_PAGE_SIZE = 20;
+
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final CollaboratorService collaboratorService;
 
+    private final CollaboratorDirectory collaboratorDirectory;
+
     @Autowired
-    public CollaboratorController(CollaboratorService collaboratorService) {
+    public CollaboratorController(CollaboratorService collaboratorService, CollaboratorDirectory collaboratorDirectory) {
         this.collaboratorService = collaboratorService;
+        this.collaboratorDirectory = collaboratorDirectory;
     }
 
     @RequestMapping(method = RequestMethod.GET, path = "/me")
@@ -33,4 +51,37 @@ public class CollaboratorController {
         return ResponseEntity.ok(out);
     }
 
+    /**
+     * The collaborators whose email, first name or last name start with each word of {@code q}, sorted by name. The
+     * total number of matches is given in the {@value #TOTAL_COUNT_HEADER} header.
+     */
+    @RequestMapping(method = RequestMethod.GET, params = "q")
+    public ResponseEntity<List<CollaboratorDto>> searchUsers(@RequestParam String q,
+                                                             @RequestParam(defaultValue = "0") int page,
+                                                             @RequestParam(required = false) Integer size) {
+        if (page < 0) {
+            throw new MalformedPagingException();
+        }
+
+        Page<CollaboratorDto> out = collaboratorDirectory.search(q, new PageRequest(page, pageSize(size)));
+        return ResponseEntity.ok()
+                .header(TOTAL_COUNT_HEADER, String.valueOf(out.getTotalElements()))
+                .body(out.getContent());
+    }
+
+    private static int pageSize(Integer size) {
+        if (size == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (size < 1) {
+            throw new MalformedPagingException();
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    @ResponseStatus(value = HttpStatus.BAD_REQUEST, reason = "La pagination demandée est invalide")
+    @ExceptionHandler(MalformedPagingException.class)
+    public void malformedPagingHandler() {
+    }
+
 }
@@ -0,0 +1,84 @@
+package com.zenika.liquid.democracy.api.collaborator.service;
+
+import com.zenika.liquid.democracy.api.collaborator.util.CollaboratorIndex;
+import com.zenika.liquid.democracy.authentication.persistence.CollaboratorRepository;
+import com.zenika.liquid.democracy.dto.CollaboratorDto;
+import com.zenika.liquid.democracy.dto.DtoMapper;
+import com.zenika.si.core.zenika.model.Collaborator;
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Searches the collaborators in memory, in a {@link CollaboratorIndex} rebuilt from the repository every
+ * {@code app.directory.refreshMs}: a typeahead request does not read the whole directory. Collaborators created on
+ * sign-up {@link #refresh()} it at once, the refresh only catches up with the others.
+ */
+@Component
+public class CollaboratorDirectory {
+
+    private static final Logger LOG = Logger.getLogger(CollaboratorDirectory.class);
+
+    private final CollaboratorRepository collaboratorRepository;
+
+    private final CollaboratorDirectoryConfig config;
+
+    private volatile CollaboratorIndex index;
+
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public CollaboratorDirectory(CollaboratorRepository collaboratorRepository, CollaboratorDirectoryConfig config) {
+        this.collaboratorRepository = collaboratorRepository;
+        this.config = config;
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        scheduler.scheduleWithFixedDelay(this::scheduledRefresh, config.getRefreshMs(), config.getRefreshMs(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    public Page<CollaboratorDto> search(String query, Pageable pageable) {
+        CollaboratorIndex current = index;
+        if (current == null) {
+            current = refresh();
+        }
+
+        Page<Collaborator> matches = current.search(query, pageable);
+        return new PageImpl<>(matches.getContent().stream().map(DtoMapper::toDto).collect(Collectors.toList()),
+                pageable, matches.getTotalElements());
+    }
+
+    public CollaboratorIndex refresh() {
+        CollaboratorIndex refreshed = CollaboratorIndex.of(collaboratorRepository.findAll());
+        index = refreshed;
+        return refreshed;
+    }
+
+    private void scheduledRefresh() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            // The searches keep the previous index until the next run
+            LOG.error("Collaborator directory refresh failed", e);
+        }
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.zenika.liquid.democracy.api.collaborator.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.directory")
+public class CollaboratorDirectoryConfig {
+
+    /**
+     * Collaborators saved elsewhere than on sign-up since the last refresh are not found by the searches until the
+     * next one.
+     */
+    private long refreshMs = 10 * 60 * 1000;
+
+    public long getRefreshMs() {
+        return refreshMs;
+    }
+
+    public void setRefreshMs(long refreshMs) {
+        this.refreshMs = refreshMs;
+    }
+
+}
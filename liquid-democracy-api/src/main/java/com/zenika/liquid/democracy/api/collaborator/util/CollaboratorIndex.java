@@ -0,0 +1,155 @@
+package com.zenika.liquid.democracy.api.collaborator.util;
+
+import com.zenika.si.core.zenika.model.Collaborator;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable prefix index on the email, first name and last name of the collaborators. Every word of a query must
+ * start one of these fields, case and accents ignored.
+ *
+ * Matches are returned sorted by last name, first name then email.
+ */
+public final class CollaboratorIndex {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private static final Pattern WORDS = Pattern.compile("[\\s,]+");
+
+    private static final Comparator<Collaborator> ORDER = Comparator
+            .comparing((Collaborator c) -> normalize(c.getLastName()))
+            .thenComparing(c -> normalize(c.getFirstName()))
+            .thenComparing(c -> normalize(c.getEmail()));
+
+    /**
+     * Collaborators in result order: a match is its rank in this array.
+     */
+    private final Collaborator[] collaborators;
+
+    /**
+     * Normalized field values, sorted, with the rank of their collaborator in {@link #ranks}.
+     */
+    private final String[] keys;
+
+    private final int[] ranks;
+
+    private CollaboratorIndex(Collaborator[] collaborators, String[] keys, int[] ranks) {
+        this.collaborators = collaborators;
+        this.keys = keys;
+        this.ranks = ranks;
+    }
+
+    public static CollaboratorIndex of(List<Collaborator> collaborators) {
+        Collaborator[] sorted = collaborators.toArray(new Collaborator[collaborators.size()]);
+        Arrays.sort(sorted, ORDER);
+
+        List<Key> keys = new ArrayList<>(sorted.length * 3);
+        for (int rank = 0; rank < sorted.length; rank++) {
+            addKey(keys, sorted[rank].getEmail(), rank);
+            addKey(keys, sorted[rank].getFirstName(), rank);
+            addKey(keys, sorted[rank].getLastName(), rank);
+        }
+        keys.sort(Comparator.comparing(k -> k.value));
+
+        String[] values = new String[keys.size()];
+        int[] ranks = new int[keys.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = keys.get(i).value;
+            ranks[i] = keys.get(i).rank;
+        }
+        return new CollaboratorIndex(sorted, values, ranks);
+    }
+
+    public int size() {
+        return collaborators.length;
+    }
+
+    /**
+     * @param query words separated by spaces or commas, every collaborator when blank
+     */
+    public Page<Collaborator> search(String query, Pageable pageable) {
+        BitSet matches = matches(query);
+
+        List<Collaborator> content = new ArrayList<>(pageable.getPageSize());
+        int skipped = 0;
+        for (int rank = matches.nextSetBit(0); rank >= 0 && content.size() < pageable.getPageSize();
+             rank = matches.nextSetBit(rank + 1)) {
+            if (skipped++ >= pageable.getOffset()) {
+                content.add(collaborators[rank]);
+            }
+        }
+        return new PageImpl<>(content, pageable, matches.cardinality());
+    }
+
+    private BitSet matches(String query) {
+        BitSet matches = new BitSet(collaborators.length);
+        matches.set(0, collaborators.length);
+
+        for (String word : WORDS.split(normalize(query))) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            BitSet wordMatches = new BitSet(collaborators.length);
+            for (int i = lowerBound(word); i < keys.length && keys[i].startsWith(word); i++) {
+                wordMatches.set(ranks[i]);
+            }
+            matches.and(wordMatches);
+        }
+        return matches;
+    }
+
+    /**
+     * First key not before {@code prefix}: the keys starting with it follow.
+     */
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle].compareTo(prefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static void addKey(List<Key> keys, String value, int rank) {
+        String key = normalize(value);
+        if (!key.isEmpty()) {
+            keys.add(new Key(key, rank));
+        }
+    }
+
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        return MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT).trim();
+    }
+
+    private static class Key {
+
+        private final String value;
+
+        private final int rank;
+
+        private Key(String value, int rank) {
+            this.value = value;
+            this.rank = rank;
+        }
+    }
+
+}
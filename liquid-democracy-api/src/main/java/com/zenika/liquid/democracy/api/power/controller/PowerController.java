@@ -4,12 +4,15 @@ import com.zenika.liquid.democracy.api.exception.CloseSubjectException;
 import com.zenika.liquid.democracy.api.power.exception.*;
 import com.zenika.liquid.democracy.api.power.service.PowerService;
 import com.zenika.liquid.democracy.api.vote.exception.UserAlreadyVoteException;
+import com.zenika.liquid.democracy.dto.PowerPropagationDto;
 import com.zenika.liquid.democracy.model.Power;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/powers")
 public class PowerController {
@@ -28,9 +31,8 @@ public class PowerController {
 	}
 
 	@RequestMapping(method = RequestMethod.PUT, value = "/categories/{categoryUuid}")
-	public ResponseEntity<Void> addPowerOnCategory(@RequestBody Power p, @PathVariable String categoryUuid) {
-		powerService.addPowerOnCategory(categoryUuid, p);
-		return ResponseEntity.ok().build();
+	public ResponseEntity<List<PowerPropagationDto>> addPowerOnCategory(@RequestBody Power p, @PathVariable String categoryUuid) {
+		return ResponseEntity.ok(powerService.addPowerOnCategory(categoryUuid, p));
 	}
 
 	@RequestMapping(method = RequestMethod.DELETE, value = "/subjects/{subjectUuid}")
@@ -40,9 +42,8 @@ public class PowerController {
 	}
 
 	@RequestMapping(method = RequestMethod.DELETE, value = "/categories/{categoryUuid}")
-	public ResponseEntity<Void> deletePowerOnCategory(@PathVariable String categoryUuid) {
-		powerService.deletePowerOnCategory(categoryUuid);
-		return ResponseEntity.ok().build();
+	public ResponseEntity<List<PowerPropagationDto>> deletePowerOnCategory(@PathVariable String categoryUuid) {
+		return ResponseEntity.ok(powerService.deletePowerOnCategory(categoryUuid));
 	}
 
 	@ResponseStatus(value = HttpStatus.BAD_REQUEST, reason = "Le sujet n'existe pas")
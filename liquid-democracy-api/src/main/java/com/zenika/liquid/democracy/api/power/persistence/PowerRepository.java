@@ -0,0 +1,24 @@
+package com.zenika.liquid.democracy.api.power.persistence;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import com.zenika.liquid.democracy.model.Power;
+
+public interface PowerRepository extends MongoRepository<Power, Long> {
+
+	List<Power> findBySubjectUuid(String subjectUuid);
+
+	List<Power> findBySubjectUuidIn(Collection<String> subjectUuids);
+
+	List<Power> findBySubjectUuidInAndCollaboratorIdFrom(Collection<String> subjectUuids, String collaboratorIdFrom);
+
+	List<Power> findBySubjectUuidInAndCollaboratorIdTo(Collection<String> subjectUuids, String collaboratorIdTo);
+
+	List<Power> findBySubjectUuidInAndCollaboratorIdFromAndCollaboratorIdTo(Collection<String> subjectUuids,
+	        String collaboratorIdFrom, String collaboratorIdTo);
+
+	Long deleteBySubjectUuid(String subjectUuid);
+}
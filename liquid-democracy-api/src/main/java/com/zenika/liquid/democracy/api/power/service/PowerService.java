@@ -1,8 +1,11 @@
 package com.zenika.liquid.democracy.api.power.service;
 
+import com.zenika.liquid.democracy.dto.PowerPropagationDto;
 import com.zenika.liquid.democracy.model.Power;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 @Service
 public interface PowerService {
 
@@ -10,8 +13,8 @@ public interface PowerService {
 
 	void deletePowerOnSubject(String subjectUuid);
 
-	void addPowerOnCategory(String categoryUuid, Power p);
+	List<PowerPropagationDto> addPowerOnCategory(String categoryUuid, Power p);
 
-	void deletePowerOnCategory(String categoryUuid);
+	List<PowerPropagationDto> deletePowerOnCategory(String categoryUuid);
 
 }
@@ -5,9 +5,13 @@ import com.zenika.liquid.democracy.api.exception.CloseSubjectException;
 import com.zenika.liquid.democracy.api.power.exception.*;
 import com.zenika.liquid.democracy.api.power.service.PowerService;
 import com.zenika.liquid.democracy.api.power.util.PowerUtil;
-import com.zenika.liquid.democracy.api.subject.persistence.SubjectRepository;
+import com.zenika.liquid.democracy.api.subject.persistence.SubjectStore;
+import com.zenika.liquid.democracy.api.subject.service.impl.LiveResults;
 import com.zenika.liquid.democracy.api.vote.exception.UserAlreadyVoteException;
 import com.zenika.liquid.democracy.authentication.service.CollaboratorService;
+import com.zenika.liquid.democracy.cache.EntityCache;
+import com.zenika.liquid.democracy.dto.PowerPropagationDto;
+import com.zenika.liquid.democracy.dto.PowerPropagationDto.Status;
 import com.zenika.liquid.democracy.model.Category;
 import com.zenika.liquid.democracy.model.Power;
 import com.zenika.liquid.democracy.model.Subject;
@@ -17,41 +21,58 @@ import org.springframework.retry.annotation.EnableRetry;
 import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Service
 @EnableRetry
 @Retryable(OptimisticLockingFailureException.class)
 public class PowerServiceImpl implements PowerService {
 
-	private final SubjectRepository subjectRepository;
+	private static final int MAX_PROPAGATION_ATTEMPTS = 5;
+
+	private final SubjectStore subjectStore;
 
 	private final CategoryRepository categoryRepository;
 
+	private final EntityCache entityCache;
+
+	private final LiveResults liveResults;
+
 	private final CollaboratorService collaboratorService;
 
 	@Autowired
-	public PowerServiceImpl(SubjectRepository subjectRepository, CategoryRepository categoryRepository, CollaboratorService collaboratorService) {
-	    this.subjectRepository = subjectRepository;
+	public PowerServiceImpl(SubjectStore subjectStore, CategoryRepository categoryRepository, EntityCache entityCache,
+	        LiveResults liveResults, CollaboratorService collaboratorService) {
+	    this.subjectStore = subjectStore;
 	    this.categoryRepository = categoryRepository;
+	    this.entityCache = entityCache;
+	    this.liveResults = liveResults;
 	    this.collaboratorService = collaboratorService;
     }
 
 	public void addPowerOnSubject(final String subjectUuid, final Power power) {
 		final String userId = collaboratorService.currentUser().getEmail();
 
-		final Subject subject = subjectRepository.findSubjectByUuid(subjectUuid)
+		final Subject subject = subjectStore.findSubjectByUuid(subjectUuid)
                 .orElseThrow(AddPowerOnNonExistingSubjectException::new);
 
 		PowerUtil.checkPowerForAddition(power, subject, userId);
 		PowerUtil.preparePower(power, subject, userId);
 
-		subjectRepository.save(subject);
+		subjectStore.savePower(subject, power);
+		entityCache.invalidateSubject(subjectUuid);
+		liveResults.subjectChanged(subjectUuid);
 	}
 
 	@Override
-	public void addPowerOnCategory(final String categoryUuid, final Power power) {
+	public List<PowerPropagationDto> addPowerOnCategory(final String categoryUuid, final Power power) {
 		final String userId = collaboratorService.currentUser().getEmail();
 
 		final Category category = categoryRepository.findCategoryByUuid(categoryUuid)
@@ -60,36 +81,40 @@ public class PowerServiceImpl implements PowerService {
 		PowerUtil.checkCategoryPowerForAddition(power, category, userId);
 		PowerUtil.prepareCategoryPower(power, category, userId);
 
-		final List<Subject> subjectsInCategory = subjectRepository.findSubjectByCategoryUuid(categoryUuid);
-		for (Subject subject : subjectsInCategory) {
-			try {
-				Power powerTmp = new Power();
-				powerTmp.setCollaboratorIdTo(power.getCollaboratorIdTo());
-				addPowerOnSubject(subject.getUuid(), powerTmp);
-			} catch (PowerIsNotCorrectException | UserAlreadyVoteException | CloseSubjectException e) {
-				// if this appends, we just don't propagate power
-				System.out.println("ERROR DELEGATION");
-			}
-		}
+		final List<PowerPropagationDto> report = propagate(
+		        () -> subjectStore.findDelegableSubjects(categoryUuid, userId),
+		        subject -> {
+			        Power powerTmp = new Power();
+			        powerTmp.setCollaboratorIdTo(power.getCollaboratorIdTo());
+			        PowerUtil.checkPowerForAddition(powerTmp, subject, userId);
+			        PowerUtil.preparePower(powerTmp, subject, userId);
+			        return powerTmp;
+		        },
+		        subjectStore::savePowers);
 
 		categoryRepository.save(category);
+		entityCache.invalidateCategory(categoryUuid);
+
+		return report;
 	}
 
 	public void deletePowerOnSubject(final String subjectUuid) {
 		final String userId = collaboratorService.currentUser().getEmail();
 
-		final Subject s = subjectRepository.findSubjectByUuid(subjectUuid)
+		final Subject s = subjectStore.findSubjectByUuid(subjectUuid)
                 .orElseThrow(DeletePowerOnNonExistingSubjectException::new);
 
 		final Power power = PowerUtil.checkPowerForDelete(s, userId);
 
 		s.removePower(power);
 
-		subjectRepository.save(s);
+		subjectStore.deletePower(s, power);
+		entityCache.invalidateSubject(subjectUuid);
+		liveResults.subjectChanged(subjectUuid);
 	}
 
 	@Override
-	public void deletePowerOnCategory(String categoryUuid) {
+	public List<PowerPropagationDto> deletePowerOnCategory(String categoryUuid) {
 		final String userId = collaboratorService.currentUser().getEmail();
 
 		final Category c = categoryRepository.findCategoryByUuid(categoryUuid)
@@ -99,20 +124,69 @@ public class PowerServiceImpl implements PowerService {
 
 		c.removePower(power);
 
-		final List<Subject> subjectsInCategory = subjectRepository.findSubjectByCategoryUuid(categoryUuid);
-		for (Subject subject : subjectsInCategory) {
-			try {
-				Optional<Power> powerTmp = subject.findPower(userId);
-				if (powerTmp.isPresent() && powerTmp.get().getCollaboratorIdTo().equals(power.getCollaboratorIdTo())) {
-					deletePowerOnSubject(subject.getUuid());
+		final List<PowerPropagationDto> report = propagate(
+		        () -> subjectStore.findDelegatedSubjects(categoryUuid, userId, power.getCollaboratorIdTo()),
+		        subject -> {
+			        Power powerTmp = PowerUtil.checkPowerForDelete(subject, userId);
+			        subject.removePower(powerTmp);
+			        return powerTmp;
+		        },
+		        subjectStore::deletePowers);
+
+		categoryRepository.save(c);
+		entityCache.invalidateCategory(categoryUuid);
+
+		return report;
+	}
+
+	/**
+	 * Applies a category delegation change to every eligible subject, then saves them all in one bulk write.
+	 * Subjects modified concurrently are reloaded and tried again.
+	 */
+	private List<PowerPropagationDto> propagate(final Supplier<List<Subject>> eligibleSubjects,
+	        final Function<Subject, Power> change, final Function<Map<Subject, Power>, Set<String>> save) {
+		final Map<String, PowerPropagationDto> report = new LinkedHashMap<>();
+
+		List<Subject> subjects = eligibleSubjects.get();
+		for (int attempt = 1; !subjects.isEmpty(); attempt++) {
+			final Map<Subject, Power> changes = new LinkedHashMap<>();
+			for (Subject subject : subjects) {
+				try {
+					changes.put(subject, change.apply(subject));
+				} catch (PowerIsNotCorrectException | UserAlreadyVoteException | CloseSubjectException e) {
+					report.put(subject.getUuid(), new PowerPropagationDto(subject.getUuid(), subject.getTitle(), statusOf(e)));
 				}
-			} catch (DeletePowerOnNonExistingSubjectException | DeleteNonExistingPowerException | CloseSubjectException
-			        | UserAlreadyVoteException e) {
-				// if this appends, we just don't propagate power
-				System.out.println("ERROR DELEGATION");
 			}
+
+			final Set<String> conflicts = save.apply(changes);
+			for (Subject subject : changes.keySet()) {
+				entityCache.invalidateSubject(subject.getUuid());
+				liveResults.subjectChanged(subject.getUuid());
+				Status status = conflicts.contains(subject.getUuid()) ? Status.CONFLICT : Status.APPLIED;
+				report.put(subject.getUuid(), new PowerPropagationDto(subject.getUuid(), subject.getTitle(), status));
+			}
+
+			if (conflicts.isEmpty() || attempt == MAX_PROPAGATION_ATTEMPTS) {
+				break;
+			}
+			subjects = eligibleSubjects.get().stream()
+			        .filter(s -> conflicts.contains(s.getUuid()))
+			        .collect(Collectors.toList());
 		}
 
-		categoryRepository.save(c);
+		return new ArrayList<>(report.values());
+	}
+
+	private static Status statusOf(RuntimeException e) {
+		if (e instanceof CloseSubjectException) {
+			return Status.CLOSED;
+		} else if (e instanceof UserAlreadyVoteException) {
+			return Status.ALREADY_VOTED;
+		} else if (e instanceof UserAlreadyGavePowerException) {
+			return Status.ALREADY_DELEGATED;
+		} else if (e instanceof CircularPowerDependencyException) {
+			return Status.CIRCULAR_DEPENDENCY;
+		}
+		return Status.NOT_DELEGATED;
 	}
 }
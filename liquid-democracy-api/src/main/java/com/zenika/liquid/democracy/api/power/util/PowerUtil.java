@@ -5,14 +5,15 @@ import com.zenika.liquid.democracy.api.power.exception.CircularPowerDependencyEx
 import com.zenika.liquid.democracy.api.power.exception.DeleteNonExistingPowerException;
 import com.zenika.liquid.democracy.api.power.exception.UserAlreadyGavePowerException;
 import com.zenika.liquid.democracy.api.vote.exception.UserAlreadyVoteException;
-import com.zenika.liquid.democracy.api.vote.util.VoteUtil;
+import com.zenika.liquid.democracy.api.vote.util.TallyUtil;
 import com.zenika.liquid.democracy.model.Category;
+import com.zenika.liquid.democracy.model.DelegationGraph;
 import com.zenika.liquid.democracy.model.Power;
 import com.zenika.liquid.democracy.model.Subject;
 import com.zenika.liquid.democracy.model.Vote;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.Set;
 
 public class PowerUtil {
 
@@ -29,49 +30,44 @@ public class PowerUtil {
         }
 
         // On ne peut pas déléguer plusieurs fois
-        final Optional<Power> foundPower = subject.getPowers().stream()
-                .filter(p -> userId.equals(p.getCollaboratorIdFrom()))
-                .findFirst();
-        if (foundPower.isPresent()) {
+        final DelegationGraph graph = subject.getDelegationGraph();
+        if (graph.findPower(userId).isPresent()) {
             throw new UserAlreadyGavePowerException();
         }
 
         // On vérifie que le fait de déléguer ne crée pas de dépendance circulaire
-        checkCircularDependency(power, subject.getPowers(), userId);
+        checkCircularDependency(power, graph, userId);
     }
 
     public static void checkCategoryPowerForAddition(final Power power, final Category category, final String userId) {
         // On ne peut pas déléguer plusieurs fois
-        final Optional<Power> foundPower = category.getPowers().stream()
-                .filter(p -> userId.equals(p.getCollaboratorIdFrom()))
-                .findFirst();
+        final Optional<Power> foundPower = category.findPower(userId);
         if (foundPower.isPresent()) {
             throw new UserAlreadyGavePowerException();
         }
 
         // On vérifie que le fait de déléguer ne crée pas de dépendance circulaire
-        checkCircularDependency(power, category.getPowers(), userId);
+        checkCircularDependency(power, category.getDelegationGraph(), userId);
     }
 
     public static void preparePower(final Power power, final Subject subject, final String userId) {
         power.setCollaboratorIdFrom(userId);
 
-        subject.findVote(power.getCollaboratorIdTo())
-                .ifPresent(vote -> {
-                    Vote newVote = new Vote();
-                    newVote.setCollaboratorId(userId);
-                    newVote.setChoices(vote.getChoices());
-                    subject.getVotes().add(newVote);
-                });
+        // Si la personne (ou celle à qui elle a délégué) a déjà voté, son vote porte désormais nos voix
+        final Optional<Vote> vote = subject.findVote(power.getCollaboratorIdTo());
 
-        subject.getPowers().add(power);
+        subject.addPower(power);
 
-        VoteUtil.compileResults(subject);
+        vote.ifPresent(v -> {
+            final Set<String> delegated = TallyUtil.participantsOf(subject, userId);
+            v.setWeight(v.getWeight() + delegated.size());
+            TallyUtil.applyWeight(subject, v, delegated);
+        });
     }
 
     public static void prepareCategoryPower(final Power power, final Category c, final String userId) {
         power.setCollaboratorIdFrom(userId);
-        c.getPowers().add(power);
+        c.addPower(power);
     }
 
     public static Power checkPowerForDelete(final Subject subject, final String userId) {
@@ -102,22 +98,17 @@ public class PowerUtil {
     }
 
 
-    private static void checkCircularDependency(final Power power, final List<Power> powers, final String userId) {
-        final Deque<Power> powerToCheck = new ArrayDeque<>();
-        powerToCheck.add(power);
-
-        while (!powerToCheck.isEmpty()) {
-            final Power currentPower = powerToCheck.pop();
-
-            if (Objects.equals(currentPower.getCollaboratorIdTo(), userId)) {
-                throw new CircularPowerDependencyException();
-            }
+    /**
+     * Nombre de personnes ayant délégué leur pouvoir à l'utilisateur, directement ou non.
+     */
+    public static int countDelegators(final Subject subject, final String userId) {
+        return subject.getDelegationGraph().countTransitiveDelegators(userId);
+    }
 
-            powerToCheck.addAll(
-                    powers.stream()
-                            .filter(p -> currentPower.getCollaboratorIdTo().equals(p.getCollaboratorIdFrom()))
-                            .collect(Collectors.toList())
-            );
+    private static void checkCircularDependency(final Power power, final DelegationGraph graph, final String userId) {
+        // Chaque personne ne délègue qu'une fois : il suffit de suivre la chaîne depuis le destinataire
+        if (graph.createsCycle(userId, power.getCollaboratorIdTo())) {
+            throw new CircularPowerDependencyException();
         }
     }
 }
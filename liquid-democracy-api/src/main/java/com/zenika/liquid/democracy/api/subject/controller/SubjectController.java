@@ -1,15 +1,26 @@
 package com.zenika.liquid.democracy.api.subject.controller;
 
 import com.zenika.liquid.democracy.api.exception.UnexistingSubjectException;
+import com.zenika.liquid.democracy.api.subject.exception.MalformedPagingException;
 import com.zenika.liquid.democracy.api.subject.exception.MalformedSubjectException;
+import com.zenika.liquid.democracy.api.subject.persistence.SubjectCursor;
 import com.zenika.liquid.democracy.api.subject.service.SubjectService;
+import com.zenika.liquid.democracy.dto.DtoMapper;
 import com.zenika.liquid.democracy.dto.SubjectDto;
+import com.zenika.liquid.democracy.dto.SubjectListDto;
 import com.zenika.liquid.democracy.model.Subject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.util.List;
@@ -18,6 +29,14 @@ import java.util.List;
 @RequestMapping("/api/subjects")
 public class SubjectController {
 
+    static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final int DEFAULT_PAGE_SIZE = 20;
+
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final SubjectService subjectService;
 
     @Autowired
@@ -42,18 +61,61 @@ public class SubjectController {
         return ResponseEntity.ok().build();
     }
 
+    /**
+     * Every subject, or one page of them when {@code page} is given, or the subjects following {@code cursor} when
+     * {@code size} or {@code cursor} is given. Pages are sorted by submit date then uuid, newest first by default.
+     */
     @RequestMapping(method = RequestMethod.GET)
-    public ResponseEntity<List<SubjectDto>> getSubjects() {
-        return ResponseEntity.ok(subjectService.getSubjects());
+    public ResponseEntity<List<SubjectDto>> getSubjects(
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "desc") String direction) {
+        return listSubjects(false, page, size, cursor, direction);
+    }
+
+    /**
+     * Same listings, with each category and channel written once instead of once per subject.
+     */
+    @RequestMapping(method = RequestMethod.GET, params = "normalized=true")
+    public ResponseEntity<SubjectListDto> getNormalizedSubjects(
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "desc") String direction) {
+        return normalize(getSubjects(page, size, cursor, direction));
+    }
+
+    @RequestMapping(method = RequestMethod.GET, params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamSubjects() {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(subjectService.streamSubjects(false));
     }
 
     @RequestMapping(method = RequestMethod.GET, path = "/inprogress")
-    public ResponseEntity<List<SubjectDto>> getSubjectsInProgress() {
-        List<SubjectDto> out = subjectService.getSubjectsInProgress();
-        if (out.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NO_CONTENT).body(out);
+    public ResponseEntity<List<SubjectDto>> getSubjectsInProgress(
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "desc") String direction) {
+        ResponseEntity<List<SubjectDto>> out = listSubjects(true, page, size, cursor, direction);
+        if (out.getBody().isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NO_CONTENT).headers(out.getHeaders()).body(out.getBody());
         }
-        return ResponseEntity.ok(out);
+        return out;
+    }
+
+    @RequestMapping(method = RequestMethod.GET, path = "/inprogress", params = "normalized=true")
+    public ResponseEntity<SubjectListDto> getNormalizedSubjectsInProgress(
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "desc") String direction) {
+        return normalize(getSubjectsInProgress(page, size, cursor, direction));
+    }
+
+    @RequestMapping(method = RequestMethod.GET, path = "/inprogress", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamSubjectsInProgress() {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(subjectService.streamSubjects(true));
     }
 
     @RequestMapping(method = RequestMethod.GET, value = "/{subjectUuid}")
@@ -62,6 +124,71 @@ public class SubjectController {
         return ResponseEntity.ok().body(s);
     }
 
+    @RequestMapping(method = RequestMethod.GET, value = "/{subjectUuid}/live", produces = "text/event-stream")
+    public SseEmitter watchSubject(@PathVariable String subjectUuid) {
+        return subjectService.watchSubject(subjectUuid);
+    }
+
+    private ResponseEntity<List<SubjectDto>> listSubjects(boolean inProgressOnly, Integer page, Integer size,
+                                                          String cursor, String direction) {
+        Direction sort = parseDirection(direction);
+
+        if (page != null) {
+            if (page < 0) {
+                throw new MalformedPagingException();
+            }
+            Page<SubjectDto> out = subjectService.getSubjects(inProgressOnly,
+                    new PageRequest(page, pageSize(size), SubjectCursor.sort(sort)));
+            return ResponseEntity.ok()
+                    .header(TOTAL_COUNT_HEADER, String.valueOf(out.getTotalElements()))
+                    .body(out.getContent());
+        }
+
+        if (size != null || cursor != null) {
+            SubjectCursor after = cursor == null ? null : SubjectCursor.decode(cursor);
+            Direction cursorDirection = after == null ? sort : after.getDirection();
+            int pageSize = pageSize(size);
+
+            List<SubjectDto> out = subjectService.getSubjects(inProgressOnly, after, cursorDirection, pageSize);
+            HttpHeaders headers = new HttpHeaders();
+            if (out.size() == pageSize) {
+                SubjectDto last = out.get(out.size() - 1);
+                headers.set(NEXT_CURSOR_HEADER, new SubjectCursor(cursorDirection, last.getSubmitDate(), last.getUuid()).encode());
+            }
+            return ResponseEntity.ok().headers(headers).body(out);
+        }
+
+        return ResponseEntity.ok(inProgressOnly ? subjectService.getSubjectsInProgress() : subjectService.getSubjects());
+    }
+
+    private static ResponseEntity<SubjectListDto> normalize(ResponseEntity<List<SubjectDto>> out) {
+        return ResponseEntity.status(out.getStatusCode()).headers(out.getHeaders())
+                .body(DtoMapper.normalize(out.getBody()));
+    }
+
+    private static Direction parseDirection(String direction) {
+        try {
+            return Direction.fromString(direction);
+        } catch (IllegalArgumentException e) {
+            throw new MalformedPagingException();
+        }
+    }
+
+    private static int pageSize(Integer size) {
+        if (size == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (size < 1) {
+            throw new MalformedPagingException();
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    @ResponseStatus(value = HttpStatus.BAD_REQUEST, reason = "La pagination demandée est invalide")
+    @ExceptionHandler(MalformedPagingException.class)
+    public void malformedPagingHandler() {
+    }
+
     @ResponseStatus(value = HttpStatus.NOT_FOUND, reason = "Le sujet n'existe pas")
     @ExceptionHandler(UnexistingSubjectException.class)
     public void unexistingSubjectHandler() {
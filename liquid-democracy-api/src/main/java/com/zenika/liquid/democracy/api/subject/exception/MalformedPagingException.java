@@ -0,0 +1,7 @@
+package com.zenika.liquid.democracy.api.subject.exception;
+
+public class MalformedPagingException extends RuntimeException {
+
+	private static final long serialVersionUID = 3047163385542571098L;
+
+}
@@ -0,0 +1,63 @@
+package com.zenika.liquid.democracy.api.subject.persistence;
+
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+
+import org.springframework.data.util.CloseableIterator;
+
+import com.zenika.liquid.democracy.model.Subject;
+
+/**
+ * Subjects of two database cursors sorted the same way, read as one sorted cursor.
+ */
+class MergedSubjectIterator implements CloseableIterator<Subject> {
+
+	private final CloseableIterator<Subject> first;
+
+	private final CloseableIterator<Subject> second;
+
+	private final Comparator<Subject> order;
+
+	private Subject nextFirst;
+
+	private Subject nextSecond;
+
+	MergedSubjectIterator(CloseableIterator<Subject> first, CloseableIterator<Subject> second, Comparator<Subject> order) {
+		this.first = first;
+		this.second = second;
+		this.order = order;
+		this.nextFirst = first.hasNext() ? first.next() : null;
+		this.nextSecond = second.hasNext() ? second.next() : null;
+	}
+
+	@Override
+	public boolean hasNext() {
+		return nextFirst != null || nextSecond != null;
+	}
+
+	@Override
+	public Subject next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+
+		Subject next;
+		if (nextSecond == null || (nextFirst != null && order.compare(nextFirst, nextSecond) <= 0)) {
+			next = nextFirst;
+			nextFirst = first.hasNext() ? first.next() : null;
+		} else {
+			next = nextSecond;
+			nextSecond = second.hasNext() ? second.next() : null;
+		}
+		return next;
+	}
+
+	@Override
+	public void close() {
+		try {
+			first.close();
+		} finally {
+			second.close();
+		}
+	}
+}
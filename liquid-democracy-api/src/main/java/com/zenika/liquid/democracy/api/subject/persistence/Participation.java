@@ -0,0 +1,48 @@
+package com.zenika.liquid.democracy.api.subject.persistence;
+
+import com.zenika.liquid.democracy.model.Subject;
+
+/**
+ * What a collaborator did on a subject: the flags shown with the subject, without its votes and powers.
+ */
+public class Participation {
+
+	private boolean voted;
+
+	private String givenDelegation;
+
+	private long receivedDelegations;
+
+	public Participation() {
+	}
+
+	public Participation(Subject subject, String userId) {
+		this.voted = subject.isVoted(userId);
+		this.givenDelegation = subject.getGivenDelegation(userId);
+		this.receivedDelegations = subject.getReceivedDelegations(userId);
+	}
+
+	public boolean isVoted() {
+		return voted;
+	}
+
+	public void setVoted(boolean voted) {
+		this.voted = voted;
+	}
+
+	public String getGivenDelegation() {
+		return givenDelegation;
+	}
+
+	public void setGivenDelegation(String givenDelegation) {
+		this.givenDelegation = givenDelegation;
+	}
+
+	public long getReceivedDelegations() {
+		return receivedDelegations;
+	}
+
+	public void addReceivedDelegations(long receivedDelegations) {
+		this.receivedDelegations += receivedDelegations;
+	}
+}
@@ -0,0 +1,75 @@
+package com.zenika.liquid.democracy.api.subject.persistence;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Date;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+
+import com.zenika.liquid.democracy.api.subject.exception.MalformedPagingException;
+import com.zenika.liquid.democracy.model.Subject;
+
+/**
+ * Position in the list of subjects sorted by submit date then uuid, handed to clients as an opaque string.
+ *
+ * Reading the next subjects from a cursor is a range query on the sort keys: it costs the same on the last
+ * page as on the first, unlike skipping an offset.
+ */
+public class SubjectCursor {
+
+	private final Direction direction;
+
+	private final Date submitDate;
+
+	private final String uuid;
+
+	public SubjectCursor(Direction direction, Date submitDate, String uuid) {
+		this.direction = direction;
+		this.submitDate = submitDate;
+		this.uuid = uuid;
+	}
+
+	public static Sort sort(Direction direction) {
+		return new Sort(direction, "submitDate", "uuid");
+	}
+
+	/**
+	 * The order of {@link #sort(Direction)}, to merge subjects read from several collections. Like Mongo, a missing
+	 * submit date comes before any date; uuids are object ids, in the same order as their hexadecimal form.
+	 */
+	public static Comparator<Subject> order(Direction direction) {
+		Comparator<Subject> ascending = Comparator
+		        .comparing(Subject::getSubmitDate, Comparator.nullsFirst(Comparator.<Date> naturalOrder()))
+		        .thenComparing(Subject::getUuid);
+		return direction == Direction.ASC ? ascending : ascending.reversed();
+	}
+
+	public static SubjectCursor decode(String cursor) {
+		try {
+			String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", 3);
+			Date submitDate = parts[1].isEmpty() ? null : new Date(Long.parseLong(parts[1]));
+			return new SubjectCursor(Direction.fromString(parts[0]), submitDate, parts[2]);
+		} catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+			throw new MalformedPagingException();
+		}
+	}
+
+	public String encode() {
+		String value = direction.name() + ":" + (submitDate == null ? "" : submitDate.getTime()) + ":" + uuid;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public Direction getDirection() {
+		return direction;
+	}
+
+	public Date getSubmitDate() {
+		return submitDate;
+	}
+
+	public String getUuid() {
+		return uuid;
+	}
+}
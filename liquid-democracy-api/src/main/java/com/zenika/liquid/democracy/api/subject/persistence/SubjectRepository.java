@@ -4,11 +4,28 @@ import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
 import com.zenika.liquid.democracy.model.Subject;
 
-public interface SubjectRepository extends MongoRepository<Subject, Long> {
+public interface SubjectRepository extends MongoRepository<Subject, Long>, SubjectRepositoryCustom {
+
+	/**
+	 * Fields read to list subjects: votes, powers and participants are left in the database. The category and the
+	 * channel, one query each per subject, are loaded for all the summaries at once by
+	 * {@link SubjectRepositoryCustom#loadReferences(List)}.
+	 */
+	String SUMMARY_FIELDS = "{ 'title': 1, 'description': 1, 'maxPoints': 1, 'deadLine': 1, 'submitDate': 1, "
+	        + "'collaboratorId': 1, 'propositions': 1, 'participantCount': 1, 'closed': 1, 'finalResult': 1 }";
+
+	@Query(value = "{ '$or': [ { 'deadLine': { '$gt': ?0 } }, { 'deadLine': null } ] }", fields = SUMMARY_FIELDS)
+	List<Subject> findSummariesInProgress(Date d);
+
+	@Query(value = "{ '$or': [ { 'deadLine': { '$gt': ?0 } }, { 'deadLine': null } ] }", fields = SUMMARY_FIELDS)
+	Page<Subject> findSummariesInProgress(Date d, Pageable pageable);
 
 	List<Subject> findByDeadLineGreaterThanOrDeadLineIsNull(Date d);
 
@@ -0,0 +1,79 @@
+package com.zenika.liquid.democracy.api.subject.persistence;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.util.CloseableIterator;
+
+import com.zenika.liquid.democracy.model.FinalResult;
+import com.zenika.liquid.democracy.model.Subject;
+
+public interface SubjectRepositoryCustom {
+
+	/**
+	 * Summaries of the subjects and of the archived ones.
+	 */
+	List<Subject> findAllSummaries();
+
+	/**
+	 * One page of the summaries of the subjects and of the archived ones, sorted together.
+	 */
+	Page<Subject> findAllSummaries(Pageable pageable);
+
+	/**
+	 * Summaries following the cursor, or the first ones in that direction when the cursor is null. Archived subjects
+	 * are closed: they are only read when {@code inProgressOnly} is false.
+	 */
+	List<Subject> findSummaries(SubjectCursor cursor, Direction direction, boolean inProgressOnly, int size);
+
+	/**
+	 * Summaries read one by one from a database cursor, which must be closed once read. Archived subjects are read
+	 * along with the others when {@code inProgressOnly} is false.
+	 */
+	CloseableIterator<Subject> streamSummaries(boolean inProgressOnly);
+
+	/**
+	 * Subjects not closed yet whose deadline is before {@code end}, with only their uuid and deadline.
+	 */
+	List<Subject> findClosingBefore(Date end);
+
+	/**
+	 * The subject if it is closed, without its votes, powers and participants.
+	 */
+	Optional<Subject> findClosedSubject(String subjectUuid);
+
+	/**
+	 * Marks the subject closed with its final result, which also replaces the points of its propositions, unless
+	 * it already is. The result must be computed from the subject as loaded: it is only written over that version.
+	 *
+	 * @return false when the subject was already closed
+	 * @throws org.springframework.dao.OptimisticLockingFailureException if the subject was modified since it was
+	 *             loaded, or no longer exists
+	 */
+	boolean close(Subject subject, FinalResult finalResult);
+
+	Optional<Subject> findArchivedSubject(String subjectUuid);
+
+	/**
+	 * Subjects closed before {@code closedBefore}, with only their uuid.
+	 */
+	List<Subject> findArchivable(Date closedBefore, int size);
+
+	/**
+	 * Moves the subject, as it is given, to the archive collection.
+	 */
+	void archive(Subject subject);
+
+	void deleteArchived(String subjectUuid);
+
+	/**
+	 * Sets the category and the channel of the summaries, which are read without them: one query reads the
+	 * references of all the subjects, then one query per collection the categories and channels they point to, with
+	 * only the fields listed.
+	 */
+	void loadReferences(List<Subject> summaries);
+}
@@ -0,0 +1,334 @@
+package com.zenika.liquid.democracy.api.subject.persistence;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.DBRef;
+import com.mongodb.util.JSON;
+import com.zenika.liquid.democracy.model.Category;
+import com.zenika.liquid.democracy.model.Channel;
+import com.zenika.liquid.democracy.model.FinalResult;
+import com.zenika.liquid.democracy.model.Proposition;
+import com.zenika.liquid.democracy.model.Subject;
+
+/**
+ * Summary queries built at runtime, completing the derived ones of {@link SubjectRepository}.
+ *
+ * Subjects closed for long are moved to {@value #ARCHIVE_COLLECTION}, in the same document layout: listings of all
+ * subjects read both collections and merge them in the order asked.
+ */
+public class SubjectRepositoryImpl implements SubjectRepositoryCustom {
+
+	public static final String ARCHIVE_COLLECTION = "subjectArchive";
+
+	private final MongoTemplate mongoTemplate;
+
+	@Autowired
+	public SubjectRepositoryImpl(MongoTemplate mongoTemplate) {
+		this.mongoTemplate = mongoTemplate;
+	}
+
+	/**
+	 * Version of a subject written over {@code version}, as {@link SubjectRepository#save} does for a single subject.
+	 */
+	public static String nextVersion(String version) {
+		return version == null ? "0" : String.valueOf(Long.parseLong(version) + 1);
+	}
+
+	@Override
+	public List<Subject> findSummaries(SubjectCursor cursor, Direction direction, boolean inProgressOnly, int size) {
+		Criteria criteria = new Criteria();
+		if (cursor != null && inProgressOnly) {
+			criteria.andOperator(inProgress(), after(cursor));
+		} else if (cursor != null) {
+			criteria = after(cursor);
+		} else if (inProgressOnly) {
+			criteria = inProgress();
+		}
+
+		Direction sort = cursor != null ? cursor.getDirection() : direction;
+		List<Subject> subjects = mongoTemplate.find(summaries(criteria).with(SubjectCursor.sort(sort)).limit(size),
+		        Subject.class);
+		if (inProgressOnly) {
+			return subjects;
+		}
+
+		List<Subject> archived = mongoTemplate.find(summaries(criteria).with(SubjectCursor.sort(sort)).limit(size),
+		        Subject.class, ARCHIVE_COLLECTION);
+		return merge(subjects, archived, SubjectCursor.order(sort), 0, size);
+	}
+
+	@Override
+	public CloseableIterator<Subject> streamSummaries(boolean inProgressOnly) {
+		Criteria criteria = inProgressOnly ? inProgress() : new Criteria();
+		CloseableIterator<Subject> subjects = mongoTemplate.stream(summaries(criteria).with(SubjectCursor.sort(Direction.DESC)),
+		        Subject.class);
+		if (inProgressOnly) {
+			return subjects;
+		}
+
+		return new MergedSubjectIterator(subjects, streamArchive(), SubjectCursor.order(Direction.DESC));
+	}
+
+	@Override
+	public List<Subject> findAllSummaries() {
+		List<Subject> subjects = mongoTemplate.find(summaries(new Criteria()), Subject.class);
+		subjects.addAll(mongoTemplate.find(summaries(new Criteria()), Subject.class, ARCHIVE_COLLECTION));
+		return subjects;
+	}
+
+	@Override
+	public Page<Subject> findAllSummaries(Pageable pageable) {
+		long archived = mongoTemplate.count(new Query(), ARCHIVE_COLLECTION);
+		long total = mongoTemplate.count(new Query(), Subject.class) + archived;
+		if (archived == 0) {
+			return new PageImpl<>(mongoTemplate.find(summaries(new Criteria()).with(pageable), Subject.class), pageable,
+			        total);
+		}
+
+		// The page may come from either collection: both are read up to its end, then merged
+		int end = pageable.getOffset() + pageable.getPageSize();
+		List<Subject> subjects = mongoTemplate.find(summaries(new Criteria()).with(pageable.getSort()).limit(end),
+		        Subject.class);
+		List<Subject> archivedSubjects = mongoTemplate.find(summaries(new Criteria()).with(pageable.getSort()).limit(end),
+		        Subject.class, ARCHIVE_COLLECTION);
+		return new PageImpl<>(merge(subjects, archivedSubjects, SubjectCursor.order(direction(pageable.getSort())),
+		        pageable.getOffset(), pageable.getPageSize()), pageable, total);
+	}
+
+	@Override
+	public List<Subject> findClosingBefore(Date end) {
+		// Served by the "closing" index of Subject
+		Query query = query(where("closed").ne(true).and("deadLine").lt(end));
+		query.fields().include("uuid").include("deadLine");
+		return mongoTemplate.find(query, Subject.class);
+	}
+
+	@Override
+	public Optional<Subject> findClosedSubject(String subjectUuid) {
+		Query query = query(where("uuid").is(subjectUuid).and("closed").is(true));
+		query.fields().exclude("votes").exclude("powers").exclude("participantIds");
+		return Optional.ofNullable(mongoTemplate.findOne(query, Subject.class));
+	}
+
+	@Override
+	public boolean close(Subject subject, FinalResult finalResult) {
+		// A new version makes the writes of ballots loaded before the close fail, instead of changing a frozen tally
+		Update update = new Update().set("closed", true).set("finalResult", finalResult)
+		        .set("version", nextVersion(subject.getVersion()));
+		List<Proposition> propositions = subject.getPropositions();
+		for (int i = 0; i < propositions.size(); i++) {
+			update.set("propositions." + i + ".points", finalResult.getPoints().getOrDefault(propositions.get(i).getId(), 0));
+		}
+
+		// Votes counted without a new version change the number of votes tallied
+		Query loaded = query(where("uuid").is(subject.getUuid()).and("version").is(subject.getVersion())
+		        .and("talliedVoteCount").is(subject.getTalliedVoteCount()).and("closed").ne(true));
+		if (mongoTemplate.updateFirst(loaded, update, Subject.class).getN() == 1) {
+			subject.setVersion(nextVersion(subject.getVersion()));
+			return true;
+		}
+
+		if (mongoTemplate.exists(query(where("uuid").is(subject.getUuid()).and("closed").is(true)), Subject.class)) {
+			return false;
+		}
+		throw new OptimisticLockingFailureException("Subject " + subject.getUuid() + " modified since its result was computed");
+	}
+
+	@Override
+	public Optional<Subject> findArchivedSubject(String subjectUuid) {
+		return Optional.ofNullable(mongoTemplate.findById(subjectUuid, Subject.class, ARCHIVE_COLLECTION));
+	}
+
+	@Override
+	public List<Subject> findArchivable(Date closedBefore, int size) {
+		// Served by the "closing" index of Subject
+		Query query = query(where("closed").is(true).and("deadLine").lt(closedBefore)).limit(size);
+		query.fields().include("uuid");
+		return mongoTemplate.find(query, Subject.class);
+	}
+
+	@Override
+	public void archive(Subject subject) {
+		DBObject dbo = new BasicDBObject();
+		mongoTemplate.getConverter().write(subject, dbo);
+
+		// Written before being removed: an interrupted move leaves both copies, and is done again by the next run
+		mongoTemplate.getCollection(ARCHIVE_COLLECTION).save(dbo);
+		mongoTemplate.remove(query(where("uuid").is(subject.getUuid())), Subject.class);
+	}
+
+	@Override
+	public void deleteArchived(String subjectUuid) {
+		mongoTemplate.remove(query(where("uuid").is(subjectUuid)), ARCHIVE_COLLECTION);
+	}
+
+	@Override
+	public void loadReferences(List<Subject> summaries) {
+		if (summaries.isEmpty()) {
+			return;
+		}
+
+		Map<String, Subject> byUuid = summaries.stream()
+		        .collect(Collectors.toMap(Subject::getUuid, Function.identity(), (a, b) -> a));
+		Map<String, DBObject> references = new HashMap<>();
+		readReferences(mongoTemplate.getCollectionName(Subject.class), byUuid.keySet(), references);
+		if (references.size() < byUuid.size()) {
+			Set<String> archived = new HashSet<>(byUuid.keySet());
+			archived.removeAll(references.keySet());
+			readReferences(ARCHIVE_COLLECTION, archived, references);
+		}
+
+		Set<String> categoryUuids = new HashSet<>();
+		Set<String> channelUuids = new HashSet<>();
+		for (DBObject r : references.values()) {
+			addReferenceId(categoryUuids, r.get("category"));
+			addReferenceId(channelUuids, r.get("channel"));
+		}
+
+		Map<String, Category> categories = new HashMap<>();
+		if (!categoryUuids.isEmpty()) {
+			Query q = query(where("uuid").in(categoryUuids));
+			q.fields().include("title").include("description");
+			mongoTemplate.find(q, Category.class).forEach(c -> categories.put(c.getUuid(), c));
+		}
+		Map<String, Channel> channels = new HashMap<>();
+		if (!channelUuids.isEmpty()) {
+			Query q = query(where("uuid").in(channelUuids));
+			q.fields().include("title").include("description").include("memberCount");
+			mongoTemplate.find(q, Channel.class).forEach(c -> channels.put(c.getUuid(), c));
+		}
+
+		references.forEach((uuid, r) -> {
+			Subject s = byUuid.get(uuid);
+			s.setCategory(categories.get(referenceId(r.get("category"))));
+			s.setChannel(channels.get(referenceId(r.get("channel"))));
+		});
+	}
+
+	/**
+	 * Reads the references of the subjects with the driver: the template would load each of them.
+	 */
+	private void readReferences(String collectionName, Collection<String> subjectUuids,
+	        Map<String, DBObject> references) {
+		List<Object> ids = subjectUuids.stream().map(u -> ObjectId.isValid(u) ? new ObjectId(u) : u)
+		        .collect(Collectors.toList());
+		for (DBObject r : mongoTemplate.getCollection(collectionName).find(
+		        new BasicDBObject("_id", new BasicDBObject("$in", ids)),
+		        new BasicDBObject("category", 1).append("channel", 1))) {
+			references.put(r.get("_id").toString(), r);
+		}
+	}
+
+	private static void addReferenceId(Set<String> ids, Object reference) {
+		String id = referenceId(reference);
+		if (id != null) {
+			ids.add(id);
+		}
+	}
+
+	private static String referenceId(Object reference) {
+		return reference instanceof DBRef ? String.valueOf(((DBRef) reference).getId()) : null;
+	}
+
+	/**
+	 * Archived summaries newest first, read with the driver: this version of {@link MongoTemplate} only streams the
+	 * collection of the entity.
+	 */
+	private CloseableIterator<Subject> streamArchive() {
+		DBCursor cursor = mongoTemplate.getCollection(ARCHIVE_COLLECTION)
+		        .find(new BasicDBObject(), (DBObject) JSON.parse(SubjectRepository.SUMMARY_FIELDS))
+		        .sort(new BasicDBObject("submitDate", -1).append("_id", -1));
+
+		return new CloseableIterator<Subject>() {
+
+			@Override
+			public boolean hasNext() {
+				return cursor.hasNext();
+			}
+
+			@Override
+			public Subject next() {
+				return mongoTemplate.getConverter().read(Subject.class, cursor.next());
+			}
+
+			@Override
+			public void close() {
+				cursor.close();
+			}
+		};
+	}
+
+	private static List<Subject> merge(List<Subject> subjects, List<Subject> archived, Comparator<Subject> order,
+	        int offset, int size) {
+		List<Subject> merged = new ArrayList<>(subjects);
+		merged.addAll(archived);
+		merged.sort(order);
+		return new ArrayList<>(merged.subList(Math.min(offset, merged.size()), Math.min(offset + size, merged.size())));
+	}
+
+	private static Direction direction(Sort sort) {
+		Sort.Order order = sort == null ? null : sort.getOrderFor("submitDate");
+		return order == null ? Direction.DESC : order.getDirection();
+	}
+
+	private static Query summaries(Criteria criteria) {
+		return new BasicQuery(criteria.getCriteriaObject(), (DBObject) JSON.parse(SubjectRepository.SUMMARY_FIELDS));
+	}
+
+	private static Criteria inProgress() {
+		return new Criteria().orOperator(where("deadLine").gt(new Date()), where("deadLine").is(null));
+	}
+
+	/**
+	 * Subjects sorted after the cursor. Mongo sorts a missing submit date before any date: those subjects come last
+	 * newest first, and first oldest first.
+	 */
+	private static Criteria after(SubjectCursor cursor) {
+		Object id = ObjectId.isValid(cursor.getUuid()) ? new ObjectId(cursor.getUuid()) : cursor.getUuid();
+		boolean descending = cursor.getDirection() == Direction.DESC;
+
+		Criteria sameDate = where("submitDate").is(cursor.getSubmitDate());
+		sameDate = descending ? sameDate.and("uuid").lt(id) : sameDate.and("uuid").gt(id);
+
+		if (cursor.getSubmitDate() == null) {
+			return descending ? sameDate : new Criteria().orOperator(sameDate, where("submitDate").ne(null));
+		}
+
+		Criteria beyondDate = descending ? where("submitDate").lt(cursor.getSubmitDate())
+		        : where("submitDate").gt(cursor.getSubmitDate());
+		return descending ? new Criteria().orOperator(beyondDate, sameDate, where("submitDate").is(null))
+		        : new Criteria().orOperator(beyondDate, sameDate);
+	}
+}
@@ -0,0 +1,163 @@
+package com.zenika.liquid.democracy.api.subject.persistence;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.util.CloseableIterator;
+
+import com.zenika.liquid.democracy.model.FinalResult;
+import com.zenika.liquid.democracy.model.Power;
+import com.zenika.liquid.democracy.model.Subject;
+import com.zenika.liquid.democracy.model.Vote;
+
+/**
+ * Persistence of subjects with their votes and powers.
+ *
+ * Subjects are always returned with their votes and powers loaded, whatever the storage layout chosen with
+ * {@code app.persistence.ballots} ({@code embedded} by default, or {@code collections}), except summaries.
+ *
+ * Subjects closed for long are moved to an archive, where they may be kept without their votes and powers. They are
+ * still found by uuid and listed with all subjects, but no longer by the other queries.
+ */
+public interface SubjectStore {
+
+	/**
+	 * The subject, or the archived one.
+	 */
+	Optional<Subject> findSubjectByUuid(String subjectUuid);
+
+	List<Subject> findByDeadLineGreaterThanOrDeadLineIsNull(Date d);
+
+	List<Subject> findSubjectByCategoryUuid(String categoryUuid);
+
+	List<Subject> findAll();
+
+	/**
+	 * Subjects without their votes, powers and participants, enough to list them, archived ones included.
+	 */
+	List<Subject> findSummaries();
+
+	/**
+	 * Open subjects without their votes, powers and participants.
+	 */
+	List<Subject> findSummariesInProgress(Date d);
+
+	Page<Subject> findSummaries(boolean inProgressOnly, Pageable pageable);
+
+	/**
+	 * Summaries following the cursor, or the first ones in that direction when the cursor is null.
+	 */
+	List<Subject> findSummaries(SubjectCursor cursor, Direction direction, boolean inProgressOnly, int size);
+
+	/**
+	 * Summaries read from a database cursor, which must be closed once read.
+	 */
+	CloseableIterator<Subject> streamSummaries(boolean inProgressOnly);
+
+	/**
+	 * Subjects not closed yet whose deadline is before {@code end}, with only their uuid and deadline.
+	 */
+	List<Subject> findClosingBefore(Date end);
+
+	/**
+	 * The subject if it is closed, read from its final result: without its votes, powers and participants.
+	 */
+	Optional<Subject> findClosedSubject(String subjectUuid);
+
+	/**
+	 * Persists the final result of the subject and marks it closed, unless another instance already did. Ballots
+	 * loaded before can no longer be written once it is closed.
+	 *
+	 * @return false when the subject was already closed
+	 * @throws org.springframework.dao.OptimisticLockingFailureException if the subject was modified since it was
+	 *             loaded: the result may miss some ballots and must be computed again
+	 */
+	boolean close(Subject subject, FinalResult finalResult);
+
+	/**
+	 * Closed subjects whose deadline is before {@code closedBefore}, with only their uuid.
+	 */
+	List<Subject> findArchivable(Date closedBefore, int size);
+
+	/**
+	 * Moves a closed subject, loaded with its votes and powers, to the archive. Its votes are dropped when
+	 * {@code keepVotes} is false: its final result, participants and powers are enough for the flags of each user.
+	 */
+	void archive(Subject subject, boolean keepVotes);
+
+	/**
+	 * Participation of the user in each of the subjects, archived or not, by subject uuid. Subjects the user neither
+	 * voted on nor delegated on are left out.
+	 */
+	Map<String, Participation> findParticipations(Collection<String> subjectUuids, String userId);
+
+	/**
+	 * Sets the category and the channel of summaries, read for all of them at once.
+	 */
+	void loadReferences(List<Subject> summaries);
+
+	/**
+	 * Open subjects of the category on which the user has neither voted nor delegated.
+	 */
+	List<Subject> findDelegableSubjects(String categoryUuid, String userId);
+
+	/**
+	 * Open subjects of the category on which the user delegated to {@code collaboratorIdTo}.
+	 */
+	List<Subject> findDelegatedSubjects(String categoryUuid, String userId, String collaboratorIdTo);
+
+	Subject save(Subject subject);
+
+	/**
+	 * Persists votes already added to the subject and counted by {@link com.zenika.liquid.democracy.api.vote.util.VoteUtil#prepareVotes},
+	 * in a single write of the subject when possible.
+	 *
+	 * @return the votes refused because their collaborator's vote was already stored
+	 * @throws org.springframework.dao.OptimisticLockingFailureException if the subject was modified since it was
+	 *         loaded, other than by votes of other collaborators in the collections layout
+	 */
+	List<Vote> saveVotes(Subject subject, List<Vote> votes);
+
+	/**
+	 * Persists a power already added to the subject by {@link com.zenika.liquid.democracy.api.power.util.PowerUtil#preparePower}.
+	 *
+	 * @throws org.springframework.dao.OptimisticLockingFailureException if the subject was modified since it was
+	 *         loaded
+	 */
+	void savePower(Subject subject, Power power);
+
+	/**
+	 * Persists a power already removed from the subject.
+	 *
+	 * @throws org.springframework.dao.OptimisticLockingFailureException if the subject was modified since it was
+	 *         loaded
+	 */
+	void deletePower(Subject subject, Power power);
+
+	/**
+	 * Persists in one bulk write powers already added to their subject by
+	 * {@link com.zenika.liquid.democracy.api.power.util.PowerUtil#preparePower}.
+	 *
+	 * @return uuids of the subjects modified concurrently, on which the power was not saved
+	 */
+	Set<String> savePowers(Map<Subject, Power> powers);
+
+	/**
+	 * Persists in one bulk write powers already removed from their subject.
+	 *
+	 * @return uuids of the subjects modified concurrently, on which the power was not deleted
+	 */
+	Set<String> deletePowers(Map<Subject, Power> powers);
+
+	/**
+	 * Deletes the subject, or the archived one.
+	 */
+	void delete(Subject subject);
+}
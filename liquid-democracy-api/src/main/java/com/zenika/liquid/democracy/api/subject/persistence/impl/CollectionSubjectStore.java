@@ -0,0 +1,724 @@
+package com.zenika.liquid.democracy.api.subject.persistence.impl;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.log4j.Logger;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteError;
+import com.mongodb.BulkWriteException;
+import com.mongodb.BulkWriteOperation;
+import com.mongodb.BulkWriteResult;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import com.zenika.liquid.democracy.api.power.persistence.PowerRepository;
+import com.zenika.liquid.democracy.api.subject.persistence.Participation;
+import com.zenika.liquid.democracy.api.subject.persistence.SubjectCursor;
+import com.zenika.liquid.democracy.api.subject.persistence.SubjectRepository;
+import com.zenika.liquid.democracy.api.subject.persistence.SubjectRepositoryImpl;
+import com.zenika.liquid.democracy.api.subject.persistence.SubjectStore;
+import com.zenika.liquid.democracy.api.vote.persistence.VoteRepository;
+import com.zenika.liquid.democracy.api.vote.util.TallyUtil;
+import com.zenika.liquid.democracy.model.FinalResult;
+import com.zenika.liquid.democracy.model.Power;
+import com.zenika.liquid.democracy.model.Proposition;
+import com.zenika.liquid.democracy.model.Subject;
+import com.zenika.liquid.democracy.model.Vote;
+import com.zenika.liquid.democracy.model.WeightedChoice;
+
+/**
+ * Votes and powers stored in their own collections, the subject document only keeps the tally.
+ *
+ * A write of votes or powers never rewrites the subject document.
+ *
+ * Votes are inserted in their collection first, whose unique index on (subjectUuid, collaboratorId) refuses the second
+ * vote of a collaborator. Their points are then {@code $inc}ed in the tally by an update which leaves the version as
+ * it is: votes of different collaborators never conflict. The update only fails when the subject was closed, or when a
+ * power was written since the votes were weighted; the votes are then removed and retried from the subject reloaded.
+ *
+ * Powers reweight votes already stored, and are still committed by one atomic update of the subject conditioned on
+ * the version the write was checked against and on the tally counting every vote it was checked against: it
+ * {@code $inc}s the points it adds, bumps the version and keeps the write as an intent ({@link PendingBallots}). The
+ * powers and weights are then written in their collections and the intent removed. A write interrupted in between is
+ * read as if completed, and completed by the next write on the subject. The power checked against an older version,
+ * or against a vote not counted yet, is refused with an {@link OptimisticLockingFailureException}, and retried from
+ * the subject reloaded.
+ *
+ * A vote left uncounted by an instance stopped between both writes is counted by
+ * {@link com.zenika.liquid.democracy.config.BallotCollectionMigration} at next startup.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.persistence", name = "ballots", havingValue = "collections")
+public class CollectionSubjectStore implements SubjectStore {
+
+	private static final Logger LOG = Logger.getLogger(CollectionSubjectStore.class);
+
+	private static final int DUPLICATE_KEY = 11000;
+
+	private final SubjectRepository subjectRepository;
+
+	private final VoteRepository voteRepository;
+
+	private final PowerRepository powerRepository;
+
+	private final MongoTemplate mongoTemplate;
+
+	@Autowired
+	public CollectionSubjectStore(SubjectRepository subjectRepository, VoteRepository voteRepository,
+	        PowerRepository powerRepository, MongoTemplate mongoTemplate) {
+		this.subjectRepository = subjectRepository;
+		this.voteRepository = voteRepository;
+		this.powerRepository = powerRepository;
+		this.mongoTemplate = mongoTemplate;
+	}
+
+	@Override
+	public Optional<Subject> findSubjectByUuid(String subjectUuid) {
+		Optional<Subject> subject = subjectRepository.findSubjectByUuid(subjectUuid);
+		if (!subject.isPresent()) {
+			// Archived subjects keep their votes and powers, if any, in their document
+			return subjectRepository.findArchivedSubject(subjectUuid);
+		}
+		hydrate(Collections.singletonList(subject.get()));
+		return subject;
+	}
+
+	@Override
+	public List<Subject> findByDeadLineGreaterThanOrDeadLineIsNull(Date d) {
+		return hydrate(subjectRepository.findByDeadLineGreaterThanOrDeadLineIsNull(d));
+	}
+
+	@Override
+	public List<Subject> findSubjectByCategoryUuid(String categoryUuid) {
+		return hydrate(subjectRepository.findSubjectByCategoryUuid(categoryUuid));
+	}
+
+	@Override
+	public List<Subject> findAll() {
+		return hydrate(subjectRepository.findAll());
+	}
+
+	@Override
+	public List<Subject> findSummaries() {
+		return subjectRepository.findAllSummaries();
+	}
+
+	@Override
+	public List<Subject> findSummariesInProgress(Date d) {
+		return subjectRepository.findSummariesInProgress(d);
+	}
+
+	@Override
+	public Page<Subject> findSummaries(boolean inProgressOnly, Pageable pageable) {
+		return inProgressOnly ? subjectRepository.findSummariesInProgress(new Date(), pageable)
+		        : subjectRepository.findAllSummaries(pageable);
+	}
+
+	@Override
+	public List<Subject> findSummaries(SubjectCursor cursor, Direction direction, boolean inProgressOnly, int size) {
+		return subjectRepository.findSummaries(cursor, direction, inProgressOnly, size);
+	}
+
+	@Override
+	public CloseableIterator<Subject> streamSummaries(boolean inProgressOnly) {
+		return subjectRepository.streamSummaries(inProgressOnly);
+	}
+
+	@Override
+	public List<Subject> findClosingBefore(Date end) {
+		return subjectRepository.findClosingBefore(end);
+	}
+
+	@Override
+	public Optional<Subject> findClosedSubject(String subjectUuid) {
+		return subjectRepository.findClosedSubject(subjectUuid);
+	}
+
+	@Override
+	public boolean close(Subject subject, FinalResult finalResult) {
+		// Its result counts the write left in progress, whose ballots could no longer be written once closed
+		complete(findPending(Collections.singleton(subject.getUuid())));
+		checkTallied(subject);
+		if (!subjectRepository.close(subject, finalResult)) {
+			return false;
+		}
+		subject.close(finalResult);
+		return true;
+	}
+
+	@Override
+	public List<Subject> findArchivable(Date closedBefore, int size) {
+		return subjectRepository.findArchivable(closedBefore, size);
+	}
+
+	@Override
+	public void archive(Subject subject, boolean keepVotes) {
+		// The archive keeps the embedded layout: the votes kept and the powers move into the subject document, with
+		// the participants the flags of each user on the subject are read from
+		if (!keepVotes) {
+			subject.setVotes(new ArrayList<>());
+		}
+		subjectRepository.archive(subject);
+
+		voteRepository.deleteBySubjectUuid(subject.getUuid());
+		powerRepository.deleteBySubjectUuid(subject.getUuid());
+	}
+
+	@Override
+	public Map<String, Participation> findParticipations(Collection<String> subjectUuids, String userId) {
+		if (subjectUuids.isEmpty()) {
+			return new HashMap<>();
+		}
+
+		Map<String, Participation> participations = EmbeddedSubjectStore.findVotedSubjects(mongoTemplate,
+		        mongoTemplate.getCollectionName(Subject.class), subjectUuids, userId);
+
+		for (Power power : powerRepository.findBySubjectUuidInAndCollaboratorIdFrom(subjectUuids, userId)) {
+			participations.computeIfAbsent(power.getSubjectUuid(), uuid -> new Participation())
+			        .setGivenDelegation(power.getCollaboratorIdTo());
+		}
+		for (Power power : powerRepository.findBySubjectUuidInAndCollaboratorIdTo(subjectUuids, userId)) {
+			participations.computeIfAbsent(power.getSubjectUuid(), uuid -> new Participation()).addReceivedDelegations(1);
+		}
+
+		EmbeddedSubjectStore.findArchivedParticipations(mongoTemplate, subjectUuids, userId)
+		        .forEach(participations::putIfAbsent);
+		return participations;
+	}
+
+	@Override
+	public void loadReferences(List<Subject> summaries) {
+		subjectRepository.loadReferences(summaries);
+	}
+
+	@Override
+	public List<Subject> findDelegableSubjects(String categoryUuid, String userId) {
+		// Subjects on which the user voted or gave a power are set aside from the ballot indexes by subject and user:
+		// only the others are read with their ballots
+		List<String> open = findOpenInCategory(categoryUuid);
+		Set<String> delegable = new LinkedHashSet<>(open);
+		voteRepository.findBySubjectUuidInAndCollaboratorId(open, userId)
+		        .forEach(v -> delegable.remove(v.getSubjectUuid()));
+		powerRepository.findBySubjectUuidInAndCollaboratorIdFrom(open, userId)
+		        .forEach(p -> delegable.remove(p.getSubjectUuid()));
+
+		// Checked again with the writes in progress, not in the collections yet
+		return findHydrated(delegable).stream()
+		        .filter(s -> s.getVotes().stream().noneMatch(v -> userId.equals(v.getCollaboratorId())))
+		        .filter(s -> !s.findPower(userId).isPresent())
+		        .collect(Collectors.toList());
+	}
+
+	@Override
+	public List<Subject> findDelegatedSubjects(String categoryUuid, String userId, String collaboratorIdTo) {
+		Set<String> delegated = powerRepository
+		        .findBySubjectUuidInAndCollaboratorIdFromAndCollaboratorIdTo(findOpenInCategory(categoryUuid), userId,
+		                collaboratorIdTo)
+		        .stream().map(Power::getSubjectUuid).collect(Collectors.toSet());
+
+		return findHydrated(delegated).stream()
+		        .filter(s -> collaboratorIdTo.equals(s.getGivenDelegation(userId)))
+		        .collect(Collectors.toList());
+	}
+
+	@Override
+	public Subject save(Subject subject) {
+		List<Vote> votes = subject.getVotes();
+		List<Power> powers = subject.getPowers();
+
+		// Only the subject itself goes in the subject document
+		subject.setVotes(new ArrayList<>());
+		subject.setPowers(new ArrayList<>());
+		try {
+			subjectRepository.save(subject);
+		} finally {
+			subject.setVotes(votes);
+			subject.setPowers(powers);
+		}
+
+		votes.forEach(v -> v.setSubjectUuid(subject.getUuid()));
+		powers.forEach(p -> p.setSubjectUuid(subject.getUuid()));
+		voteRepository.save(votes);
+		powerRepository.save(powers);
+
+		return subject;
+	}
+
+	@Override
+	public List<Vote> saveVotes(Subject subject, List<Vote> votes) {
+		votes.forEach(v -> v.setSubjectUuid(subject.getUuid()));
+		List<Vote> duplicates = insert(votes);
+		List<Vote> inserted = votes.stream().filter(v -> !duplicates.contains(v)).collect(Collectors.toList());
+		if (inserted.isEmpty()) {
+			return duplicates;
+		}
+
+		Map<Integer, Integer> points = new HashMap<>();
+		Set<String> participants = new HashSet<>();
+		for (Vote vote : inserted) {
+			addPoints(points, subject, vote, vote.getWeight());
+			participants.addAll(TallyUtil.participantsOf(subject, vote.getCollaboratorId()));
+		}
+
+		if (!count(subject, tally(points, inserted.size(), participants))) {
+			List<Object> ids = inserted.stream().map(v -> objectId(v.getId())).collect(Collectors.toList());
+			collection(Vote.class).remove(new BasicDBObject("_id", new BasicDBObject("$in", ids)));
+			throw new OptimisticLockingFailureException("Subject " + subject.getUuid() + " modified concurrently");
+		}
+		return duplicates;
+	}
+
+	@Override
+	public void savePower(Subject subject, Power power) {
+		Map<Integer, Integer> points = new HashMap<>();
+		Set<String> delegated = new HashSet<>();
+		PendingBallots pending = addition(subject, power, points, delegated);
+		commit(subject, tally(points, 0, delegated), pending);
+	}
+
+	@Override
+	public void deletePower(Subject subject, Power power) {
+		// Refused once the delegate voted: no vote carries the voices of the delegator
+		PendingBallots pending = new PendingBallots();
+		pending.getRemovedPowerIds().add(power.getId());
+		commit(subject, tally(new HashMap<>(), 0, new HashSet<>()), pending);
+	}
+
+	@Override
+	public Set<String> savePowers(Map<Subject, Power> powers) {
+		Map<Subject, DBObject> tallies = new LinkedHashMap<>();
+		Map<Subject, PendingBallots> changes = new LinkedHashMap<>();
+		powers.forEach((subject, power) -> {
+			Map<Integer, Integer> points = new HashMap<>();
+			Set<String> delegated = new HashSet<>();
+			PendingBallots pending = addition(subject, power, points, delegated);
+			tallies.put(subject, tally(points, 0, delegated));
+			changes.put(subject, pending);
+		});
+
+		return commitAll(tallies, changes);
+	}
+
+	@Override
+	public Set<String> deletePowers(Map<Subject, Power> powers) {
+		Map<Subject, DBObject> tallies = new LinkedHashMap<>();
+		Map<Subject, PendingBallots> changes = new LinkedHashMap<>();
+		powers.forEach((subject, power) -> {
+			PendingBallots pending = new PendingBallots();
+			pending.getRemovedPowerIds().add(power.getId());
+			tallies.put(subject, tally(new HashMap<>(), 0, new HashSet<>()));
+			changes.put(subject, pending);
+		});
+
+		return commitAll(tallies, changes);
+	}
+
+	/**
+	 * Rebuilds the tally of an open subject which no longer matches its votes, unless the subject is modified
+	 * meanwhile. Run offline by {@link com.zenika.liquid.democracy.config.BallotCollectionMigration}, never on reads.
+	 *
+	 * @return true when the tally was rebuilt
+	 */
+	public boolean repairTally(String subjectUuid) {
+		Subject subject = findSubjectByUuid(subjectUuid).orElse(null);
+		if (subject == null || subject.isClosed()) {
+			return false;
+		}
+		int talliedVoteCount = subject.getTalliedVoteCount();
+		if (!TallyUtil.repair(subject)) {
+			return false;
+		}
+
+		DBObject set = new BasicDBObject("talliedVoteCount", subject.getTalliedVoteCount())
+		        .append("participantIds", new ArrayList<>(subject.getParticipantIds()))
+		        .append("participantCount", subject.getParticipantCount())
+		        .append("version", SubjectRepositoryImpl.nextVersion(subject.getVersion()));
+		List<Proposition> propositions = subject.getPropositions();
+		for (int i = 0; i < propositions.size(); i++) {
+			set.put("propositions." + i + ".points", propositions.get(i).getPoints());
+		}
+
+		// Unless a vote was counted meanwhile, which the tally rebuilt may already include
+		DBObject loaded = committable(subject).append("talliedVoteCount", talliedVoteCount);
+		return collection(Subject.class).update(loaded, new BasicDBObject("$set", set)).getN() == 1;
+	}
+
+	@Override
+	public void delete(Subject subject) {
+		subjectRepository.delete(subject);
+		subjectRepository.deleteArchived(subject.getUuid());
+		voteRepository.deleteBySubjectUuid(subject.getUuid());
+		powerRepository.deleteBySubjectUuid(subject.getUuid());
+	}
+
+	private List<String> findOpenInCategory(String categoryUuid) {
+		Query query = query(EmbeddedSubjectStore.openInCategory(categoryUuid));
+		query.fields().include("uuid");
+		return mongoTemplate.find(query, Subject.class).stream().map(Subject::getUuid).collect(Collectors.toList());
+	}
+
+	private List<Subject> findHydrated(Collection<String> subjectUuids) {
+		if (subjectUuids.isEmpty()) {
+			return new ArrayList<>();
+		}
+		return hydrate(mongoTemplate.find(query(where("uuid").in(subjectUuids)), Subject.class));
+	}
+
+	private List<Subject> hydrate(List<Subject> subjects) {
+		if (subjects.isEmpty()) {
+			return subjects;
+		}
+
+		List<String> uuids = subjects.stream().map(Subject::getUuid).collect(Collectors.toList());
+		Map<String, List<Vote>> votes = voteRepository.findBySubjectUuidIn(uuids).stream()
+		        .collect(Collectors.groupingBy(Vote::getSubjectUuid));
+		Map<String, List<Power>> powers = powerRepository.findBySubjectUuidIn(uuids).stream()
+		        .collect(Collectors.groupingBy(Power::getSubjectUuid));
+		Map<String, PendingBallots> pending = findPending(uuids);
+
+		for (Subject s : subjects) {
+			s.setVotes(votes.getOrDefault(s.getUuid(), new ArrayList<>()));
+			s.setPowers(powers.getOrDefault(s.getUuid(), new ArrayList<>()));
+
+			// Already counted in the tally: the subject is read as if its votes and powers were written
+			if (pending.containsKey(s.getUuid())) {
+				pending.get(s.getUuid()).applyTo(s);
+			}
+		}
+
+		return subjects;
+	}
+
+	private Map<String, PendingBallots> findPending(Collection<String> subjectUuids) {
+		List<Object> ids = subjectUuids.stream().map(CollectionSubjectStore::objectId).collect(Collectors.toList());
+
+		Map<String, PendingBallots> pending = new HashMap<>();
+		for (DBObject dbo : collection(Subject.class).find(
+		        new BasicDBObject("_id", new BasicDBObject("$in", ids)).append(PendingBallots.FIELD,
+		                new BasicDBObject("$exists", true)),
+		        new BasicDBObject(PendingBallots.FIELD, 1))) {
+			pending.put(String.valueOf(dbo.get("_id")),
+			        PendingBallots.read(mongoTemplate.getConverter(), (DBObject) dbo.get(PendingBallots.FIELD)));
+		}
+		return pending;
+	}
+
+	/**
+	 * Inserts the votes in one bulk write.
+	 *
+	 * @return the votes refused because their collaborator's vote was already stored
+	 */
+	private List<Vote> insert(List<Vote> votes) {
+		BulkWriteOperation bulk = collection(Vote.class).initializeUnorderedBulkOperation();
+		votes.forEach(v -> bulk.insert(toDBObject(v)));
+		try {
+			bulk.execute();
+			return Collections.emptyList();
+		} catch (BulkWriteException e) {
+			List<Vote> duplicates = new ArrayList<>();
+			for (BulkWriteError error : e.getWriteErrors()) {
+				if (error.getCode() != DUPLICATE_KEY) {
+					throw e;
+				}
+				duplicates.add(votes.get(error.getIndex()));
+			}
+			return duplicates;
+		}
+	}
+
+	/**
+	 * Adds inserted votes to the tally, only if no power was written and the subject was not closed since it was
+	 * loaded. The version is left as it is for the other voters.
+	 *
+	 * @return false if the subject was modified or closed since it was loaded
+	 */
+	private boolean count(Subject subject, DBObject tally) {
+		if (collection(Subject.class).update(committable(subject), tally).getN() == 1) {
+			return true;
+		}
+
+		// The intent of an interrupted write blocks the next ones until it is completed
+		Map<String, PendingBallots> left = findPending(Collections.singleton(subject.getUuid()));
+		complete(left);
+		return !left.isEmpty() && collection(Subject.class).update(committable(subject), tally).getN() == 1;
+	}
+
+	/**
+	 * Counts the write in the tally and keeps its intent in the subject, only if the subject is still the one loaded,
+	 * then writes the votes and powers.
+	 *
+	 * @throws OptimisticLockingFailureException if the subject was modified or closed since it was loaded
+	 */
+	private void commit(Subject subject, DBObject tally, PendingBallots pending) {
+		checkTallied(subject);
+		DBObject update = withPending(subject, tally, pending);
+		if (collection(Subject.class).update(tallied(subject), update).getN() == 0) {
+			// The intent of an interrupted write blocks the next ones until it is completed
+			Map<String, PendingBallots> left = findPending(Collections.singleton(subject.getUuid()));
+			complete(left);
+			if (left.isEmpty() || collection(Subject.class).update(tallied(subject), update).getN() == 0) {
+				throw new OptimisticLockingFailureException("Subject " + subject.getUuid() + " modified concurrently");
+			}
+		}
+
+		subject.setVersion(SubjectRepositoryImpl.nextVersion(subject.getVersion()));
+		complete(Collections.singletonMap(subject.getUuid(), pending));
+	}
+
+	/**
+	 * Commits the writes of several subjects in one bulk write.
+	 *
+	 * @return uuids of the subjects modified or closed since they were loaded, on which nothing was written
+	 */
+	private Set<String> commitAll(Map<Subject, DBObject> tallies, Map<Subject, PendingBallots> changes) {
+		if (changes.isEmpty()) {
+			return Collections.emptySet();
+		}
+
+		// A subject read with a vote not counted yet could miss the voices it carries
+		Set<String> conflicts = new HashSet<>();
+		changes.keySet().stream().filter(s -> !isTallied(s)).forEach(s -> conflicts.add(s.getUuid()));
+		changes.keySet().removeIf(s -> conflicts.contains(s.getUuid()));
+		if (changes.isEmpty()) {
+			return conflicts;
+		}
+
+		BulkWriteOperation bulk = collection(Subject.class).initializeUnorderedBulkOperation();
+		changes.forEach((subject, pending) -> bulk.find(tallied(subject))
+		        .updateOne(withPending(subject, tallies.get(subject), pending)));
+		BulkWriteResult result = bulk.execute();
+
+		Map<String, PendingBallots> toComplete = new HashMap<>();
+		changes.forEach((subject, pending) -> toComplete.put(subject.getUuid(), pending));
+
+		if (result.getMatchedCount() < changes.size()) {
+			// A subject was written if it still holds this intent, or if another write already completed it
+			Map<String, PendingBallots> found = findPending(toComplete.keySet());
+			Set<String> storedPowerIds = findStoredPowerIds(changes.values());
+			for (Map.Entry<Subject, PendingBallots> change : changes.entrySet()) {
+				String uuid = change.getKey().getUuid();
+				PendingBallots current = found.get(uuid);
+				boolean holdsIntent = current != null && current.getId().equals(change.getValue().getId());
+				if (!holdsIntent && !isWritten(change.getValue(), storedPowerIds)) {
+					conflicts.add(uuid);
+					toComplete.remove(uuid);
+					if (current != null) {
+						toComplete.put(uuid, current);
+					}
+				}
+			}
+		}
+
+		changes.keySet().stream().filter(s -> !conflicts.contains(s.getUuid()))
+		        .forEach(s -> s.setVersion(SubjectRepositoryImpl.nextVersion(s.getVersion())));
+		complete(toComplete);
+
+		return conflicts;
+	}
+
+	/**
+	 * Writes the votes and powers of the intents, then removes each intent from its subject.
+	 */
+	private void complete(Map<String, PendingBallots> pending) {
+		if (pending.isEmpty()) {
+			return;
+		}
+
+		BulkWriteOperation votes = collection(Vote.class).initializeUnorderedBulkOperation();
+		BulkWriteOperation powers = collection(Power.class).initializeUnorderedBulkOperation();
+		BulkWriteOperation subjects = collection(Subject.class).initializeUnorderedBulkOperation();
+		int voteWrites = 0;
+		int powerWrites = 0;
+		for (Map.Entry<String, PendingBallots> intent : pending.entrySet()) {
+			PendingBallots p = intent.getValue();
+			for (Vote vote : p.getVotes()) {
+				votes.find(idOf(vote)).upsert().replaceOne(toDBObject(vote));
+				voteWrites++;
+			}
+			for (Map.Entry<String, Integer> weight : p.getWeights().entrySet()) {
+				votes.find(new BasicDBObject("_id", objectId(weight.getKey())))
+				        .updateOne(new BasicDBObject("$set", new BasicDBObject("weight", weight.getValue())));
+				voteWrites++;
+			}
+			for (Power power : p.getPowers()) {
+				powers.find(idOf(power)).upsert().replaceOne(toDBObject(power));
+				powerWrites++;
+			}
+			for (String powerId : p.getRemovedPowerIds()) {
+				powers.find(new BasicDBObject("_id", objectId(powerId))).removeOne();
+				powerWrites++;
+			}
+			subjects.find(new BasicDBObject("_id", objectId(intent.getKey())).append(PendingBallots.FIELD + ".id", p.getId()))
+			        .updateOne(new BasicDBObject("$unset", new BasicDBObject(PendingBallots.FIELD, "")));
+		}
+
+		execute(votes, voteWrites);
+		execute(powers, powerWrites);
+		subjects.execute();
+	}
+
+	private static void execute(BulkWriteOperation bulk, int writes) {
+		if (writes == 0) {
+			return;
+		}
+		try {
+			bulk.execute();
+		} catch (BulkWriteException e) {
+			// Another ballot of the same collaborator, stored before writes were checked against the version or the
+			// unique indexes
+			LOG.warn("Ballots not written: " + e.getWriteErrors());
+		}
+	}
+
+	private Set<String> findStoredPowerIds(Collection<PendingBallots> pending) {
+		List<Object> ids = new ArrayList<>();
+		for (PendingBallots p : pending) {
+			p.getPowers().forEach(power -> ids.add(objectId(power.getId())));
+			p.getRemovedPowerIds().forEach(powerId -> ids.add(objectId(powerId)));
+		}
+
+		Set<String> stored = new HashSet<>();
+		collection(Power.class).find(new BasicDBObject("_id", new BasicDBObject("$in", ids)), new BasicDBObject("_id", 1))
+		        .forEach(dbo -> stored.add(String.valueOf(dbo.get("_id"))));
+		return stored;
+	}
+
+	private static boolean isWritten(PendingBallots pending, Set<String> storedPowerIds) {
+		return pending.getPowers().stream().allMatch(p -> storedPowerIds.contains(p.getId()))
+		        && pending.getRemovedPowerIds().stream().noneMatch(storedPowerIds::contains);
+	}
+
+	/**
+	 * The subject as loaded: no power written nor closed since, and without a write in progress.
+	 */
+	private static BasicDBObject committable(Subject subject) {
+		return new BasicDBObject("_id", objectId(subject.getUuid()))
+		        .append("version", subject.getVersion())
+		        .append("closed", new BasicDBObject("$ne", true))
+		        .append(PendingBallots.FIELD, new BasicDBObject("$exists", false));
+	}
+
+	/**
+	 * The subject as loaded, without any vote counted since.
+	 */
+	private static DBObject tallied(Subject subject) {
+		return committable(subject).append("talliedVoteCount", subject.getTalliedVoteCount());
+	}
+
+	/**
+	 * Whether every vote the subject was loaded with is counted in its tally: a vote is inserted before it is counted.
+	 */
+	private static boolean isTallied(Subject subject) {
+		return subject.getTalliedVoteCount() == subject.getVotes().size();
+	}
+
+	/**
+	 * @throws OptimisticLockingFailureException if the subject was loaded with a vote not counted yet
+	 */
+	private static void checkTallied(Subject subject) {
+		if (!isTallied(subject)) {
+			throw new OptimisticLockingFailureException("Subject " + subject.getUuid() + " read while a vote is counted");
+		}
+	}
+
+	private DBObject withPending(Subject subject, DBObject tally, PendingBallots pending) {
+		DBObject update = new BasicDBObject(tally.toMap());
+		update.put("$set", new BasicDBObject("version", SubjectRepositoryImpl.nextVersion(subject.getVersion()))
+		        .append(PendingBallots.FIELD, pending.toDBObject(mongoTemplate.getConverter())));
+		return update;
+	}
+
+	/**
+	 * Points, counted votes and participants added by a write, as an update of the subject.
+	 */
+	private static DBObject tally(Map<Integer, Integer> points, int talliedVotes, Set<String> participants) {
+		// Propositions never move once the subject is created, their position is a stable path
+		BasicDBObject inc = new BasicDBObject();
+		points.forEach((i, p) -> inc.append("propositions." + i + ".points", p));
+		if (talliedVotes != 0) {
+			inc.append("talliedVoteCount", talliedVotes);
+		}
+
+		BasicDBObject update = new BasicDBObject();
+		// Voices carried by different votes never overlap: the count grows by the number of new participants
+		if (!participants.isEmpty()) {
+			inc.append("participantCount", participants.size());
+			update.append("$addToSet", new BasicDBObject("participantIds",
+			        new BasicDBObject("$each", new ArrayList<>(participants))));
+		}
+		if (!inc.isEmpty()) {
+			update.append("$inc", inc);
+		}
+		return update;
+	}
+
+	private PendingBallots addition(Subject subject, Power power, Map<Integer, Integer> points, Set<String> delegated) {
+		power.setSubjectUuid(subject.getUuid());
+		PendingBallots pending = new PendingBallots();
+		pending.getPowers().add(power);
+
+		// The vote which now carries the delegated voices, already reweighted in memory by preparePower
+		Optional<Vote> vote = subject.findVote(power.getCollaboratorIdTo());
+		if (vote.isPresent()) {
+			delegated.addAll(TallyUtil.participantsOf(subject, power.getCollaboratorIdFrom()));
+			addPoints(points, subject, vote.get(), delegated.size());
+			pending.getWeights().put(vote.get().getId(), vote.get().getWeight());
+		}
+		return pending;
+	}
+
+	private DBCollection collection(Class<?> entityClass) {
+		return mongoTemplate.getCollection(mongoTemplate.getCollectionName(entityClass));
+	}
+
+	private DBObject toDBObject(Object entity) {
+		DBObject dbo = new BasicDBObject();
+		mongoTemplate.getConverter().write(entity, dbo);
+		return dbo;
+	}
+
+	private DBObject idOf(Object entity) {
+		return new BasicDBObject("_id", toDBObject(entity).get("_id"));
+	}
+
+	private static Object objectId(String id) {
+		return ObjectId.isValid(id) ? new ObjectId(id) : id;
+	}
+
+	private void addPoints(Map<Integer, Integer> points, Subject subject, Vote vote, int weight) {
+		List<Proposition> propositions = subject.getPropositions();
+		for (WeightedChoice c : vote.getChoices()) {
+			for (int i = 0; i < propositions.size(); i++) {
+				if (propositions.get(i).getId().equals(c.getPropositionId())) {
+					points.merge(i, c.getPoints() * weight, Integer::sum);
+				}
+			}
+		}
+	}
+}
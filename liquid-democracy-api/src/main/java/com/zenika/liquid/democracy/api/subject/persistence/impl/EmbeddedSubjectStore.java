@@ -0,0 +1,333 @@
+package com.zenika.liquid.democracy.api.subject.persistence.impl;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteOperation;
+import com.mongodb.BulkWriteResult;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import com.zenika.liquid.democracy.api.subject.persistence.Participation;
+import com.zenika.liquid.democracy.api.subject.persistence.SubjectCursor;
+import com.zenika.liquid.democracy.api.subject.persistence.SubjectRepository;
+import com.zenika.liquid.democracy.api.subject.persistence.SubjectRepositoryImpl;
+import com.zenika.liquid.democracy.api.subject.persistence.SubjectStore;
+import com.zenika.liquid.democracy.model.FinalResult;
+import com.zenika.liquid.democracy.model.Power;
+import com.zenika.liquid.democracy.model.Subject;
+import com.zenika.liquid.democracy.model.Vote;
+
+/**
+ * Votes and powers embedded in the subject document: every change rewrites the whole subject.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.persistence", name = "ballots", havingValue = "embedded", matchIfMissing = true)
+public class EmbeddedSubjectStore implements SubjectStore {
+
+	private final SubjectRepository subjectRepository;
+
+	private final MongoTemplate mongoTemplate;
+
+	@Autowired
+	public EmbeddedSubjectStore(SubjectRepository subjectRepository, MongoTemplate mongoTemplate) {
+		this.subjectRepository = subjectRepository;
+		this.mongoTemplate = mongoTemplate;
+	}
+
+	@Override
+	public Optional<Subject> findSubjectByUuid(String subjectUuid) {
+		Optional<Subject> subject = subjectRepository.findSubjectByUuid(subjectUuid);
+		return subject.isPresent() ? subject : subjectRepository.findArchivedSubject(subjectUuid);
+	}
+
+	@Override
+	public List<Subject> findByDeadLineGreaterThanOrDeadLineIsNull(Date d) {
+		return subjectRepository.findByDeadLineGreaterThanOrDeadLineIsNull(d);
+	}
+
+	@Override
+	public List<Subject> findSubjectByCategoryUuid(String categoryUuid) {
+		return subjectRepository.findSubjectByCategoryUuid(categoryUuid);
+	}
+
+	@Override
+	public List<Subject> findAll() {
+		return subjectRepository.findAll();
+	}
+
+	@Override
+	public List<Subject> findSummaries() {
+		return subjectRepository.findAllSummaries();
+	}
+
+	@Override
+	public List<Subject> findSummariesInProgress(Date d) {
+		return subjectRepository.findSummariesInProgress(d);
+	}
+
+	@Override
+	public Page<Subject> findSummaries(boolean inProgressOnly, Pageable pageable) {
+		return inProgressOnly ? subjectRepository.findSummariesInProgress(new Date(), pageable)
+		        : subjectRepository.findAllSummaries(pageable);
+	}
+
+	@Override
+	public List<Subject> findSummaries(SubjectCursor cursor, Direction direction, boolean inProgressOnly, int size) {
+		return subjectRepository.findSummaries(cursor, direction, inProgressOnly, size);
+	}
+
+	@Override
+	public CloseableIterator<Subject> streamSummaries(boolean inProgressOnly) {
+		return subjectRepository.streamSummaries(inProgressOnly);
+	}
+
+	@Override
+	public List<Subject> findClosingBefore(Date end) {
+		return subjectRepository.findClosingBefore(end);
+	}
+
+	@Override
+	public Optional<Subject> findClosedSubject(String subjectUuid) {
+		return subjectRepository.findClosedSubject(subjectUuid);
+	}
+
+	@Override
+	public boolean close(Subject subject, FinalResult finalResult) {
+		if (!subjectRepository.close(subject, finalResult)) {
+			return false;
+		}
+		subject.close(finalResult);
+		return true;
+	}
+
+	@Override
+	public List<Subject> findArchivable(Date closedBefore, int size) {
+		return subjectRepository.findArchivable(closedBefore, size);
+	}
+
+	@Override
+	public void archive(Subject subject, boolean keepVotes) {
+		// The participants and the powers are kept: the flags of each user on the subject are read from them
+		if (!keepVotes) {
+			subject.setVotes(new ArrayList<>());
+		}
+		subjectRepository.archive(subject);
+	}
+
+	@Override
+	public Map<String, Participation> findParticipations(Collection<String> subjectUuids, String userId) {
+		if (subjectUuids.isEmpty()) {
+			return new HashMap<>();
+		}
+
+		Map<String, Participation> participations = findEmbeddedParticipations(mongoTemplate,
+		        mongoTemplate.getCollectionName(Subject.class), subjectUuids, userId);
+		findArchivedParticipations(mongoTemplate, subjectUuids, userId).forEach(participations::putIfAbsent);
+		return participations;
+	}
+
+	/**
+	 * Participations of the user in archived subjects, whose participants and powers stay in their document. A
+	 * subject still in both collections, while it is moved, is read from the other one.
+	 */
+	static Map<String, Participation> findArchivedParticipations(MongoTemplate mongoTemplate,
+	        Collection<String> subjectUuids, String userId) {
+		return findEmbeddedParticipations(mongoTemplate, SubjectRepositoryImpl.ARCHIVE_COLLECTION, subjectUuids, userId);
+	}
+
+	private static Map<String, Participation> findEmbeddedParticipations(MongoTemplate mongoTemplate,
+	        String collectionName, Collection<String> subjectUuids, String userId) {
+		Map<String, Participation> participations = findVotedSubjects(mongoTemplate, collectionName, subjectUuids,
+		        userId);
+
+		// Only the powers given or received by the user leave the database
+		DBObject involved = new BasicDBObject("$or", Arrays.asList(
+		        new BasicDBObject("powers.collaboratorIdFrom", userId),
+		        new BasicDBObject("powers.collaboratorIdTo", userId)));
+		List<Object> ids = new ArrayList<>();
+		subjectUuids.forEach(uuid -> ids.add(ObjectId.isValid(uuid) ? new ObjectId(uuid) : uuid));
+
+		List<DBObject> pipeline = Arrays.asList(
+		        new BasicDBObject("$match", new BasicDBObject("_id", new BasicDBObject("$in", ids)).append("$and",
+		                Collections.singletonList(involved))),
+		        new BasicDBObject("$unwind", "$powers"),
+		        new BasicDBObject("$match", involved),
+		        new BasicDBObject("$project", new BasicDBObject("from", "$powers.collaboratorIdFrom")
+		                .append("to", "$powers.collaboratorIdTo")));
+
+		for (DBObject power : mongoTemplate.getCollection(collectionName).aggregate(pipeline).results()) {
+			Participation participation = participations.computeIfAbsent(String.valueOf(power.get("_id")),
+			        uuid -> new Participation());
+			if (userId.equals(power.get("from"))) {
+				participation.setGivenDelegation((String) power.get("to"));
+			} else {
+				participation.addReceivedDelegations(1);
+			}
+		}
+
+		return participations;
+	}
+
+	@Override
+	public void loadReferences(List<Subject> summaries) {
+		subjectRepository.loadReferences(summaries);
+	}
+
+	@Override
+	public List<Subject> findDelegableSubjects(String categoryUuid, String userId) {
+		Criteria criteria = openInCategory(categoryUuid)
+		        .and("votes.collaboratorId").ne(userId)
+		        .and("powers.collaboratorIdFrom").ne(userId);
+
+		return mongoTemplate.find(query(criteria), Subject.class);
+	}
+
+	@Override
+	public List<Subject> findDelegatedSubjects(String categoryUuid, String userId, String collaboratorIdTo) {
+		Criteria criteria = openInCategory(categoryUuid)
+		        .and("powers").elemMatch(where("collaboratorIdFrom").is(userId).and("collaboratorIdTo").is(collaboratorIdTo));
+
+		return mongoTemplate.find(query(criteria), Subject.class);
+	}
+
+	@Override
+	public Subject save(Subject subject) {
+		return subjectRepository.save(subject);
+	}
+
+	@Override
+	public List<Vote> saveVotes(Subject subject, List<Vote> votes) {
+		subjectRepository.save(subject);
+		return Collections.emptyList();
+	}
+
+	@Override
+	public void savePower(Subject subject, Power power) {
+		subjectRepository.save(subject);
+	}
+
+	@Override
+	public void deletePower(Subject subject, Power power) {
+		subjectRepository.save(subject);
+	}
+
+	@Override
+	public Set<String> savePowers(Map<Subject, Power> powers) {
+		return replaceAll(powers.keySet());
+	}
+
+	@Override
+	public Set<String> deletePowers(Map<Subject, Power> powers) {
+		return replaceAll(powers.keySet());
+	}
+
+	@Override
+	public void delete(Subject subject) {
+		subjectRepository.delete(subject);
+		subjectRepository.deleteArchived(subject.getUuid());
+	}
+
+	static Criteria openInCategory(String categoryUuid) {
+		return where("category.uuid").is(categoryUuid)
+		        .orOperator(where("deadLine").gt(new Date()), where("deadLine").is(null));
+	}
+
+	/**
+	 * Subjects of the collection among {@code subjectUuids} on which the user's voice is counted, read from the
+	 * participants kept with each subject.
+	 */
+	static Map<String, Participation> findVotedSubjects(MongoTemplate mongoTemplate, String collectionName,
+	        Collection<String> subjectUuids, String userId) {
+		Query query = query(where("uuid").in(subjectUuids).and("participantIds").is(userId));
+		query.fields().include("uuid");
+
+		Map<String, Participation> participations = new HashMap<>();
+		for (Subject subject : mongoTemplate.find(query, Subject.class, collectionName)) {
+			Participation participation = new Participation();
+			participation.setVoted(true);
+			participations.put(subject.getUuid(), participation);
+		}
+		return participations;
+	}
+
+	private DBCollection collection() {
+		return mongoTemplate.getCollection(mongoTemplate.getCollectionName(Subject.class));
+	}
+
+	/**
+	 * Replaces the subjects in one unordered bulk write, each one only if its version did not change since it was
+	 * loaded, like {@link SubjectRepository#save} does for a single subject.
+	 *
+	 * @return uuids of the subjects not replaced because of a concurrent modification
+	 */
+	private Set<String> replaceAll(Collection<Subject> subjects) {
+		if (subjects.isEmpty()) {
+			return Collections.emptySet();
+		}
+
+		DBCollection collection = collection();
+		BulkWriteOperation bulk = collection.initializeUnorderedBulkOperation();
+
+		Map<String, String> nextVersions = new HashMap<>();
+		List<Object> ids = new ArrayList<>();
+		for (Subject subject : subjects) {
+			String nextVersion = SubjectRepositoryImpl.nextVersion(subject.getVersion());
+
+			DBObject dbo = new BasicDBObject();
+			mongoTemplate.getConverter().write(subject, dbo);
+			dbo.put("version", nextVersion);
+
+			bulk.find(new BasicDBObject("_id", dbo.get("_id")).append("version", subject.getVersion())).replaceOne(dbo);
+			nextVersions.put(subject.getUuid(), nextVersion);
+			ids.add(dbo.get("_id"));
+		}
+
+		BulkWriteResult result = bulk.execute();
+
+		// Subjects whose version is not the one written were modified by someone else
+		Set<String> conflicts = new HashSet<>();
+		if (result.getMatchedCount() < subjects.size()) {
+			conflicts.addAll(nextVersions.keySet());
+			collection.find(new BasicDBObject("_id", new BasicDBObject("$in", ids)), new BasicDBObject("version", 1))
+			        .forEach(dbo -> {
+				        String uuid = String.valueOf(dbo.get("_id"));
+				        if (nextVersions.get(uuid).equals(dbo.get("version"))) {
+					        conflicts.remove(uuid);
+				        }
+			        });
+		}
+
+		for (Subject subject : subjects) {
+			if (!conflicts.contains(subject.getUuid())) {
+				subject.setVersion(nextVersions.get(subject.getUuid()));
+			}
+		}
+
+		return conflicts;
+	}
+}
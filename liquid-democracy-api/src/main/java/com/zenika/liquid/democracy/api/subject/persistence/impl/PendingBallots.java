@@ -0,0 +1,131 @@
+package com.zenika.liquid.democracy.api.subject.persistence.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import com.zenika.liquid.democracy.model.Power;
+import com.zenika.liquid.democracy.model.Subject;
+import com.zenika.liquid.democracy.model.Vote;
+
+/**
+ * A write of powers in the collections layout, kept in the subject document from the update which counts it in the
+ * tally until its powers and weights are written in their own collections. Intents left by earlier versions may also
+ * hold votes, which are now inserted before being counted.
+ *
+ * Writing it several times gives the same result: votes and powers are written by id and weights are absolute.
+ */
+class PendingBallots {
+
+	static final String FIELD = "pendingBallots";
+
+	private final String id;
+
+	private final List<Vote> votes = new ArrayList<>();
+
+	private final List<Power> powers = new ArrayList<>();
+
+	private final Set<String> removedPowerIds = new HashSet<>();
+
+	/**
+	 * Weight of votes already stored, by vote id.
+	 */
+	private final Map<String, Integer> weights = new HashMap<>();
+
+	PendingBallots() {
+		this(new ObjectId().toString());
+	}
+
+	private PendingBallots(String id) {
+		this.id = id;
+	}
+
+	String getId() {
+		return id;
+	}
+
+	List<Vote> getVotes() {
+		return votes;
+	}
+
+	List<Power> getPowers() {
+		return powers;
+	}
+
+	Set<String> getRemovedPowerIds() {
+		return removedPowerIds;
+	}
+
+	Map<String, Integer> getWeights() {
+		return weights;
+	}
+
+	/**
+	 * Applies the write to a subject read with the votes and powers stored in the collections, whether they already
+	 * include it or not.
+	 */
+	void applyTo(Subject subject) {
+		Set<String> voteIds = subject.getVotes().stream().map(Vote::getId).collect(Collectors.toSet());
+		votes.stream().filter(v -> !voteIds.contains(v.getId())).forEach(subject::addVote);
+		subject.getVotes().stream().filter(v -> weights.containsKey(v.getId()))
+		        .forEach(v -> v.setWeight(weights.get(v.getId())));
+
+		Set<String> powerIds = subject.getPowers().stream().map(Power::getId).collect(Collectors.toSet());
+		powers.stream().filter(p -> !powerIds.contains(p.getId())).forEach(subject::addPower);
+		new ArrayList<>(subject.getPowers()).stream().filter(p -> removedPowerIds.contains(p.getId()))
+		        .forEach(subject::removePower);
+	}
+
+	DBObject toDBObject(MongoConverter converter) {
+		BasicDBList voteList = new BasicDBList();
+		votes.forEach(v -> voteList.add(write(converter, v)));
+		BasicDBList powerList = new BasicDBList();
+		powers.forEach(p -> powerList.add(write(converter, p)));
+		BasicDBList weightList = new BasicDBList();
+		weights.forEach((voteId, weight) -> weightList.add(new BasicDBObject("_id", voteId).append("weight", weight)));
+
+		return new BasicDBObject("id", id)
+		        .append("votes", voteList)
+		        .append("powers", powerList)
+		        .append("removedPowers", new ArrayList<>(removedPowerIds))
+		        .append("weights", weightList);
+	}
+
+	static PendingBallots read(MongoConverter converter, DBObject dbo) {
+		PendingBallots pending = new PendingBallots((String) dbo.get("id"));
+		for (Object v : list(dbo.get("votes"))) {
+			pending.votes.add(converter.read(Vote.class, (DBObject) v));
+		}
+		for (Object p : list(dbo.get("powers"))) {
+			pending.powers.add(converter.read(Power.class, (DBObject) p));
+		}
+		for (Object powerId : list(dbo.get("removedPowers"))) {
+			pending.removedPowerIds.add((String) powerId);
+		}
+		for (Object w : list(dbo.get("weights"))) {
+			DBObject weight = (DBObject) w;
+			pending.weights.put((String) weight.get("_id"), ((Number) weight.get("weight")).intValue());
+		}
+		return pending;
+	}
+
+	private static DBObject write(MongoConverter converter, Object entity) {
+		DBObject dbo = new BasicDBObject();
+		converter.write(entity, dbo);
+		return dbo;
+	}
+
+	private static List<?> list(Object value) {
+		return value instanceof List ? (List<?>) value : new ArrayList<>();
+	}
+}
@@ -1,8 +1,14 @@
 package com.zenika.liquid.democracy.api.subject.service;
 
+import com.zenika.liquid.democracy.api.subject.persistence.SubjectCursor;
 import com.zenika.liquid.democracy.dto.SubjectDto;
 import com.zenika.liquid.democracy.model.Subject;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort.Direction;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -17,6 +23,20 @@ public interface SubjectService {
 
 	List<SubjectDto> getSubjects();
 
+	Page<SubjectDto> getSubjects(boolean inProgressOnly, Pageable pageable);
+
+	List<SubjectDto> getSubjects(boolean inProgressOnly, SubjectCursor cursor, Direction direction, int size);
+
+	/**
+	 * Writes the subjects as a JSON array while they are read from the database.
+	 */
+	StreamingResponseBody streamSubjects(boolean inProgressOnly);
+
 	SubjectDto getSubjectByUuid(String subjectUuid);
 
+	/**
+	 * Pushes the results of the subject each time they change.
+	 */
+	SseEmitter watchSubject(String subjectUuid);
+
 }
@@ -0,0 +1,256 @@
+package com.zenika.liquid.democracy.api.subject.service.impl;
+
+import com.zenika.liquid.democracy.api.exception.UnexistingSubjectException;
+import com.zenika.liquid.democracy.api.subject.util.ResultUtil;
+import com.zenika.liquid.democracy.cache.EntityCache;
+import com.zenika.liquid.democracy.dto.ResultEventDto;
+import com.zenika.liquid.democracy.model.Subject;
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes the results of subjects to the clients watching a subject or a channel, as server-sent events.
+ *
+ * Writers only flag the subjects they changed. Every interval, each flagged subject is read once and the
+ * propositions whose points changed since the previous event are sent to its watchers: a burst of votes gives one
+ * event per interval. Each connection buffers a few events; for a client too slow to read them, the events waiting
+ * are merged into one per subject, which only lists the latest points of the propositions changed meanwhile.
+ *
+ * As in the responses of the subjects, the points of an open subject are only sent to the users who voted on it: the
+ * others only get the counts of votes and participants, then every point at once when they vote or when it closes.
+ */
+@Component
+public class LiveResults {
+
+    private static final Logger LOG = Logger.getLogger(LiveResults.class);
+
+    private static final String EVENT_NAME = "results";
+
+    private final EntityCache entityCache;
+
+    private final LiveResultsConfig config;
+
+    private final ConcurrentMap<String, Set<Connection>> subjectWatchers = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Set<Connection>> channelWatchers = new ConcurrentHashMap<>();
+
+    private final Set<String> changedSubjects = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Last results sent for each subject, to compute the next deltas.
+     */
+    private final ConcurrentMap<String, ResultEventDto> lastResults = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    private ExecutorService senders;
+
+    @Autowired
+    public LiveResults(EntityCache entityCache, LiveResultsConfig config) {
+        this.entityCache = entityCache;
+        this.config = config;
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        senders = Executors.newFixedThreadPool(config.getSenderThreads());
+        scheduler.scheduleWithFixedDelay(this::flush, config.getIntervalMs(), config.getIntervalMs(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        senders.shutdownNow();
+        subjectWatchers.values().forEach(watchers -> watchers.forEach(c -> c.emitter.complete()));
+        channelWatchers.values().forEach(watchers -> watchers.forEach(c -> c.emitter.complete()));
+    }
+
+    /**
+     * Stream of the results of the subject seen by the user, starting with all of them.
+     */
+    public SseEmitter watchSubject(String subjectUuid, String userId) {
+        Subject subject = entityCache.findSubjectByUuid(subjectUuid)
+                .orElseThrow(UnexistingSubjectException::new);
+
+        ResultEventDto snapshot = ResultUtil.snapshot(subject);
+        lastResults.putIfAbsent(subjectUuid, snapshot);
+
+        Connection connection = watch(subjectWatchers, subjectUuid, userId);
+        connection.offer(subject, snapshot, snapshot);
+        return connection.emitter;
+    }
+
+    /**
+     * Stream of the results seen by the user of the subjects of the channel, as they change. The user must be allowed
+     * to read the channel.
+     */
+    public SseEmitter watchChannel(String channelUuid, String userId) {
+        return watch(channelWatchers, channelUuid, userId).emitter;
+    }
+
+    /**
+     * Flags the subject as changed, once saved.
+     */
+    public void subjectChanged(String subjectUuid) {
+        if (!subjectWatchers.isEmpty() || !channelWatchers.isEmpty()) {
+            changedSubjects.add(subjectUuid);
+        }
+    }
+
+    void flush() {
+        Iterator<String> changed = changedSubjects.iterator();
+        while (changed.hasNext()) {
+            String subjectUuid = changed.next();
+            changed.remove();
+            try {
+                publish(subjectUuid);
+            } catch (RuntimeException e) {
+                // The scheduler stops for good on an exception
+                LOG.warn("Results of subject " + subjectUuid + " not pushed", e);
+            }
+        }
+    }
+
+    private void publish(String subjectUuid) {
+        Optional<Subject> subject = entityCache.findSubjectByUuid(subjectUuid);
+        if (!subject.isPresent()) {
+            lastResults.remove(subjectUuid);
+            return;
+        }
+
+        ResultEventDto event = ResultUtil.diff(lastResults.get(subjectUuid), subject.get());
+        if (event == null) {
+            return;
+        }
+        ResultEventDto snapshot = ResultUtil.snapshot(subject.get());
+        lastResults.put(subjectUuid, snapshot);
+
+        subjectWatchers.getOrDefault(subjectUuid, ConcurrentHashMap.newKeySet())
+                .forEach(c -> c.offer(subject.get(), event, snapshot));
+        if (event.getChannelUuid() != null) {
+            channelWatchers.getOrDefault(event.getChannelUuid(), ConcurrentHashMap.newKeySet())
+                    .forEach(c -> c.offer(subject.get(), event, snapshot));
+        }
+    }
+
+    private Connection watch(ConcurrentMap<String, Set<Connection>> watchers, String uuid, String userId) {
+        Connection connection = new Connection(userId);
+        watchers.computeIfAbsent(uuid, k -> ConcurrentHashMap.newKeySet()).add(connection);
+
+        Runnable unwatch = () -> {
+            watchers.computeIfPresent(uuid, (k, set) -> {
+                set.remove(connection);
+                return set.isEmpty() ? null : set;
+            });
+            if (subjectWatchers.isEmpty() && channelWatchers.isEmpty()) {
+                lastResults.clear();
+            } else if (watchers == subjectWatchers && !watchers.containsKey(uuid)) {
+                lastResults.remove(uuid);
+            }
+        };
+        connection.emitter.onCompletion(unwatch);
+        connection.emitter.onTimeout(unwatch);
+        return connection;
+    }
+
+    private class Connection {
+
+        private final SseEmitter emitter = new SseEmitter(config.getTimeoutMs());
+
+        private final String userId;
+
+        /**
+         * Subjects whose points were already sent: the next events only need their changes.
+         */
+        private final Set<String> shownSubjects = ConcurrentHashMap.newKeySet();
+
+        private final BlockingQueue<ResultEventDto> buffer = new LinkedBlockingQueue<>();
+
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        private Connection(String userId) {
+            this.userId = userId;
+        }
+
+        /**
+         * Offers the event of the subject as the user may see it.
+         *
+         * @param snapshot every result of the subject, sent instead of the event when the user may see the points
+         *            for the first time
+         */
+        private void offer(Subject subject, ResultEventDto event, ResultEventDto snapshot) {
+            if (!subject.isClosed() && !subject.isVoted(userId)) {
+                offer(ResultUtil.countsOnly(event));
+            } else if (shownSubjects.add(subject.getUuid())) {
+                offer(snapshot);
+            } else {
+                offer(event);
+            }
+        }
+
+        private synchronized void offer(ResultEventDto event) {
+            if (buffer.size() < config.getBufferSize()) {
+                buffer.add(event);
+            } else {
+                // Events only list the propositions which changed: none can be dropped, they are merged by subject
+                List<ResultEventDto> waiting = new ArrayList<>();
+                buffer.drainTo(waiting);
+                waiting.add(event);
+
+                Map<String, ResultEventDto> merged = new LinkedHashMap<>();
+                waiting.forEach(e -> merged.merge(e.getSubjectUuid(), e, ResultUtil::merge));
+                buffer.addAll(merged.values());
+            }
+            if (sending.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                ResultEventDto event;
+                while ((event = buffer.poll()) != null) {
+                    emitter.send(SseEmitter.event().name(EVENT_NAME).data(event, MediaType.APPLICATION_JSON));
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client gone
+                buffer.clear();
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                sending.set(false);
+            }
+
+            // An event offered while the last one was sent
+            if (!buffer.isEmpty() && sending.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.zenika.liquid.democracy.api.subject.service.impl;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.live")
+public class LiveResultsConfig {
+
+    /**
+     * Changes of a subject within this interval are pushed as one event.
+     */
+    private long intervalMs = 1000;
+
+    /**
+     * Events waiting for a slow client, beyond which they are merged into one per subject.
+     */
+    private int bufferSize = 16;
+
+    private long timeoutMs = 30 * 60 * 1000;
+
+    private int senderThreads = 4;
+
+    public long getIntervalMs() {
+        return intervalMs;
+    }
+
+    public void setIntervalMs(long intervalMs) {
+        this.intervalMs = intervalMs;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    public void setTimeoutMs(long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+    }
+
+    public int getSenderThreads() {
+        return senderThreads;
+    }
+
+    public void setSenderThreads(int senderThreads) {
+        this.senderThreads = senderThreads;
+    }
+
+}
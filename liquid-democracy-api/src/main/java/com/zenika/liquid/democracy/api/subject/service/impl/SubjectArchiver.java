@@ -0,0 +1,101 @@
+package com.zenika.liquid.democracy.api.subject.service.impl;
+
+import com.zenika.liquid.democracy.api.subject.persistence.SubjectStore;
+import com.zenika.liquid.democracy.cache.EntityCache;
+import com.zenika.liquid.democracy.model.Subject;
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves the subjects closed for longer than {@code app.archive.ageDays} out of the subject collection, so that the
+ * queries on open subjects only read the recent ones. Only subjects finalized by {@link SubjectFinalizer} are
+ * moved: their final result is all that is needed to show them.
+ */
+@Component
+public class SubjectArchiver {
+
+    private static final Logger LOG = Logger.getLogger(SubjectArchiver.class);
+
+    private final SubjectStore subjectStore;
+
+    private final EntityCache entityCache;
+
+    private final SubjectArchiverConfig config;
+
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public SubjectArchiver(SubjectStore subjectStore, EntityCache entityCache, SubjectArchiverConfig config) {
+        this.subjectStore = subjectStore;
+        this.entityCache = entityCache;
+        this.config = config;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!config.isEnabled()) {
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        scheduler.scheduleWithFixedDelay(this::archive, config.getIntervalMs(), config.getIntervalMs(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * @return the number of subjects archived
+     */
+    int archive() {
+        Date closedBefore = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(config.getAgeDays()));
+        int archived = 0;
+        try {
+            List<Subject> batch;
+            int moved;
+            do {
+                batch = subjectStore.findArchivable(closedBefore, config.getBatchSize());
+                moved = 0;
+                for (Subject s : batch) {
+                    moved += archiveSubject(s.getUuid()) ? 1 : 0;
+                }
+                archived += moved;
+                // A batch left in place would be read again
+            } while (batch.size() == config.getBatchSize() && moved != 0 && !Thread.currentThread().isInterrupted());
+        } catch (RuntimeException e) {
+            // The next run starts again from the subjects left
+            LOG.error("Unable to archive closed subjects", e);
+        }
+
+        if (archived != 0) {
+            LOG.info("Archived " + archived + " subjects closed before " + closedBefore);
+        }
+        return archived;
+    }
+
+    private boolean archiveSubject(String subjectUuid) {
+        Subject subject = subjectStore.findSubjectByUuid(subjectUuid).orElse(null);
+        if (subject == null || subject.getFinalResult() == null) {
+            return false;
+        }
+
+        subjectStore.archive(subject, config.isKeepVotes());
+        entityCache.invalidateSubject(subjectUuid);
+        return true;
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.zenika.liquid.democracy.api.subject.service.impl;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.archive")
+public class SubjectArchiverConfig {
+
+    private boolean enabled = true;
+
+    /**
+     * Subjects closed for longer than this are moved to the archive.
+     */
+    private int ageDays = 90;
+
+    /**
+     * Archived subjects keep only their final result, participants and powers, not their votes, unless set.
+     */
+    private boolean keepVotes = false;
+
+    private long intervalMs = 60 * 60 * 1000;
+
+    /**
+     * Subjects read at once to be archived.
+     */
+    private int batchSize = 100;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getAgeDays() {
+        return ageDays;
+    }
+
+    public void setAgeDays(int ageDays) {
+        this.ageDays = ageDays;
+    }
+
+    public boolean isKeepVotes() {
+        return keepVotes;
+    }
+
+    public void setKeepVotes(boolean keepVotes) {
+        this.keepVotes = keepVotes;
+    }
+
+    public long getIntervalMs() {
+        return intervalMs;
+    }
+
+    public void setIntervalMs(long intervalMs) {
+        this.intervalMs = intervalMs;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+}
@@ -0,0 +1,131 @@
+package com.zenika.liquid.democracy.api.subject.service.impl;
+
+import com.zenika.liquid.democracy.api.subject.persistence.SubjectStore;
+import com.zenika.liquid.democracy.api.vote.util.TallyUtil;
+import com.zenika.liquid.democracy.cache.EntityCache;
+import com.zenika.liquid.democracy.model.Subject;
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closes subjects at their deadline: the tally is computed once more from the votes and frozen in the subject as
+ * its final result, which is then served without reading the votes.
+ *
+ * Every window, the subjects closing before the end of the next window are read from the "closing" index and each
+ * one is scheduled for its deadline. Subjects whose deadline passed while the application was stopped are closed
+ * by the first scan. Closing is conditional: with several instances, only one of them writes the result, and only
+ * over the version of the subject it was computed from. A ballot written meanwhile makes the close fail, and the
+ * result is computed again with it.
+ */
+@Component
+public class SubjectFinalizer {
+
+    private static final Logger LOG = Logger.getLogger(SubjectFinalizer.class);
+
+    /**
+     * Attempts to close a subject whose ballots are still being written.
+     */
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final SubjectStore subjectStore;
+
+    private final EntityCache entityCache;
+
+    private final LiveResults liveResults;
+
+    private final SubjectFinalizerConfig config;
+
+    /**
+     * Subjects already scheduled, not to schedule them again at the next scan.
+     */
+    private final Set<String> scheduled = ConcurrentHashMap.newKeySet();
+
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public SubjectFinalizer(SubjectStore subjectStore, EntityCache entityCache, LiveResults liveResults,
+            SubjectFinalizerConfig config) {
+        this.subjectStore = subjectStore;
+        this.entityCache = entityCache;
+        this.liveResults = liveResults;
+        this.config = config;
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        scheduler.scheduleWithFixedDelay(this::scan, 0, config.getWindowMs(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    void scan() {
+        try {
+            long now = System.currentTimeMillis();
+            for (Subject s : subjectStore.findClosingBefore(new Date(now + config.getWindowMs()))) {
+                if (scheduled.add(s.getUuid())) {
+                    long delay = Math.max(0, s.getDeadLine().getTime() - now);
+                    scheduler.schedule(() -> {
+                        scheduled.remove(s.getUuid());
+                        finalizeSubject(s.getUuid());
+                    }, delay, TimeUnit.MILLISECONDS);
+                }
+            }
+        } catch (RuntimeException e) {
+            // The next scan tries again: the subjects are still not closed
+            LOG.error("Unable to read the subjects closing soon", e);
+        }
+    }
+
+    /**
+     * Closes the subject with its final result, if its deadline has passed.
+     *
+     * @return false when the subject is still open, was already closed or no longer exists
+     */
+    boolean finalizeSubject(String subjectUuid) {
+        try {
+            for (int attempt = 1;; attempt++) {
+                try {
+                    return closeOnce(subjectUuid);
+                } catch (OptimisticLockingFailureException e) {
+                    if (attempt == MAX_ATTEMPTS) {
+                        throw e;
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            LOG.error("Unable to close subject " + subjectUuid, e);
+            return false;
+        }
+    }
+
+    private boolean closeOnce(String subjectUuid) {
+        Subject subject = subjectStore.findSubjectByUuid(subjectUuid).orElse(null);
+        if (subject == null || subject.getFinalResult() != null || !subject.isClosed()) {
+            return false;
+        }
+
+        if (!subjectStore.close(subject, TallyUtil.finalResult(subject, new Date()))) {
+            return false;
+        }
+
+        entityCache.invalidateSubject(subjectUuid);
+        liveResults.subjectChanged(subjectUuid);
+        return true;
+    }
+
+}
@@ -0,0 +1,23 @@
+package com.zenika.liquid.democracy.api.subject.service.impl;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.finalization")
+public class SubjectFinalizerConfig {
+
+    /**
+     * Subjects closing within this window are scheduled at once, each for its own deadline.
+     */
+    private long windowMs = 5 * 60 * 1000;
+
+    public long getWindowMs() {
+        return windowMs;
+    }
+
+    public void setWindowMs(long windowMs) {
+        this.windowMs = windowMs;
+    }
+
+}
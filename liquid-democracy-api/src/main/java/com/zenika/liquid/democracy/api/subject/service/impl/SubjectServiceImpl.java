@@ -1,15 +1,18 @@
 package com.zenika.liquid.democracy.api.subject.service.impl;
 
-import com.zenika.liquid.democracy.api.category.persistence.CategoryRepository;
-import com.zenika.liquid.democracy.api.channel.persistence.ChannelRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.zenika.liquid.democracy.api.exception.UndeletableSubjectException;
 import com.zenika.liquid.democracy.api.exception.UnexistingSubjectException;
 import com.zenika.liquid.democracy.api.power.util.PowerUtil;
 import com.zenika.liquid.democracy.api.subject.exception.MalformedSubjectException;
-import com.zenika.liquid.democracy.api.subject.persistence.SubjectRepository;
+import com.zenika.liquid.democracy.api.subject.persistence.Participation;
+import com.zenika.liquid.democracy.api.subject.persistence.SubjectCursor;
+import com.zenika.liquid.democracy.api.subject.persistence.SubjectStore;
 import com.zenika.liquid.democracy.api.subject.service.SubjectService;
 import com.zenika.liquid.democracy.authentication.service.CollaboratorService;
-import com.zenika.liquid.democracy.config.MapperConfig;
+import com.zenika.liquid.democracy.cache.EntityCache;
+import com.zenika.liquid.democracy.dto.DtoMapper;
 import com.zenika.liquid.democracy.dto.PropositionDto;
 import com.zenika.liquid.democracy.dto.SubjectDto;
 import com.zenika.liquid.democracy.model.Category;
@@ -17,51 +20,66 @@ import com.zenika.liquid.democracy.model.Channel;
 import com.zenika.liquid.democracy.model.Power;
 import com.zenika.liquid.democracy.model.Subject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.util.CloseableIterator;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 public class SubjectServiceImpl implements SubjectService {
 
-    private final SubjectRepository subjectRepository;
+    /**
+     * Subjects whose flags are read together while streaming.
+     */
+    private static final int STREAM_CHUNK_SIZE = 100;
 
-    private final CategoryRepository categoryRepository;
+    private final SubjectStore subjectStore;
 
-    private final ChannelRepository channelRepository;
+    private final EntityCache entityCache;
 
     private final CollaboratorService collaboratorService;
 
-    private final MapperConfig mapper;
+    private final ObjectMapper objectMapper;
+
+    private final LiveResults liveResults;
 
     @Autowired
     public SubjectServiceImpl(
-            SubjectRepository subjectRepository,
-            CategoryRepository categoryRepository,
-            ChannelRepository channelRepository,
+            SubjectStore subjectStore,
+            EntityCache entityCache,
             CollaboratorService collaboratorService,
-            MapperConfig mapper
+            ObjectMapper objectMapper,
+            LiveResults liveResults
     ) {
-        this.subjectRepository = subjectRepository;
-        this.categoryRepository = categoryRepository;
-        this.channelRepository = channelRepository;
+        this.subjectStore = subjectStore;
+        this.entityCache = entityCache;
         this.collaboratorService = collaboratorService;
-        this.mapper = mapper;
+        this.objectMapper = objectMapper;
+        this.liveResults = liveResults;
     }
 
     public SubjectDto addSubject(Subject subject) {
         String userId = collaboratorService.currentUser().getEmail();
 
         if (subject.getCategory() != null) {
-            Category category = categoryRepository.findCategoryByUuid(subject.getCategory().getUuid())
+            Category category = entityCache.findCategoryByUuid(subject.getCategory().getUuid())
                     .orElseThrow(MalformedSubjectException::new);
             subject.setCategory(category);
         }
 
         if (subject.getChannel() != null) {
-            Channel channel = channelRepository.findChannelByUuid(subject.getChannel().getUuid())
+            Channel channel = entityCache.findChannelByUuid(subject.getChannel().getUuid())
                     .orElseThrow(MalformedSubjectException::new);
             subject.setChannel(channel);
         }
@@ -73,7 +91,7 @@ public class SubjectServiceImpl implements SubjectService {
         subject.setSubmitDate(new Date());
         subject.setCollaboratorId(userId);
 
-        subject = subjectRepository.save(subject);
+        subject = subjectStore.save(subject);
 
         if (subject.getCategory() != null) {
             for (Power power : subject.getCategory().getPowers()) {
@@ -85,11 +103,11 @@ public class SubjectServiceImpl implements SubjectService {
             }
         }
 
-        return prepareSubjectForResponse(subjectRepository.save(subject), userId);
+        return prepareSubjectForResponse(subjectStore.save(subject), userId);
     }
 
     public void deleteSubject(String subjectUuid) {
-        Subject subject = subjectRepository.findSubjectByUuid(subjectUuid)
+        Subject subject = subjectStore.findSubjectByUuid(subjectUuid)
                 .orElseThrow(UnexistingSubjectException::new);
 
         String userId = collaboratorService.currentUser().getEmail();
@@ -98,30 +116,63 @@ public class SubjectServiceImpl implements SubjectService {
             throw new UndeletableSubjectException();
         }
 
-        subjectRepository.delete(subject);
+        subjectStore.delete(subject);
+        entityCache.invalidateSubject(subjectUuid);
     }
 
     public List<SubjectDto> getSubjectsInProgress() {
         String userId = collaboratorService.currentUser().getEmail();
-        return subjectRepository
-                .findByDeadLineGreaterThanOrDeadLineIsNull(new Date())
-                .stream()
-                .map(s -> prepareSubjectForResponse(s, userId))
-                .collect(Collectors.toList());
+        return prepareSummariesForResponse(subjectStore.findSummariesInProgress(new Date()), userId);
     }
 
     @Override
     public List<SubjectDto> getSubjects() {
         String userId = collaboratorService.currentUser().getEmail();
-        return subjectRepository
-                .findAll()
-                .stream()
-                .map(s -> prepareSubjectForResponse(s, userId))
-                .collect(Collectors.toList());
+        return prepareSummariesForResponse(subjectStore.findSummaries(), userId);
+    }
+
+    @Override
+    public Page<SubjectDto> getSubjects(boolean inProgressOnly, Pageable pageable) {
+        String userId = collaboratorService.currentUser().getEmail();
+        Page<Subject> page = subjectStore.findSummaries(inProgressOnly, pageable);
+        return new PageImpl<>(prepareSummariesForResponse(page.getContent(), userId), pageable, page.getTotalElements());
+    }
+
+    @Override
+    public List<SubjectDto> getSubjects(boolean inProgressOnly, SubjectCursor cursor, Direction direction, int size) {
+        String userId = collaboratorService.currentUser().getEmail();
+        return prepareSummariesForResponse(subjectStore.findSummaries(cursor, direction, inProgressOnly, size), userId);
+    }
+
+    @Override
+    public StreamingResponseBody streamSubjects(boolean inProgressOnly) {
+        // The body is written on another thread, without the security context
+        String userId = collaboratorService.currentUser().getEmail();
+
+        return out -> {
+            try (CloseableIterator<Subject> subjects = subjectStore.streamSummaries(inProgressOnly)) {
+                JsonGenerator json = objectMapper.getFactory().createGenerator(out);
+                json.writeStartArray();
+                List<Subject> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+                DtoMapper mapper = new DtoMapper();
+                while (subjects.hasNext()) {
+                    chunk.add(subjects.next());
+                    if (chunk.size() == STREAM_CHUNK_SIZE || !subjects.hasNext()) {
+                        for (SubjectDto dto : prepareSummariesForResponse(chunk, userId, mapper)) {
+                            json.writeObject(dto);
+                        }
+                        json.flush();
+                        chunk.clear();
+                    }
+                }
+                json.writeEndArray();
+                json.flush();
+            }
+        };
     }
 
     public SubjectDto getSubjectByUuid(String subjectUuid) {
-        Subject subject = subjectRepository.findSubjectByUuid(subjectUuid)
+        Subject subject = entityCache.findSubjectByUuid(subjectUuid)
                 .orElseThrow(UnexistingSubjectException::new);
 
         String userId = collaboratorService.currentUser().getEmail();
@@ -129,14 +180,50 @@ public class SubjectServiceImpl implements SubjectService {
         return prepareSubjectForResponse(subject, userId);
     }
 
+    @Override
+    public SseEmitter watchSubject(String subjectUuid) {
+        return liveResults.watchSubject(subjectUuid, collaboratorService.currentUser().getEmail());
+    }
+
+    /**
+     * Summaries come without votes nor powers: the user's flags are read for all of them at once, as are their
+     * categories and channels.
+     */
+    private List<SubjectDto> prepareSummariesForResponse(List<Subject> subjects, String userId) {
+        return prepareSummariesForResponse(subjects, userId, new DtoMapper());
+    }
+
+    private List<SubjectDto> prepareSummariesForResponse(List<Subject> subjects, String userId, DtoMapper mapper) {
+        List<String> uuids = subjects.stream().map(Subject::getUuid).collect(Collectors.toList());
+        Map<String, Participation> participations = subjectStore.findParticipations(uuids, userId);
+        subjectStore.loadReferences(subjects);
+
+        return subjects
+                .stream()
+                .map(s -> prepareSubjectForResponse(s, participations.getOrDefault(s.getUuid(), new Participation()),
+                        s.getParticipantCount(), userId, mapper))
+                .collect(Collectors.toList());
+    }
+
     private SubjectDto prepareSubjectForResponse(Subject s, String userId) {
-        SubjectDto sdto = mapper.map(s, SubjectDto.class);
+        if (s.getFinalResult() != null) {
+            // Closed subjects are read without their votes: the user's flags come from the database
+            Participation participation = subjectStore.findParticipations(Collections.singletonList(s.getUuid()), userId)
+                    .getOrDefault(s.getUuid(), new Participation());
+            return prepareSubjectForResponse(s, participation, s.getVoteCount(), userId, new DtoMapper());
+        }
+        return prepareSubjectForResponse(s, new Participation(s, userId), s.getVoteCount(), userId, new DtoMapper());
+    }
+
+    private SubjectDto prepareSubjectForResponse(Subject s, Participation participation, int voteCount, String userId,
+                                                 DtoMapper mapper) {
+        SubjectDto sdto = mapper.toDto(s);
         sdto.setIsClosed(s.isClosed());
         sdto.setIsMine(s.isMine(userId));
-        sdto.setIsVoted(s.isVoted(userId));
-        sdto.setGivenDelegation(s.getGivenDelegation(userId));
-        sdto.setReceivedDelegations(s.getReceivedDelegations(userId));
-        sdto.setVoteCount(s.getVoteCount());
+        sdto.setIsVoted(participation.isVoted());
+        sdto.setGivenDelegation(participation.getGivenDelegation());
+        sdto.setReceivedDelegations(participation.getReceivedDelegations());
+        sdto.setVoteCount(voteCount);
         List<PropositionDto> propositions = sdto.getPropositions();
         if (!sdto.getIsVoted() && !sdto.getIsClosed()) {
             sdto.setPropositions(propositions.stream().map(p -> {
@@ -0,0 +1,109 @@
+package com.zenika.liquid.democracy.api.subject.util;
+
+import com.zenika.liquid.democracy.dto.PropositionResultDto;
+import com.zenika.liquid.democracy.dto.ResultEventDto;
+import com.zenika.liquid.democracy.model.Proposition;
+import com.zenika.liquid.democracy.model.Subject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ResultUtil {
+
+    /**
+     * Every proposition of the subject with its points.
+     */
+    public static ResultEventDto snapshot(Subject s) {
+        return diff(null, s);
+    }
+
+    /**
+     * Propositions whose points changed since {@code previous}, a snapshot of the same subject, or all of them when
+     * there is no previous snapshot.
+     *
+     * @return null when neither the points nor the counts changed
+     */
+    public static ResultEventDto diff(ResultEventDto previous, Subject s) {
+        Map<String, Integer> previousPoints = new HashMap<>();
+        if (previous != null) {
+            previous.getPropositions().forEach(p -> previousPoints.put(p.getId(), p.getPoints()));
+        }
+
+        List<PropositionResultDto> propositions = new ArrayList<>();
+        for (Proposition p : s.getPropositions()) {
+            int delta = previous == null ? 0 : p.getPoints() - previousPoints.getOrDefault(p.getId(), 0);
+            if (previous == null || delta != 0) {
+                PropositionResultDto result = new PropositionResultDto();
+                result.setId(p.getId());
+                result.setPoints(p.getPoints());
+                result.setDelta(delta);
+                propositions.add(result);
+            }
+        }
+
+        if (previous != null && propositions.isEmpty() && previous.getVoteCount() == s.getVoteCount()
+                && previous.getParticipantCount() == s.getParticipantCount()) {
+            return null;
+        }
+
+        ResultEventDto event = new ResultEventDto();
+        event.setSubjectUuid(s.getUuid());
+        event.setChannelUuid(s.getChannel() == null ? null : s.getChannel().getUuid());
+        event.setSnapshot(previous == null);
+        event.setVoteCount(s.getVoteCount());
+        event.setParticipantCount(s.getParticipantCount());
+        event.setPropositions(propositions);
+        return event;
+    }
+
+    /**
+     * The event without the points of the propositions, for a user who may only see the counts.
+     */
+    public static ResultEventDto countsOnly(ResultEventDto event) {
+        ResultEventDto counts = new ResultEventDto();
+        counts.setSubjectUuid(event.getSubjectUuid());
+        counts.setChannelUuid(event.getChannelUuid());
+        counts.setSnapshot(false);
+        counts.setVoteCount(event.getVoteCount());
+        counts.setParticipantCount(event.getParticipantCount());
+        counts.setPropositions(new ArrayList<>());
+        return counts;
+    }
+
+    /**
+     * A single event of the subject giving the same results as {@code older} followed by {@code newer}: the
+     * propositions of both, with the latest points and the deltas added up. Neither event is modified.
+     */
+    public static ResultEventDto merge(ResultEventDto older, ResultEventDto newer) {
+        Map<String, PropositionResultDto> propositions = new LinkedHashMap<>();
+        for (PropositionResultDto p : older.getPropositions()) {
+            propositions.put(p.getId(), copy(p, p.getPoints(), p.getDelta()));
+        }
+        for (PropositionResultDto p : newer.getPropositions()) {
+            PropositionResultDto previous = propositions.get(p.getId());
+            int delta = older.isSnapshot() ? 0 : p.getDelta() + (previous == null ? 0 : previous.getDelta());
+            propositions.put(p.getId(), copy(p, p.getPoints(), delta));
+        }
+
+        ResultEventDto event = new ResultEventDto();
+        event.setSubjectUuid(newer.getSubjectUuid());
+        event.setChannelUuid(newer.getChannelUuid());
+        event.setSnapshot(older.isSnapshot() || newer.isSnapshot());
+        event.setVoteCount(newer.getVoteCount());
+        event.setParticipantCount(newer.getParticipantCount());
+        event.setPropositions(new ArrayList<>(propositions.values()));
+        return event;
+    }
+
+    private static PropositionResultDto copy(PropositionResultDto p, int points, int delta) {
+        PropositionResultDto result = new PropositionResultDto();
+        result.setId(p.getId());
+        result.setPoints(points);
+        result.setDelta(delta);
+        return result;
+    }
+
+}
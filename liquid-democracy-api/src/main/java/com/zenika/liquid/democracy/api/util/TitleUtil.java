@@ -0,0 +1,33 @@
+package com.zenika.liquid.democracy.api.util;
+
+import java.util.regex.Pattern;
+
+import org.springframework.dao.DuplicateKeyException;
+
+/**
+ * Titles of categories and channels, unique once normalized.
+ */
+public class TitleUtil {
+
+	/**
+	 * Default name of the unique index on the normalizedTitle field of Category and Channel, as it appears in the
+	 * E11000 message of the server: {@code index: db.category.$normalizedTitle} before MongoDB 3.2,
+	 * {@code index: normalizedTitle} since.
+	 */
+	private static final Pattern NORMALIZED_TITLE_INDEX = Pattern.compile("index: (\\S+\\$)?normalizedTitle ");
+
+	/**
+	 * Two titles equal once normalized are the same category, or the same channel.
+	 */
+	public static String normalizeTitle(String title) {
+		return title.toLowerCase().trim();
+	}
+
+	/**
+	 * Whether the write was refused by the unique index on the normalized title, and not by another unique index.
+	 */
+	public static boolean isDuplicateTitle(DuplicateKeyException e) {
+		return e.getMessage() != null && NORMALIZED_TITLE_INDEX.matcher(e.getMessage()).find();
+	}
+
+}
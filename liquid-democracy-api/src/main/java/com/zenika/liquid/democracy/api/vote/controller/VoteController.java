@@ -2,11 +2,15 @@ package com.zenika.liquid.democracy.api.vote.controller;
 
 import com.zenika.liquid.democracy.api.exception.CloseSubjectException;
 import com.zenika.liquid.democracy.api.power.exception.UserAlreadyGavePowerException;
+import com.zenika.liquid.democracy.api.vote.exception.TooManyBallotsException;
 import com.zenika.liquid.democracy.api.vote.exception.TooManyPointsException;
+import com.zenika.liquid.democracy.api.vote.exception.UnauthorizedBallotImportException;
 import com.zenika.liquid.democracy.api.vote.exception.UserAlreadyVoteException;
 import com.zenika.liquid.democracy.api.vote.exception.VoteForNonExistingSubjectException;
 import com.zenika.liquid.democracy.api.vote.exception.VotePropositionIncorrectException;
+import com.zenika.liquid.democracy.api.vote.exception.VoteWriteTimeoutException;
 import com.zenika.liquid.democracy.api.vote.service.VoteService;
+import com.zenika.liquid.democracy.dto.BallotResultDto;
 import com.zenika.liquid.democracy.model.Vote;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -14,6 +18,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/votes")
 public class VoteController {
@@ -31,6 +39,12 @@ public class VoteController {
 		return ResponseEntity.ok().build();
 	}
 
+	@RequestMapping(method = RequestMethod.POST, value = "/{subjectUuid}/import", consumes = "application/x-ndjson")
+	public ResponseEntity<List<BallotResultDto>> importBallots(@PathVariable String subjectUuid, InputStream ballots)
+	        throws IOException {
+		return ResponseEntity.ok(voteService.importBallots(subjectUuid, ballots));
+	}
+
 	@ResponseStatus(value = HttpStatus.BAD_REQUEST, reason = "Le sujet est terminé")
 	@ExceptionHandler(CloseSubjectException.class)
 	public void voteForClosedSubjectHandler() {
@@ -61,4 +75,19 @@ public class VoteController {
 	public void userAlreadyGavePowerHandler() {
 	}
 
+	@ResponseStatus(value = HttpStatus.FORBIDDEN, reason = "Seul l'auteur du sujet peut importer des bulletins")
+	@ExceptionHandler(UnauthorizedBallotImportException.class)
+	public void unauthorizedBallotImportHandler() {
+	}
+
+	@ResponseStatus(value = HttpStatus.BAD_REQUEST, reason = "Trop de bulletins à importer")
+	@ExceptionHandler(TooManyBallotsException.class)
+	public void tooManyBallotsHandler() {
+	}
+
+	@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE, reason = "L'enregistrement du vote prend trop de temps")
+	@ExceptionHandler(VoteWriteTimeoutException.class)
+	public void voteWriteTimeoutHandler() {
+	}
+
 }
@@ -0,0 +1,7 @@
+package com.zenika.liquid.democracy.api.vote.exception;
+
+public class TooManyBallotsException extends RuntimeException {
+
+	private static final long serialVersionUID = 4187066356914263512L;
+
+}
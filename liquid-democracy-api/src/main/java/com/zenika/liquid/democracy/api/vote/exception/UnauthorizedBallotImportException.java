@@ -0,0 +1,7 @@
+package com.zenika.liquid.democracy.api.vote.exception;
+
+public class UnauthorizedBallotImportException extends RuntimeException {
+
+	private static final long serialVersionUID = -2519468790617043385L;
+
+}
@@ -0,0 +1,7 @@
+package com.zenika.liquid.democracy.api.vote.exception;
+
+public class VoteWriteTimeoutException extends RuntimeException {
+
+	private static final long serialVersionUID = 6291354097512806437L;
+
+}
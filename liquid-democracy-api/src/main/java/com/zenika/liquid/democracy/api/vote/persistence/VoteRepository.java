@@ -0,0 +1,19 @@
+package com.zenika.liquid.democracy.api.vote.persistence;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import com.zenika.liquid.democracy.model.Vote;
+
+public interface VoteRepository extends MongoRepository<Vote, Long> {
+
+	List<Vote> findBySubjectUuid(String subjectUuid);
+
+	List<Vote> findBySubjectUuidIn(Collection<String> subjectUuids);
+
+	List<Vote> findBySubjectUuidInAndCollaboratorId(Collection<String> subjectUuids, String collaboratorId);
+
+	Long deleteBySubjectUuid(String subjectUuid);
+}
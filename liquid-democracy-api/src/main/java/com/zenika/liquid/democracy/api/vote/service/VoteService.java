@@ -1,11 +1,24 @@
 package com.zenika.liquid.democracy.api.vote.service;
 
+import com.zenika.liquid.democracy.dto.BallotResultDto;
 import com.zenika.liquid.democracy.model.Vote;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
 @Service
 public interface VoteService {
 
 	void voteForSubject(String subjectUuid, Vote vote);
 
+	/**
+	 * Records ballots collected outside of the application, one JSON vote with its {@code collaboratorId} per line.
+	 * Only the author of the subject may import them.
+	 *
+	 * @return the outcome of each ballot, in the order of the lines
+	 */
+	List<BallotResultDto> importBallots(String subjectUuid, InputStream ballots) throws IOException;
+
 }
\ No newline at end of file
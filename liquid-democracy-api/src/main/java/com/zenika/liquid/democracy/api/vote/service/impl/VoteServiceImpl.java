@@ -1,48 +1,189 @@
 package com.zenika.liquid.democracy.api.vote.service.impl;
 
-import com.zenika.liquid.democracy.api.subject.persistence.SubjectRepository;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zenika.liquid.democracy.api.subject.service.impl.LiveResults;
+import com.zenika.liquid.democracy.api.vote.exception.TooManyBallotsException;
+import com.zenika.liquid.democracy.api.vote.exception.UnauthorizedBallotImportException;
 import com.zenika.liquid.democracy.api.vote.exception.VoteForNonExistingSubjectException;
 import com.zenika.liquid.democracy.api.vote.service.VoteService;
-import com.zenika.liquid.democracy.api.vote.util.VoteUtil;
+import com.zenika.liquid.democracy.authentication.persistence.CollaboratorRepository;
 import com.zenika.liquid.democracy.authentication.service.CollaboratorService;
+import com.zenika.liquid.democracy.cache.EntityCache;
+import com.zenika.liquid.democracy.dto.BallotResultDto;
 import com.zenika.liquid.democracy.model.Subject;
 import com.zenika.liquid.democracy.model.Vote;
+import com.zenika.si.core.zenika.model.Collaborator;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.dao.OptimisticLockingFailureException;
-import org.springframework.retry.annotation.EnableRetry;
-import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 @Service
-@EnableRetry
-@Retryable(OptimisticLockingFailureException.class)
 public class VoteServiceImpl implements VoteService {
 
-    private final SubjectRepository subjectRepository;
+    /**
+     * Ballots read at most from one import.
+     */
+    static final int MAX_IMPORTED_BALLOTS = 10000;
+
+    static final String MALFORMED_BALLOT = "MalformedBallot";
+
+    static final String UNKNOWN_COLLABORATOR = "UnknownCollaborator";
+
+    private final VoteWriteQueue voteWriteQueue;
+
+    private final EntityCache entityCache;
+
+    private final LiveResults liveResults;
 
     private final CollaboratorService collaboratorService;
 
+    private final CollaboratorRepository collaboratorRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final Timer voteTimer;
+
     @Autowired
     public VoteServiceImpl(
-            SubjectRepository subjectRepository,
-            CollaboratorService collaboratorService
-
+            VoteWriteQueue voteWriteQueue,
+            EntityCache entityCache,
+            LiveResults liveResults,
+            CollaboratorService collaboratorService,
+            CollaboratorRepository collaboratorRepository,
+            ObjectMapper objectMapper,
+            MetricRegistry metricRegistry
     ) {
-        this.subjectRepository = subjectRepository;
+        this.voteWriteQueue = voteWriteQueue;
+        this.entityCache = entityCache;
+        this.liveResults = liveResults;
         this.collaboratorService = collaboratorService;
+        this.collaboratorRepository = collaboratorRepository;
+        this.objectMapper = objectMapper;
+        this.voteTimer = metricRegistry.timer("votes.put.latency");
     }
 
     @Override
     public void voteForSubject(String subjectUuid, Vote vote) {
+        // The vote may be written by another request thread: the user is resolved here
         String userId = collaboratorService.currentUser().getEmail();
 
-        Subject subject = subjectRepository.findSubjectByUuid(subjectUuid)
+        try (Timer.Context ignored = voteTimer.time()) {
+            voteWriteQueue.submit(subjectUuid, userId, vote);
+        } finally {
+            entityCache.invalidateSubject(subjectUuid);
+        }
+        liveResults.subjectChanged(subjectUuid);
+    }
+
+    @Override
+    public List<BallotResultDto> importBallots(String subjectUuid, InputStream ballots) throws IOException {
+        String userId = collaboratorService.currentUser().getEmail();
+        Subject subject = entityCache.findSubjectByUuid(subjectUuid)
                 .orElseThrow(VoteForNonExistingSubjectException::new);
+        if (!subject.isMine(userId)) {
+            throw new UnauthorizedBallotImportException();
+        }
+
+        List<BallotResultDto> report = new ArrayList<>();
+        List<BallotResultDto> read = new ArrayList<>();
+        List<Vote> ballotsRead = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(ballots, StandardCharsets.UTF_8));
+        String line;
+        int number = 0;
+        while ((line = reader.readLine()) != null) {
+            number++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            if (report.size() == MAX_IMPORTED_BALLOTS) {
+                throw new TooManyBallotsException();
+            }
+
+            BallotResultDto result = new BallotResultDto();
+            result.setLine(number);
+            report.add(result);
+
+            Vote vote = readBallot(line);
+            if (vote == null) {
+                result.setError(MALFORMED_BALLOT);
+                continue;
+            }
+            result.setCollaboratorId(vote.getCollaboratorId());
+            read.add(result);
+            ballotsRead.add(vote);
+        }
+
+        // Voters are looked up all at once
+        Set<String> voterIds = ballotsRead.stream().map(Vote::getCollaboratorId).collect(Collectors.toSet());
+        Set<String> known = voterIds.isEmpty() ? new HashSet<>()
+                : collaboratorRepository.findByEmailIn(voterIds).stream().map(Collaborator::getEmail)
+                        .collect(Collectors.toSet());
+
+        List<BallotResultDto> queued = new ArrayList<>();
+        List<Vote> votes = new ArrayList<>();
+        for (int i = 0; i < read.size(); i++) {
+            if (known.contains(ballotsRead.get(i).getCollaboratorId())) {
+                queued.add(read.get(i));
+                votes.add(ballotsRead.get(i));
+            } else {
+                read.get(i).setError(UNKNOWN_COLLABORATOR);
+            }
+        }
+
+        if (votes.isEmpty()) {
+            return report;
+        }
+
+        // Checked and saved in one batch: the subject and its delegations are read once for all the ballots
+        List<RuntimeException> refusals;
+        try (Timer.Context ignored = voteTimer.time()) {
+            refusals = voteWriteQueue.submitAll(subjectUuid, votes);
+        } finally {
+            entityCache.invalidateSubject(subjectUuid);
+        }
+        liveResults.subjectChanged(subjectUuid);
+
+        for (int i = 0; i < queued.size(); i++) {
+            RuntimeException refusal = refusals.get(i);
+            queued.get(i).setAccepted(refusal == null);
+            queued.get(i).setError(refusal == null ? null : refusal.getClass().getSimpleName());
+        }
+        return report;
+    }
 
-        VoteUtil.checkVotes(vote, subject, userId);
-        VoteUtil.prepareVotes(vote, subject, userId);
+    /**
+     * Only the voter and the choices of a ballot are kept.
+     *
+     * @return null when the line is not a ballot
+     */
+    private Vote readBallot(String line) {
+        Vote ballot;
+        try {
+            ballot = objectMapper.readValue(line, Vote.class);
+        } catch (IOException e) {
+            return null;
+        }
+        if (ballot == null || ballot.getCollaboratorId() == null || ballot.getCollaboratorId().trim().isEmpty()
+                || ballot.getChoices() == null || ballot.getChoices().contains(null)) {
+            return null;
+        }
 
-        subjectRepository.save(subject);
+        Vote vote = new Vote();
+        vote.setCollaboratorId(ballot.getCollaboratorId().trim());
+        vote.setChoices(ballot.getChoices());
+        return vote;
     }
 
 }
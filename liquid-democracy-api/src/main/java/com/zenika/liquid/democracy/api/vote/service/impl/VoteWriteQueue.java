@@ -0,0 +1,271 @@
+package com.zenika.liquid.democracy.api.vote.service.impl;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.zenika.liquid.democracy.api.subject.persistence.SubjectStore;
+import com.zenika.liquid.democracy.api.vote.exception.UserAlreadyVoteException;
+import com.zenika.liquid.democracy.api.vote.exception.VoteForNonExistingSubjectException;
+import com.zenika.liquid.democracy.api.vote.exception.VoteWriteTimeoutException;
+import com.zenika.liquid.democracy.api.vote.util.VoteUtil;
+import com.zenika.liquid.democracy.model.Subject;
+import com.zenika.liquid.democracy.model.Vote;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Single writer per subject for incoming votes.
+ *
+ * Votes are queued per subject and written by a small pool of writer threads, never more than one at a time on a
+ * subject: a writer loads the subject once, checks and counts every queued vote, and saves them in one write. Request
+ * threads only wait for the outcome of their own votes, so none of them ends up writing the votes of others for as
+ * long as they keep coming. Under a burst of votes the subject is saved once per batch instead of once per vote, and
+ * writers no longer race each other on the subject version.
+ *
+ * A queue is only added to, created and removed through {@link ConcurrentMap#compute}, so a vote is never queued in a
+ * queue no longer held by the map, whose subject would then have two writers.
+ */
+@Component
+public class VoteWriteQueue {
+
+    /**
+     * Attempts of a batch when the subject is modified elsewhere (a delegation, another instance).
+     */
+    private static final int MAX_ATTEMPTS = 5;
+
+    /**
+     * Writer threads, shared by all subjects: each one writes a single batch before moving on.
+     */
+    private static final int WRITER_THREADS = 4;
+
+    /**
+     * Time a request waits for its votes to be written before it fails: a vote may still be written afterwards.
+     */
+    private static final long OUTCOME_TIMEOUT_MS = 30_000;
+
+    private final SubjectStore subjectStore;
+
+    private final Counter savesAvoided;
+
+    private final Counter lockRetries;
+
+    private final Histogram batchSize;
+
+    private final ConcurrentMap<String, SubjectQueue> queues = new ConcurrentHashMap<>();
+
+    private ExecutorService writers;
+
+    @Autowired
+    public VoteWriteQueue(SubjectStore subjectStore, MetricRegistry metricRegistry) {
+        this.subjectStore = subjectStore;
+        this.savesAvoided = metricRegistry.counter("votes.saves.avoided");
+        this.lockRetries = metricRegistry.counter("votes.lock.retries");
+        this.batchSize = metricRegistry.histogram("votes.batch.size");
+    }
+
+    @PostConstruct
+    public void start() {
+        writers = Executors.newFixedThreadPool(WRITER_THREADS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        writers.shutdown();
+    }
+
+    /**
+     * Queues the vote and returns once it is saved, or throws the exception which refused it.
+     */
+    public void submit(String subjectUuid, String userId, Vote vote) {
+        PendingVote pending = new PendingVote(userId, vote);
+        schedule(subjectUuid, enqueue(subjectUuid, Collections.singletonList(pending)));
+
+        RuntimeException refusal = outcome(pending, System.currentTimeMillis() + OUTCOME_TIMEOUT_MS);
+        if (refusal != null) {
+            throw refusal;
+        }
+    }
+
+    /**
+     * Queues the votes of several users, each one for the user of {@link Vote#getCollaboratorId()}, and returns once
+     * they are all written. Queued together, they are usually checked and saved in a single batch.
+     *
+     * @return for each vote in order, the exception which refused it, or null once saved
+     */
+    public List<RuntimeException> submitAll(String subjectUuid, List<Vote> votes) {
+        List<PendingVote> pending = new ArrayList<>(votes.size());
+        votes.forEach(v -> pending.add(new PendingVote(v.getCollaboratorId(), v)));
+
+        schedule(subjectUuid, enqueue(subjectUuid, pending));
+
+        long deadline = System.currentTimeMillis() + OUTCOME_TIMEOUT_MS;
+        List<RuntimeException> refusals = new ArrayList<>(pending.size());
+        pending.forEach(p -> refusals.add(outcome(p, deadline)));
+        return refusals;
+    }
+
+    private SubjectQueue enqueue(String subjectUuid, List<PendingVote> pending) {
+        return queues.compute(subjectUuid, (k, queue) -> {
+            SubjectQueue q = queue != null ? queue : new SubjectQueue();
+            q.pending.addAll(pending);
+            return q;
+        });
+    }
+
+    /**
+     * @return the exception which refused the vote, or null once saved
+     */
+    private static RuntimeException outcome(PendingVote pending, long deadline) {
+        try {
+            pending.result.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+                    : new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            return new VoteWriteTimeoutException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new VoteWriteTimeoutException();
+        }
+    }
+
+    private void schedule(String subjectUuid, SubjectQueue queue) {
+        if (queue.pending.isEmpty() || !queue.writing.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            writers.execute(() -> drain(subjectUuid, queue));
+        } catch (RejectedExecutionException e) {
+            // Shutting down: the votes still queued are refused rather than left waiting
+            PendingVote p;
+            while ((p = queue.pending.poll()) != null) {
+                p.result.completeExceptionally(e);
+            }
+            queue.writing.set(false);
+        }
+    }
+
+    /**
+     * Writes one batch, then hands the next one back to the pool so that a busy subject does not hold a writer.
+     */
+    private void drain(String subjectUuid, SubjectQueue queue) {
+        try {
+            List<PendingVote> batch = new ArrayList<>();
+            PendingVote p;
+            while ((p = queue.pending.poll()) != null) {
+                batch.add(p);
+            }
+            if (!batch.isEmpty()) {
+                write(subjectUuid, batch);
+            }
+        } finally {
+            queue.writing.set(false);
+        }
+
+        // Checking the queue again after releasing the writer flag ensures no vote is left waiting. Removed under the
+        // same lock as the votes are queued: a vote queued afterwards goes in a new queue, scheduled by its submitter
+        if (queues.computeIfPresent(subjectUuid, (k, q) -> q == queue && q.pending.isEmpty() ? null : q) == queue) {
+            schedule(subjectUuid, queue);
+        }
+    }
+
+    private void write(String subjectUuid, List<PendingVote> batch) {
+        batchSize.update(batch.size());
+
+        for (int attempt = 1;; attempt++) {
+            try {
+                writeOnce(subjectUuid, batch);
+                return;
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    batch.forEach(p -> p.result.completeExceptionally(e));
+                    return;
+                }
+                lockRetries.inc();
+            } catch (RuntimeException e) {
+                batch.forEach(p -> p.result.completeExceptionally(e));
+                return;
+            }
+        }
+    }
+
+    private void writeOnce(String subjectUuid, List<PendingVote> batch) {
+        Subject subject = subjectStore.findSubjectByUuid(subjectUuid)
+                .orElseThrow(VoteForNonExistingSubjectException::new);
+
+        // Outcomes are only published once the batch is saved: a retry may change them
+        List<PendingVote> accepted = new ArrayList<>();
+        Map<PendingVote, RuntimeException> refused = new IdentityHashMap<>();
+        for (PendingVote p : batch) {
+            try {
+                VoteUtil.checkVotes(p.vote, subject, p.userId);
+                VoteUtil.prepareVotes(p.vote, subject, p.userId);
+                accepted.add(p);
+            } catch (RuntimeException e) {
+                refused.put(p, e);
+            }
+        }
+
+        List<Vote> duplicates = new ArrayList<>();
+        if (!accepted.isEmpty()) {
+            List<Vote> votes = new ArrayList<>();
+            accepted.forEach(p -> votes.add(p.vote));
+            duplicates = subjectStore.saveVotes(subject, votes);
+            savesAvoided.inc(accepted.size() - 1);
+        }
+
+        for (PendingVote p : accepted) {
+            if (duplicates.contains(p.vote)) {
+                p.result.completeExceptionally(new UserAlreadyVoteException());
+            } else {
+                p.result.complete(null);
+            }
+        }
+        refused.forEach((p, e) -> p.result.completeExceptionally(e));
+    }
+
+    private static class SubjectQueue {
+
+        private final Queue<PendingVote> pending = new ConcurrentLinkedQueue<>();
+
+        private final AtomicBoolean writing = new AtomicBoolean();
+    }
+
+    private static class PendingVote {
+
+        private final String userId;
+
+        private final Vote vote;
+
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        private PendingVote(String userId, Vote vote) {
+            this.userId = userId;
+            this.vote = vote;
+        }
+    }
+
+}
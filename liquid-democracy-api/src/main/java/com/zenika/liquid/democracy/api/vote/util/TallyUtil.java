@@ -0,0 +1,172 @@
+package com.zenika.liquid.democracy.api.vote.util;
+
+import com.zenika.liquid.democracy.model.FinalResult;
+import com.zenika.liquid.democracy.model.Proposition;
+import com.zenika.liquid.democracy.model.Subject;
+import com.zenika.liquid.democracy.model.Vote;
+import com.zenika.liquid.democracy.model.WeightedChoice;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Décompte des points par proposition.
+ *
+ * Chaque vote compte pour son poids ({@link Vote#getWeight()}). Les compteurs ({@link Proposition#getPoints()})
+ * sont mis à jour avec le seul delta des votes ajoutés ou des poids modifiés.
+ * {@link Subject#getTalliedVoteCount()} mémorise le nombre de votes déjà comptés : s'il ne correspond plus
+ * à la liste des votes (sujet enregistré avant ce décompte, votes ajoutés sans passer par ici), le décompte
+ * est reconstruit entièrement.
+ *
+ * Les participants ({@link Subject#getParticipantIds()}) sont tenus à jour de la même façon : chaque vote
+ * ajoute son votant et tous ceux qui lui ont délégué leur pouvoir.
+ */
+public class TallyUtil {
+
+    public static void applyVotes(final Subject subject, final List<Vote> addedVotes) {
+        // Les compteurs ne reflètent pas les votes précédents : on ne peut pas appliquer de delta
+        if (subject.getTalliedVoteCount() + addedVotes.size() != subject.getVotes().size()) {
+            rebuild(subject);
+            return;
+        }
+
+        final Map<String, Proposition> propositions = indexPropositions(subject);
+        for (Vote vote : addedVotes) {
+            addPoints(propositions, vote, vote.getWeight());
+            subject.addParticipants(participantsOf(subject, vote.getCollaboratorId()));
+        }
+
+        subject.setTalliedVoteCount(subject.getVotes().size());
+    }
+
+    /**
+     * Prend en compte un vote déjà compté qui porte désormais aussi les voix de {@code addedParticipants}.
+     */
+    public static void applyWeight(final Subject subject, final Vote vote, final Set<String> addedParticipants) {
+        if (subject.getTalliedVoteCount() != subject.getVotes().size()) {
+            rebuild(subject);
+            return;
+        }
+
+        addPoints(indexPropositions(subject), vote, addedParticipants.size());
+        subject.addParticipants(addedParticipants);
+    }
+
+    /**
+     * L'utilisateur et tous ceux qui lui ont délégué leur pouvoir, directement ou non : les voix que porte son vote.
+     */
+    public static Set<String> participantsOf(final Subject subject, final String userId) {
+        if (userId == null) {
+            return new HashSet<>();
+        }
+
+        final Set<String> participants = new HashSet<>(subject.getDelegationGraph().getTransitiveDelegators(userId));
+        participants.add(userId);
+        return participants;
+    }
+
+    public static void rebuild(final Subject subject) {
+        final Map<String, Integer> totals = computeTotals(subject);
+
+        for (Proposition p : subject.getPropositions()) {
+            p.setPoints(totals.getOrDefault(p.getId(), 0));
+        }
+
+        subject.setParticipantIds(new HashSet<>());
+        for (Vote v : subject.getVotes()) {
+            subject.addParticipants(participantsOf(subject, v.getCollaboratorId()));
+        }
+        subject.setParticipantCount(subject.getParticipantIds().size());
+
+        subject.setTalliedVoteCount(subject.getVotes().size());
+    }
+
+    public static boolean isConsistent(final Subject subject) {
+        if (subject.getTalliedVoteCount() != subject.getVotes().size()) {
+            return false;
+        }
+
+        final Map<String, Integer> totals = computeTotals(subject);
+
+        for (Proposition p : subject.getPropositions()) {
+            if (p.getPoints() != totals.getOrDefault(p.getId(), 0)) {
+                return false;
+            }
+        }
+
+        final Set<String> participants = new HashSet<>();
+        for (Vote v : subject.getVotes()) {
+            participants.addAll(participantsOf(subject, v.getCollaboratorId()));
+        }
+
+        return participants.equals(subject.getParticipantIds()) && subject.getParticipantCount() == participants.size();
+    }
+
+    /**
+     * Reconstruit le décompte s'il diverge du recalcul complet.
+     *
+     * @return true si le décompte a dû être corrigé
+     */
+    public static boolean repair(final Subject subject) {
+        if (isConsistent(subject)) {
+            return false;
+        }
+
+        rebuild(subject);
+        return true;
+    }
+
+    /**
+     * Résultat figé du sujet, à partir d'un décompte complet qui ne dépend pas des compteurs enregistrés.
+     */
+    public static FinalResult finalResult(final Subject subject, final Date finalizedAt) {
+        final Map<String, Integer> totals = computeTotals(subject);
+        final Map<String, Integer> points = new HashMap<>();
+        for (Proposition p : subject.getPropositions()) {
+            points.put(p.getId(), totals.getOrDefault(p.getId(), 0));
+        }
+
+        final Set<String> participants = new HashSet<>();
+        for (Vote v : subject.getVotes()) {
+            participants.addAll(participantsOf(subject, v.getCollaboratorId()));
+        }
+
+        final int voteCount = subject.getVotes().stream().mapToInt(Vote::getWeight).sum();
+        return new FinalResult(finalizedAt, points, voteCount, subject.getVotes().size(), participants.size());
+    }
+
+    private static Map<String, Integer> computeTotals(final Subject subject) {
+        final Map<String, Integer> totals = new HashMap<>();
+
+        for (Vote v : subject.getVotes()) {
+            for (WeightedChoice c : v.getChoices()) {
+                totals.merge(c.getPropositionId(), c.getPoints() * v.getWeight(), Integer::sum);
+            }
+        }
+
+        return totals;
+    }
+
+    private static void addPoints(final Map<String, Proposition> propositions, final Vote vote, final int weight) {
+        for (WeightedChoice c : vote.getChoices()) {
+            final Proposition p = propositions.get(c.getPropositionId());
+            if (p != null) {
+                p.setPoints(p.getPoints() + c.getPoints() * weight);
+            }
+        }
+    }
+
+    private static Map<String, Proposition> indexPropositions(final Subject subject) {
+        final Map<String, Proposition> propositions = new HashMap<>();
+
+        for (Proposition p : subject.getPropositions()) {
+            propositions.put(p.getId(), p);
+        }
+
+        return propositions;
+    }
+}
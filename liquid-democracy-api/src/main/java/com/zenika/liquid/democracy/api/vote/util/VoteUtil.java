@@ -2,13 +2,13 @@ package com.zenika.liquid.democracy.api.vote.util;
 
 import com.zenika.liquid.democracy.api.exception.CloseSubjectException;
 import com.zenika.liquid.democracy.api.power.exception.UserAlreadyGavePowerException;
+import com.zenika.liquid.democracy.api.power.util.PowerUtil;
 import com.zenika.liquid.democracy.api.vote.exception.TooManyPointsException;
 import com.zenika.liquid.democracy.api.vote.exception.UserAlreadyVoteException;
 import com.zenika.liquid.democracy.api.vote.exception.VotePropositionIncorrectException;
 import com.zenika.liquid.democracy.model.*;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 public class VoteUtil {
 
@@ -27,75 +27,41 @@ public class VoteUtil {
             throw new UserAlreadyGavePowerException();
         }
 
-        final int pointsVoted = vote.getChoices().stream()
-                .mapToInt(WeightedChoice::getPoints)
-                .sum();
-        if (pointsVoted > subject.getMaxPoints()) {
-            throw new TooManyPointsException();
+        // Une seule passe sur les choix : le dépassement de points reste signalé avant une proposition incorrecte
+        final Set<String> propositionIds = new HashSet<>();
+        for (Proposition p : subject.getPropositions()) {
+            propositionIds.add(p.getId());
         }
 
+        final Set<String> chosen = new HashSet<>();
+        int pointsVoted = 0;
+        boolean incorrect = false;
         for (WeightedChoice c : vote.getChoices()) {
-            final Optional<Proposition> propositionFound = subject.getPropositions().stream()
-                    .filter(p -> p.getId().equals(c.getPropositionId()))
-                    .findFirst();
-
-            propositionFound.orElseThrow(VotePropositionIncorrectException::new);
-
-            final long count = vote.getChoices().stream()
-                    .filter(cTmp -> cTmp.getPropositionId().equals(c.getPropositionId()))
-                    .count();
+            pointsVoted += c.getPoints();
+            // Proposition inconnue, ou choisie plusieurs fois
+            incorrect |= !propositionIds.contains(c.getPropositionId()) || !chosen.add(c.getPropositionId());
+        }
 
-            if (count != 1) {
-                throw new VotePropositionIncorrectException();
-            }
+        if (pointsVoted > subject.getMaxPoints()) {
+            throw new TooManyPointsException();
         }
 
+        if (incorrect) {
+            throw new VotePropositionIncorrectException();
+        }
     }
 
     public static void prepareVotes(final Vote vote, final Subject subject, final String userId) {
-        final List<Vote> votes = new ArrayList<>();
-
-        final Deque<String> users = new ArrayDeque<>();
-        users.add(userId);
-
-        while (!users.isEmpty()) {
-            final String user = users.pop();
-
-            final List<String> dependencies = subject.getPowers().stream()
-                    .filter(p -> p.getCollaboratorIdTo().equals(user))
-                    .map(Power::getCollaboratorIdFrom)
-                    .collect(Collectors.toList());
-
-            votes.addAll(
-                    dependencies.stream().map(d -> {
-                        final Vote v = new Vote();
-                        v.setCollaboratorId(d);
-                        v.setChoices(vote.getChoices());
-                        return v;
-                    })
-                            .collect(Collectors.toList())
-            );
-
-            users.addAll(dependencies);
-        }
-
+        // Un seul vote par votant : il porte aussi les voix de tous ceux qui lui ont délégué leur pouvoir
         vote.setCollaboratorId(userId);
+        vote.setWeight(1 + PowerUtil.countDelegators(subject, userId));
 
-        subject.getVotes().add(vote);
-        subject.getVotes().addAll(votes);
+        subject.addVote(vote);
 
-        compileResults(subject);
+        TallyUtil.applyVotes(subject, Collections.singletonList(vote));
     }
 
     public static void compileResults(final Subject s) {
-        for (Proposition p : s.getPropositions()) {
-            p.setPoints(0);
-            s.getVotes().forEach(v -> {
-                final int nbPointsVoted = v.getChoices().stream()
-                        .filter(c -> p.getId().equals(c.getPropositionId()))
-                        .mapToInt(WeightedChoice::getPoints).sum();
-                p.setPoints(nbPointsVoted + p.getPoints());
-            });
-        }
+        TallyUtil.rebuild(s);
     }
 }
@@ -1,5 +1,7 @@
 package com.zenika.liquid.democracy.authentication.persistence;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
@@ -10,4 +12,8 @@ public interface CollaboratorRepository extends MongoRepository<Collaborator, Lo
 
 	Optional<Collaborator> findCollaboratorByEmail(String email);
 
+	List<Collaborator> findByCollaboratorIdIn(Collection<String> collaboratorIds);
+
+	List<Collaborator> findByEmailIn(Collection<String> emails);
+
 }
@@ -8,8 +8,10 @@ import org.springframework.stereotype.Service;
 
 import java.util.Optional;
 
+import com.zenika.liquid.democracy.api.collaborator.service.CollaboratorDirectory;
 import com.zenika.liquid.democracy.authentication.persistence.CollaboratorRepository;
 import com.zenika.liquid.democracy.authentication.security.bean.SocialUserDetailsImpl;
+import com.zenika.liquid.democracy.cache.CollaboratorCache;
 import com.zenika.si.core.zenika.model.Collaborator;
 
 @Service
@@ -19,16 +21,30 @@ public class DevSocialUserDetailsServiceImpl implements SocialUserDetailsService
     @Autowired
     private CollaboratorRepository userRepository;
 
+    @Autowired
+    private CollaboratorCache collaboratorCache;
+
+    @Autowired
+    private CollaboratorDirectory collaboratorDirectory;
+
     public void setUserRepository(CollaboratorRepository userRepository) {
         this.userRepository = userRepository;
     }
 
+    public void setCollaboratorCache(CollaboratorCache collaboratorCache) {
+        this.collaboratorCache = collaboratorCache;
+    }
+
+    public void setCollaboratorDirectory(CollaboratorDirectory collaboratorDirectory) {
+        this.collaboratorDirectory = collaboratorDirectory;
+    }
+
     @Override
     public SocialUserDetails loadUserByUserId(String userId) {
 
         Collaborator user = new Collaborator();
 
-        Optional<Collaborator> userTmp = userRepository.findCollaboratorByEmail(userId);
+        Optional<Collaborator> userTmp = collaboratorCache.findCollaboratorByEmail(userId);
 
         if (userTmp.isPresent()) {
             user = userTmp.get();
@@ -38,6 +54,8 @@ public class DevSocialUserDetailsServiceImpl implements SocialUserDetailsService
             user.setLastName("Lauper");
 
             userRepository.save(user);
+            collaboratorCache.invalidateCollaborator(user);
+            collaboratorDirectory.refresh();
         }
 
         return new SocialUserDetailsImpl(user);
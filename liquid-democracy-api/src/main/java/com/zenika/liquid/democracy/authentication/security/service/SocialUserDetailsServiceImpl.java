@@ -8,8 +8,8 @@ import org.springframework.stereotype.Service;
 
 import java.util.Optional;
 
-import com.zenika.liquid.democracy.authentication.persistence.CollaboratorRepository;
 import com.zenika.liquid.democracy.authentication.security.bean.SocialUserDetailsImpl;
+import com.zenika.liquid.democracy.cache.CollaboratorCache;
 import com.zenika.si.core.zenika.model.Collaborator;
 
 @Service
@@ -17,10 +17,10 @@ import com.zenika.si.core.zenika.model.Collaborator;
 public class SocialUserDetailsServiceImpl implements SocialUserDetailsService {
 
     @Autowired
-    private CollaboratorRepository userRepository;
+    private CollaboratorCache collaboratorCache;
 
-    public void setUserRepository(CollaboratorRepository userRepository) {
-        this.userRepository = userRepository;
+    public void setCollaboratorCache(CollaboratorCache collaboratorCache) {
+        this.collaboratorCache = collaboratorCache;
     }
 
     @Override
@@ -28,7 +28,7 @@ public class SocialUserDetailsServiceImpl implements SocialUserDetailsService {
 
         Collaborator user = new Collaborator();
 
-        Optional<Collaborator> userTmp = userRepository.findCollaboratorByEmail(userId);
+        Optional<Collaborator> userTmp = collaboratorCache.findCollaboratorByEmail(userId);
 
         if (userTmp.isPresent()) {
             user = userTmp.get();
@@ -7,6 +7,7 @@ import org.springframework.social.connect.Connection;
 import org.springframework.social.connect.ConnectionSignUp;
 import org.springframework.social.connect.UserProfile;
 
+import com.zenika.liquid.democracy.api.collaborator.service.CollaboratorDirectory;
 import com.zenika.liquid.democracy.authentication.persistence.CollaboratorRepository;
 import com.zenika.si.core.zenika.model.Collaborator;
 
@@ -15,8 +16,11 @@ public class AccountConnectionSignUp implements ConnectionSignUp {
 	@Autowired
 	private final CollaboratorRepository userRepository;
 
-	public AccountConnectionSignUp(CollaboratorRepository userRepository) {
+	private final CollaboratorDirectory collaboratorDirectory;
+
+	public AccountConnectionSignUp(CollaboratorRepository userRepository, CollaboratorDirectory collaboratorDirectory) {
 		this.userRepository = userRepository;
+		this.collaboratorDirectory = collaboratorDirectory;
 	}
 
 	@Override
@@ -34,6 +38,8 @@ public class AccountConnectionSignUp implements ConnectionSignUp {
 			user.setFirstName(profile.getFirstName());
 			user.setLastName(profile.getLastName());
 			userRepository.insert(user);
+			// Found by the searches of the others right away
+			collaboratorDirectory.refresh();
 		}
 
 		return user.getEmail();
@@ -11,6 +11,7 @@ import org.springframework.social.connect.UsersConnectionRepository;
 import org.springframework.social.connect.mem.InMemoryUsersConnectionRepository;
 import org.springframework.stereotype.Component;
 
+import com.zenika.liquid.democracy.api.collaborator.service.CollaboratorDirectory;
 import com.zenika.liquid.democracy.authentication.persistence.CollaboratorRepository;
 import com.zenika.liquid.democracy.authentication.security.config.cond.ConditionnalOnGoogleKey;
 import com.zenika.liquid.democracy.authentication.spring.social.AccountConnectionSignUp;
@@ -24,12 +25,15 @@ public class GoogleConfigurerAdapter extends SocialConfigurerAdapter {
     private GoogleProperties properties;
     @Autowired
     private CollaboratorRepository userRepository;
+    @Autowired
+    private CollaboratorDirectory collaboratorDirectory;
 
     @Override
     public UsersConnectionRepository getUsersConnectionRepository(ConnectionFactoryLocator connectionFactoryLocator) {
         InMemoryUsersConnectionRepository inMemoryUsersConnectionRepository = new InMemoryUsersConnectionRepository(
                 connectionFactoryLocator);
-        inMemoryUsersConnectionRepository.setConnectionSignUp(new AccountConnectionSignUp(userRepository));
+        inMemoryUsersConnectionRepository.setConnectionSignUp(new AccountConnectionSignUp(userRepository,
+                collaboratorDirectory));
         return inMemoryUsersConnectionRepository;
     }
 
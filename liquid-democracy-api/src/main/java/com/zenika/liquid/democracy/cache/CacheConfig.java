@@ -0,0 +1,91 @@
+package com.zenika.liquid.democracy.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.cache")
+public class CacheConfig {
+
+    private Settings subject = new Settings(1000, 30);
+
+    private Settings category = new Settings(200, 600);
+
+    private Settings channel = new Settings(200, 600);
+
+    private Settings collaborator = new Settings(1000, 300);
+
+    public Settings getSubject() {
+        return subject;
+    }
+
+    public void setSubject(Settings subject) {
+        this.subject = subject;
+    }
+
+    public Settings getCategory() {
+        return category;
+    }
+
+    public void setCategory(Settings category) {
+        this.category = category;
+    }
+
+    public Settings getChannel() {
+        return channel;
+    }
+
+    public void setChannel(Settings channel) {
+        this.channel = channel;
+    }
+
+    public Settings getCollaborator() {
+        return collaborator;
+    }
+
+    public void setCollaborator(Settings collaborator) {
+        this.collaborator = collaborator;
+    }
+
+    public static class Settings {
+
+        private boolean enabled = true;
+
+        private int maxSize;
+
+        private long ttlSeconds;
+
+        public Settings() {
+        }
+
+        public Settings(int maxSize, long ttlSeconds) {
+            this.maxSize = maxSize;
+            this.ttlSeconds = ttlSeconds;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public long getTtlSeconds() {
+            return ttlSeconds;
+        }
+
+        public void setTtlSeconds(long ttlSeconds) {
+            this.ttlSeconds = ttlSeconds;
+        }
+    }
+
+}
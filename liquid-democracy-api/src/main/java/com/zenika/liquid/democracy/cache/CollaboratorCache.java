@@ -0,0 +1,44 @@
+package com.zenika.liquid.democracy.cache;
+
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.codahale.metrics.MetricRegistry;
+import com.zenika.liquid.democracy.authentication.persistence.CollaboratorRepository;
+import com.zenika.si.core.zenika.model.Collaborator;
+
+/**
+ * Collaborators read by email, kept in memory between requests: the principal is loaded again on every
+ * remember-me authentication.
+ *
+ * As in {@link EntityCache}, the instances returned are shared and only read. Code saving a collaborator
+ * invalidates it here once saved.
+ */
+@Component
+public class CollaboratorCache {
+
+    private final CollaboratorRepository collaboratorRepository;
+
+    private final ReadThroughCache<Collaborator> byEmail;
+
+    @Autowired
+    public CollaboratorCache(CollaboratorRepository collaboratorRepository, CacheConfig cacheConfig,
+            MetricRegistry metricRegistry) {
+        this.collaboratorRepository = collaboratorRepository;
+        this.byEmail = new ReadThroughCache<>("collaboratorByEmail", cacheConfig.getCollaborator(), c -> {
+        }, metricRegistry);
+    }
+
+    public Optional<Collaborator> findCollaboratorByEmail(String email) {
+        return byEmail.get(email, collaboratorRepository::findCollaboratorByEmail);
+    }
+
+    public void invalidateCollaborator(Collaborator collaborator) {
+        if (collaborator.getEmail() != null) {
+            byEmail.invalidate(collaborator.getEmail());
+        }
+    }
+
+}
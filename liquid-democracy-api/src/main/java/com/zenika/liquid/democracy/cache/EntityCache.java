@@ -0,0 +1,83 @@
+package com.zenika.liquid.democracy.cache;
+
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.codahale.metrics.MetricRegistry;
+import com.zenika.liquid.democracy.api.category.persistence.CategoryRepository;
+import com.zenika.liquid.democracy.api.channel.persistence.ChannelRepository;
+import com.zenika.liquid.democracy.api.subject.persistence.SubjectStore;
+import com.zenika.liquid.democracy.model.Category;
+import com.zenika.liquid.democracy.model.Channel;
+import com.zenika.liquid.democracy.model.Subject;
+
+/**
+ * Subjects, categories and channels read by uuid, kept in memory between requests.
+ *
+ * The instances returned are shared: they are only read. Code modifying an entity loads it from its store or
+ * repository, then invalidates it here once saved.
+ */
+@Component
+public class EntityCache {
+
+    private final SubjectStore subjectStore;
+
+    private final CategoryRepository categoryRepository;
+
+    private final ChannelRepository channelRepository;
+
+    private final ReadThroughCache<Subject> subjects;
+
+    private final ReadThroughCache<Category> categories;
+
+    private final ReadThroughCache<Channel> channels;
+
+    @Autowired
+    public EntityCache(SubjectStore subjectStore, CategoryRepository categoryRepository,
+            ChannelRepository channelRepository, CacheConfig cacheConfig, MetricRegistry metricRegistry) {
+        this.subjectStore = subjectStore;
+        this.categoryRepository = categoryRepository;
+        this.channelRepository = channelRepository;
+        this.subjects = new ReadThroughCache<>("subject", cacheConfig.getSubject(), s -> {
+            s.getDelegationGraph();
+            s.findVote(s.getCollaboratorId());
+        }, metricRegistry);
+        this.categories = new ReadThroughCache<>("category", cacheConfig.getCategory(), Category::getDelegationGraph,
+                metricRegistry);
+        this.channels = new ReadThroughCache<>("channel", cacheConfig.getChannel(), c -> {
+        }, metricRegistry);
+    }
+
+    /**
+     * A closed subject is read with its final result only, without its votes and powers.
+     */
+    public Optional<Subject> findSubjectByUuid(String subjectUuid) {
+        return subjects.get(subjectUuid, uuid -> {
+            Optional<Subject> closed = subjectStore.findClosedSubject(uuid);
+            return closed.isPresent() ? closed : subjectStore.findSubjectByUuid(uuid);
+        });
+    }
+
+    public Optional<Category> findCategoryByUuid(String categoryUuid) {
+        return categories.get(categoryUuid, categoryRepository::findCategoryByUuid);
+    }
+
+    public Optional<Channel> findChannelByUuid(String channelUuid) {
+        return channels.get(channelUuid, channelRepository::findChannelByUuid);
+    }
+
+    public void invalidateSubject(String subjectUuid) {
+        subjects.invalidate(subjectUuid);
+    }
+
+    public void invalidateCategory(String categoryUuid) {
+        categories.invalidate(categoryUuid);
+    }
+
+    public void invalidateChannel(String channelUuid) {
+        channels.invalidate(channelUuid);
+    }
+
+}
@@ -0,0 +1,116 @@
+package com.zenika.liquid.democracy.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+
+/**
+ * Bounded, expiring cache loading missing entries on demand. The least recently read entry goes first when the
+ * cache is full.
+ *
+ * A load started before an invalidation is not kept: a reader never puts back a value older than a write.
+ */
+public class ReadThroughCache<T> {
+
+    private final CacheConfig.Settings settings;
+
+    private final Consumer<T> prepare;
+
+    private final LongSupplier clock;
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private final Map<String, Entry<T>> entries;
+
+    private long generation;
+
+    /**
+     * @param prepare called once on every loaded value before it is shared, to build its lazy indexes
+     */
+    public ReadThroughCache(String name, CacheConfig.Settings settings, Consumer<T> prepare,
+            MetricRegistry metricRegistry) {
+        this(name, settings, prepare, metricRegistry, System::currentTimeMillis);
+    }
+
+    ReadThroughCache(String name, CacheConfig.Settings settings, Consumer<T> prepare, MetricRegistry metricRegistry,
+            LongSupplier clock) {
+        this.settings = settings;
+        this.prepare = prepare;
+        this.clock = clock;
+        this.hits = metricRegistry.counter(MetricRegistry.name("cache", name, "hits"));
+        this.misses = metricRegistry.counter(MetricRegistry.name("cache", name, "misses"));
+        this.entries = new LinkedHashMap<String, Entry<T>>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry<T>> eldest) {
+                return size() > settings.getMaxSize();
+            }
+        };
+    }
+
+    public Optional<T> get(String key, Function<String, Optional<T>> loader) {
+        if (!settings.isEnabled()) {
+            return loader.apply(key);
+        }
+
+        long loadGeneration;
+        synchronized (this) {
+            Entry<T> entry = entries.get(key);
+            if (entry != null && entry.expiresAt > clock.getAsLong()) {
+                hits.inc();
+                return Optional.of(entry.value);
+            }
+            misses.inc();
+            loadGeneration = generation;
+        }
+
+        // Loaded outside of the lock: a slow read does not hold the other keys
+        Optional<T> value = loader.apply(key);
+        value.ifPresent(v -> {
+            prepare.accept(v);
+            synchronized (this) {
+                if (generation == loadGeneration) {
+                    entries.put(key, new Entry<>(v, clock.getAsLong() + settings.getTtlSeconds() * 1000));
+                }
+            }
+        });
+        return value;
+    }
+
+    public synchronized void invalidate(String key) {
+        generation++;
+        entries.remove(key);
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private static class Entry<T> {
+
+        private final T value;
+
+        private final long expiresAt;
+
+        private Entry(T value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+}
@@ -0,0 +1,156 @@
+package com.zenika.liquid.democracy.config;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import com.zenika.liquid.democracy.api.power.persistence.PowerRepository;
+import com.zenika.liquid.democracy.api.subject.persistence.SubjectRepositoryImpl;
+import com.zenika.liquid.democracy.api.subject.persistence.impl.CollectionSubjectStore;
+import com.zenika.liquid.democracy.api.vote.persistence.VoteRepository;
+import com.zenika.liquid.democracy.model.Power;
+import com.zenika.liquid.democracy.model.Subject;
+import com.zenika.liquid.democracy.model.Vote;
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Moves the votes and powers still embedded in subject documents to their own collections when
+ * {@code app.persistence.ballots=collections}.
+ *
+ * Embedded votes and powers are stored with their id, as {@code _id}, so a migration interrupted midway is run again
+ * at next startup by writing the same ballots again. Ballots embedded before they had an id get a new one each time
+ * their subject is read: the unique indexes on (subjectUuid, collaboratorId) for votes and (subjectUuid,
+ * collaboratorIdFrom) for powers reject the copies already moved.
+ *
+ * The embedded ballots are only cleared from the version they were read from: a ballot embedded meanwhile is moved
+ * by reading the subject again.
+ *
+ * Tallies which no longer match the votes stored, left by writes made before they were checked against the version of
+ * the subject or by a vote inserted by an instance stopped before counting it, are then rebuilt here rather than when
+ * subjects are read.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.persistence", name = "ballots", havingValue = "collections")
+public class BallotCollectionMigration {
+
+    private static final Logger LOG = Logger.getLogger(BallotCollectionMigration.class);
+
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final MongoTemplate mongoTemplate;
+
+    private final VoteRepository voteRepository;
+
+    private final PowerRepository powerRepository;
+
+    private final CollectionSubjectStore subjectStore;
+
+    @Autowired
+    public BallotCollectionMigration(MongoTemplate mongoTemplate, VoteRepository voteRepository, PowerRepository powerRepository,
+            CollectionSubjectStore subjectStore) {
+        this.mongoTemplate = mongoTemplate;
+        this.voteRepository = voteRepository;
+        this.powerRepository = powerRepository;
+        this.subjectStore = subjectStore;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        Criteria embedded = new Criteria().orOperator(where("votes.0").exists(true), where("powers.0").exists(true));
+
+        int migrated = 0;
+        for (Subject subject : mongoTemplate.find(query(embedded), Subject.class)) {
+            if (migrate(subject)) {
+                migrated++;
+            }
+        }
+
+        if (migrated != 0) {
+            LOG.info("Moved votes and powers of " + migrated + " subjects to their own collections");
+        }
+
+        repairTallies();
+    }
+
+    private boolean migrate(Subject subject) {
+        for (int attempt = 1;; attempt++) {
+            moveBallots(subject);
+
+            Query loaded = query(where("uuid").is(subject.getUuid()).and("version").is(subject.getVersion()));
+            Update clear = new Update().set("votes", new ArrayList<>()).set("powers", new ArrayList<>())
+                    .set("version", SubjectRepositoryImpl.nextVersion(subject.getVersion()));
+            if (mongoTemplate.updateFirst(loaded, clear, Subject.class).getN() == 1) {
+                return true;
+            }
+
+            subject = mongoTemplate.findById(subject.getUuid(), Subject.class);
+            if (subject == null) {
+                return false;
+            }
+            if (attempt == MAX_ATTEMPTS) {
+                LOG.warn("Subject " + subject.getUuid() + " modified during its migration, moved at next startup");
+                return false;
+            }
+        }
+    }
+
+    private void moveBallots(Subject subject) {
+        for (Vote vote : subject.getVotes()) {
+            vote.setSubjectUuid(subject.getUuid());
+            try {
+                voteRepository.save(vote);
+            } catch (DuplicateKeyException e) {
+                LOG.warn("Duplicate vote of " + vote.getCollaboratorId() + " on subject " + subject.getUuid() + " not migrated");
+            }
+        }
+
+        for (Power power : subject.getPowers()) {
+            power.setSubjectUuid(subject.getUuid());
+            try {
+                powerRepository.save(power);
+            } catch (DuplicateKeyException e) {
+                LOG.warn("Duplicate power of " + power.getCollaboratorIdFrom() + " on subject " + subject.getUuid() + " not migrated");
+            }
+        }
+    }
+
+    private void repairTallies() {
+        Map<String, Integer> voteCounts = new HashMap<>();
+        for (DBObject count : mongoTemplate.getCollection(mongoTemplate.getCollectionName(Vote.class)).aggregate(Arrays.asList(
+                new BasicDBObject("$group", new BasicDBObject("_id", "$subjectUuid").append("count", new BasicDBObject("$sum", 1)))))
+                .results()) {
+            voteCounts.put(String.valueOf(count.get("_id")), ((Number) count.get("count")).intValue());
+        }
+
+        Query open = query(where("closed").ne(true));
+        open.fields().include("uuid").include("talliedVoteCount");
+
+        int repaired = 0;
+        for (Subject subject : mongoTemplate.find(open, Subject.class)) {
+            if (subject.getTalliedVoteCount() != voteCounts.getOrDefault(subject.getUuid(), 0)
+                    && subjectStore.repairTally(subject.getUuid())) {
+                repaired++;
+            }
+        }
+
+        if (repaired != 0) {
+            LOG.info("Rebuilt the tally of " + repaired + " subjects");
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.zenika.liquid.democracy.config;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import com.mongodb.DBRef;
+import com.zenika.liquid.democracy.model.Channel;
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Turns the references to the members of channels saved before {@link Channel#getCollaboratorIds()} into member
+ * ids, read from the references themselves without loading the collaborators.
+ */
+@Component
+public class ChannelMembershipMigration {
+
+    private static final Logger LOG = Logger.getLogger(ChannelMembershipMigration.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public ChannelMembershipMigration(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void migrate() {
+        DBCollection channels = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Channel.class));
+
+        int migrated = 0;
+        for (DBObject legacy : channels.find(new BasicDBObject("collaboratorIds", new BasicDBObject("$exists", false)),
+                new BasicDBObject("collaborators", 1))) {
+            Set<String> collaboratorIds = new HashSet<>();
+            Object references = legacy.get("collaborators");
+            if (references instanceof Iterable) {
+                for (Object reference : (Iterable<?>) references) {
+                    if (reference instanceof DBRef) {
+                        collaboratorIds.add(String.valueOf(((DBRef) reference).getId()));
+                    }
+                }
+            }
+
+            channels.update(new BasicDBObject("_id", legacy.get("_id")),
+                    new BasicDBObject("$set", new BasicDBObject("collaboratorIds", collaboratorIds)
+                            .append("memberCount", collaboratorIds.size()))
+                            .append("$unset", new BasicDBObject("collaborators", "")));
+            migrated++;
+        }
+
+        if (migrated != 0) {
+            LOG.info("Moved members of " + migrated + " channels to member ids");
+        }
+    }
+
+}
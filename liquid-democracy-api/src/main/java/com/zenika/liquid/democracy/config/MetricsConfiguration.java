@@ -0,0 +1,36 @@
+package com.zenika.liquid.democracy.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.codahale.metrics.JmxReporter;
+import com.codahale.metrics.MetricRegistry;
+import com.zenika.liquid.democracy.metrics.PrometheusEndpoint;
+import com.zenika.liquid.democracy.metrics.PrometheusMvcEndpoint;
+
+@Configuration
+public class MetricsConfiguration {
+
+	@Bean
+	@ConditionalOnMissingBean
+	public MetricRegistry metricRegistry() {
+		return new MetricRegistry();
+	}
+
+	@Bean(initMethod = "start", destroyMethod = "stop")
+	public JmxReporter jmxReporter(MetricRegistry metricRegistry) {
+		return JmxReporter.forRegistry(metricRegistry).inDomain("liquid-democracy").build();
+	}
+
+	@Bean
+	public PrometheusEndpoint prometheusEndpoint(MetricRegistry metricRegistry) {
+		return new PrometheusEndpoint(metricRegistry);
+	}
+
+	@Bean
+	public PrometheusMvcEndpoint prometheusMvcEndpoint(PrometheusEndpoint prometheusEndpoint) {
+		return new PrometheusMvcEndpoint(prometheusEndpoint);
+	}
+
+}
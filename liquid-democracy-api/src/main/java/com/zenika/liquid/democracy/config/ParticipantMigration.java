@@ -0,0 +1,74 @@
+package com.zenika.liquid.democracy.config;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import com.zenika.liquid.democracy.api.subject.persistence.SubjectStore;
+import com.zenika.liquid.democracy.api.vote.util.TallyUtil;
+import com.zenika.liquid.democracy.model.Proposition;
+import com.zenika.liquid.democracy.model.Subject;
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Fills the participants and their count on subjects saved before they were kept with the subject.
+ *
+ * Runs once the context is refreshed, after {@link BallotCollectionMigration}, so that subjects are read with all
+ * their votes and powers whatever the storage layout.
+ */
+@Component
+public class ParticipantMigration {
+
+    private static final Logger LOG = Logger.getLogger(ParticipantMigration.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    private final SubjectStore subjectStore;
+
+    @Autowired
+    public ParticipantMigration(MongoTemplate mongoTemplate, SubjectStore subjectStore) {
+        this.mongoTemplate = mongoTemplate;
+        this.subjectStore = subjectStore;
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void migrate() {
+        Query missing = query(where("participantIds").exists(false));
+        missing.fields().include("uuid");
+
+        int migrated = 0;
+        for (Subject legacy : mongoTemplate.find(missing, Subject.class)) {
+            Subject subject = subjectStore.findSubjectByUuid(legacy.getUuid()).orElse(null);
+            if (subject == null) {
+                continue;
+            }
+
+            TallyUtil.rebuild(subject);
+
+            Update update = new Update()
+                    .set("participantIds", subject.getParticipantIds())
+                    .set("participantCount", subject.getParticipantCount())
+                    .set("talliedVoteCount", subject.getTalliedVoteCount());
+            List<Proposition> propositions = subject.getPropositions();
+            for (int i = 0; i < propositions.size(); i++) {
+                update.set("propositions." + i + ".points", propositions.get(i).getPoints());
+            }
+
+            mongoTemplate.updateFirst(query(where("uuid").is(subject.getUuid())), update, Subject.class);
+            migrated++;
+        }
+
+        if (migrated != 0) {
+            LOG.info("Counted participants of " + migrated + " subjects");
+        }
+    }
+
+}
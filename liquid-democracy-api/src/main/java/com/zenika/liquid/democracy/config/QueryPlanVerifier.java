@@ -0,0 +1,136 @@
+package com.zenika.liquid.democracy.config;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DB;
+import com.mongodb.DBObject;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Runs every query method of the repositories once with sample arguments, with the Mongo profiler on, and refuses
+ * to start when one of them reads its whole collection instead of an index. Enabled with
+ * {@code app.queryPlans.verify}, in tests.
+ *
+ * Queries declared as {@code {}} list every document by design and are left out.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.queryPlans", name = "verify", havingValue = "true")
+public class QueryPlanVerifier {
+
+    private static final String COLLECTION_SCAN = "COLLSCAN";
+
+    private final ListableBeanFactory beanFactory;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public QueryPlanVerifier(ListableBeanFactory beanFactory, MongoTemplate mongoTemplate) {
+        this.beanFactory = beanFactory;
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void verify() {
+        List<String> scans = findCollectionScans();
+        if (!scans.isEmpty()) {
+            throw new IllegalStateException("Repository queries reading a whole collection: " + scans);
+        }
+    }
+
+    /**
+     * @return the queries which scanned their collection, as {@code Repository.method: plan}
+     */
+    public List<String> findCollectionScans() {
+        Repositories repositories = new Repositories(beanFactory);
+        DB db = mongoTemplate.getDb();
+
+        List<String> scans = new ArrayList<>();
+        for (Class<?> domainClass : repositories) {
+            RepositoryInformation information = repositories.getRepositoryInformationFor(domainClass);
+            Object repository = repositories.getRepositoryFor(domainClass);
+            String namespace = db.getName() + "." + mongoTemplate.getCollectionName(domainClass);
+
+            for (Method method : information.getQueryMethods()) {
+                if (!isRead(method) || readsEverything(method)) {
+                    continue;
+                }
+
+                for (DBObject operation : profile(db, () -> ReflectionUtils.invokeMethod(method, repository,
+                        sampleArguments(method)))) {
+                    Object plan = operation.get("planSummary");
+                    if (namespace.equals(operation.get("ns")) && plan != null && plan.toString().contains(COLLECTION_SCAN)) {
+                        scans.add(information.getRepositoryInterface().getSimpleName() + "." + method.getName() + ": "
+                                + plan);
+                    }
+                }
+            }
+        }
+        return scans;
+    }
+
+    /**
+     * Operations run by {@code queries}, as recorded by the profiler.
+     */
+    private static List<DBObject> profile(DB db, Runnable queries) {
+        db.command(new BasicDBObject("profile", 0));
+        db.getCollection("system.profile").drop();
+        db.command(new BasicDBObject("profile", 2));
+        try {
+            queries.run();
+        } finally {
+            db.command(new BasicDBObject("profile", 0));
+        }
+        return db.getCollection("system.profile").find().toArray();
+    }
+
+    private static boolean isRead(Method method) {
+        String name = method.getName();
+        return name.startsWith("find") || name.startsWith("read") || name.startsWith("get") || name.startsWith("count")
+                || name.startsWith("exists");
+    }
+
+    private static boolean readsEverything(Method method) {
+        Query query = method.getAnnotation(Query.class);
+        return query != null && "{}".equals(query.value().trim());
+    }
+
+    /**
+     * Uuids are object ids: a string argument is one, so that it is converted like a real uuid.
+     */
+    private static Object[] sampleArguments(Method method) {
+        Class<?>[] types = method.getParameterTypes();
+        Object[] arguments = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] == String.class) {
+                arguments[i] = new ObjectId().toHexString();
+            } else if (types[i] == Date.class) {
+                arguments[i] = new Date();
+            } else if (Collection.class.isAssignableFrom(types[i])) {
+                arguments[i] = Collections.singletonList(new ObjectId().toHexString());
+            } else if (types[i] == Pageable.class) {
+                arguments[i] = new PageRequest(0, 10);
+            }
+        }
+        return arguments;
+    }
+
+}
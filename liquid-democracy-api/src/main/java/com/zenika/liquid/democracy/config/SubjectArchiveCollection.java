@@ -0,0 +1,48 @@
+package com.zenika.liquid.democracy.config;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.MongoException;
+import com.zenika.liquid.democracy.api.subject.persistence.SubjectRepositoryImpl;
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Creates the archive of closed subjects, compressed with zlib rather than the default snappy since it is seldom
+ * read, and its index on the order in which subjects are listed.
+ */
+@Component
+public class SubjectArchiveCollection {
+
+    private static final Logger LOG = Logger.getLogger(SubjectArchiveCollection.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public SubjectArchiveCollection(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @PostConstruct
+    public void create() {
+        String name = SubjectRepositoryImpl.ARCHIVE_COLLECTION;
+        if (!mongoTemplate.collectionExists(name)) {
+            try {
+                mongoTemplate.getDb().createCollection(name, new BasicDBObject("storageEngine",
+                        new BasicDBObject("wiredTiger", new BasicDBObject("configString", "block_compressor=zlib"))));
+            } catch (MongoException e) {
+                // Storage engines other than WiredTiger have no compression option
+                LOG.warn("Archive of subjects created without compression: " + e.getMessage());
+                mongoTemplate.createCollection(name);
+            }
+        }
+
+        DBCollection archive = mongoTemplate.getCollection(name);
+        archive.createIndex(new BasicDBObject("submitDate", -1).append("_id", -1));
+    }
+
+}
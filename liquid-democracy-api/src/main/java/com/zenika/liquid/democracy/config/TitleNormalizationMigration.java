@@ -0,0 +1,60 @@
+package com.zenika.liquid.democracy.config;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import com.mongodb.DuplicateKeyException;
+import com.zenika.liquid.democracy.api.util.TitleUtil;
+import com.zenika.liquid.democracy.model.Category;
+import com.zenika.liquid.democracy.model.Channel;
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sets the normalized title of the categories and channels created before {@link Category#getNormalizedTitle()}.
+ * A title already taken once normalized is left unset and logged: those duplicates are to be merged by hand.
+ */
+@Component
+public class TitleNormalizationMigration {
+
+    private static final Logger LOG = Logger.getLogger(TitleNormalizationMigration.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public TitleNormalizationMigration(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void migrate() {
+        migrate(Category.class);
+        migrate(Channel.class);
+    }
+
+    private void migrate(Class<?> entityClass) {
+        DBCollection collection = mongoTemplate.getCollection(mongoTemplate.getCollectionName(entityClass));
+
+        int migrated = 0;
+        for (DBObject legacy : collection.find(new BasicDBObject("normalizedTitle", new BasicDBObject("$exists", false))
+                .append("title", new BasicDBObject("$type", 2)), new BasicDBObject("title", 1))) {
+            try {
+                collection.update(new BasicDBObject("_id", legacy.get("_id")), new BasicDBObject("$set",
+                        new BasicDBObject("normalizedTitle", TitleUtil.normalizeTitle((String) legacy.get("title")))));
+                migrated++;
+            } catch (DuplicateKeyException e) {
+                LOG.warn("Duplicate title of " + entityClass.getSimpleName() + " " + legacy.get("_id") + " not normalized: "
+                        + legacy.get("title"));
+            }
+        }
+
+        if (migrated != 0) {
+            LOG.info("Normalized the title of " + migrated + " " + entityClass.getSimpleName() + " documents");
+        }
+    }
+
+}
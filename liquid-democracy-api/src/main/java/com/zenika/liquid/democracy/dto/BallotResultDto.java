@@ -0,0 +1,34 @@
+package com.zenika.liquid.democracy.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Outcome of one line of a ballot import.
+ */
+public class BallotResultDto {
+
+    /**
+     * Line number in the import, from 1.
+     */
+    @Getter
+    @Setter
+    private int line;
+
+    @Getter
+    @Setter
+    private String collaboratorId;
+
+    @Getter
+    @Setter
+    private boolean accepted;
+
+    /**
+     * Why the ballot was refused: the name of the exception which refused it, {@code MalformedBallot} when the
+     * line could not be read, or {@code UnknownCollaborator} when no collaborator has the email of the voter.
+     */
+    @Getter
+    @Setter
+    private String error;
+
+}
@@ -22,6 +22,13 @@ public class ChannelDto {
     @Setter
     private String description;
 
+    @Getter
+    @Setter
+    private int memberCount;
+
+    /**
+     * Only filled when a single channel is read.
+     */
     @Getter
     @Setter
     private List<CollaboratorDto> collaborators;
@@ -0,0 +1,139 @@
+package com.zenika.liquid.democracy.dto;
+
+import com.zenika.liquid.democracy.model.Category;
+import com.zenika.liquid.democracy.model.Channel;
+import com.zenika.liquid.democracy.model.FinalResult;
+import com.zenika.liquid.democracy.model.Proposition;
+import com.zenika.liquid.democracy.model.Subject;
+import com.zenika.si.core.zenika.model.Collaborator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Copies the entities to their DTOs field by field: only the fields of the DTOs are read, never the powers of a
+ * category nor the members of a channel.
+ *
+ * One instance maps the subjects of one response: the category and channel of several subjects are mapped once and
+ * their DTOs shared, so they must not be modified afterwards.
+ */
+public class DtoMapper {
+
+    private final Map<String, CategoryDto> categories = new HashMap<>();
+
+    private final Map<String, ChannelDto> channels = new HashMap<>();
+
+    /**
+     * Flags depending on the user and the closed flag are left to the caller.
+     */
+    public SubjectDto toDto(Subject s) {
+        SubjectDto dto = new SubjectDto();
+        dto.setUuid(s.getUuid());
+        dto.setCollaboratorId(s.getCollaboratorId());
+        dto.setTitle(s.getTitle());
+        dto.setDescription(s.getDescription());
+        dto.setMaxPoints(s.getMaxPoints());
+        dto.setDeadLine(s.getDeadLine());
+        dto.setSubmitDate(s.getSubmitDate());
+        dto.setVoteCount(s.getVoteCount());
+
+        List<PropositionDto> propositions = new ArrayList<>(s.getPropositions().size());
+        for (Proposition p : s.getPropositions()) {
+            propositions.add(toDto(p));
+        }
+        dto.setPropositions(propositions);
+
+        if (s.getCategory() != null) {
+            dto.setCategory(categories.computeIfAbsent(s.getCategory().getUuid(), uuid -> toDto(s.getCategory())));
+        }
+        if (s.getChannel() != null) {
+            dto.setChannel(channels.computeIfAbsent(s.getChannel().getUuid(), uuid -> toDto(s.getChannel())));
+        }
+        if (s.getFinalResult() != null) {
+            dto.setFinalResult(toDto(s.getFinalResult()));
+        }
+        return dto;
+    }
+
+    /**
+     * Moves the categories and channels of the subjects out of them, keyed by uuid.
+     */
+    public static SubjectListDto normalize(List<SubjectDto> subjects) {
+        Map<String, CategoryDto> categories = new LinkedHashMap<>();
+        Map<String, ChannelDto> channels = new LinkedHashMap<>();
+        for (SubjectDto s : subjects) {
+            if (s.getCategory() != null) {
+                categories.putIfAbsent(s.getCategory().getUuid(), s.getCategory());
+                s.setCategoryUuid(s.getCategory().getUuid());
+                s.setCategory(null);
+            }
+            if (s.getChannel() != null) {
+                channels.putIfAbsent(s.getChannel().getUuid(), s.getChannel());
+                s.setChannelUuid(s.getChannel().getUuid());
+                s.setChannel(null);
+            }
+        }
+
+        SubjectListDto list = new SubjectListDto();
+        list.setSubjects(subjects);
+        list.setCategories(categories);
+        list.setChannels(channels);
+        return list;
+    }
+
+    public static PropositionDto toDto(Proposition p) {
+        PropositionDto dto = new PropositionDto();
+        dto.setId(p.getId());
+        dto.setTitle(p.getTitle());
+        dto.setDescription(p.getDescription());
+        dto.setPoints(p.getPoints());
+        return dto;
+    }
+
+    /**
+     * The delegation given by the user is left to the caller.
+     */
+    public static CategoryDto toDto(Category c) {
+        CategoryDto dto = new CategoryDto();
+        dto.setUuid(c.getUuid());
+        dto.setTitle(c.getTitle());
+        dto.setDescription(c.getDescription());
+        return dto;
+    }
+
+    /**
+     * The members are left to the caller.
+     */
+    public static ChannelDto toDto(Channel c) {
+        ChannelDto dto = new ChannelDto();
+        dto.setUuid(c.getUuid());
+        dto.setTitle(c.getTitle());
+        dto.setDescription(c.getDescription());
+        dto.setMemberCount(c.getMemberCount());
+        return dto;
+    }
+
+    public static FinalResultDto toDto(FinalResult r) {
+        FinalResultDto dto = new FinalResultDto();
+        dto.setFinalizedAt(r.getFinalizedAt());
+        dto.setPoints(r.getPoints());
+        dto.setVoteCount(r.getVoteCount());
+        dto.setVoterCount(r.getVoterCount());
+        dto.setParticipantCount(r.getParticipantCount());
+        dto.setDelegatedCount(r.getDelegatedCount());
+        return dto;
+    }
+
+    public static CollaboratorDto toDto(Collaborator c) {
+        CollaboratorDto dto = new CollaboratorDto();
+        dto.setCollaboratorId(c.getCollaboratorId());
+        dto.setEmail(c.getEmail());
+        dto.setFirstName(c.getFirstName());
+        dto.setLastName(c.getLastName());
+        return dto;
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.zenika.liquid.democracy.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Results of a closed subject, frozen at its deadline.
+ */
+public class FinalResultDto {
+
+    @Getter
+    @Setter
+    private Date finalizedAt;
+
+    /**
+     * Points of each proposition, by proposition id.
+     */
+    @Getter
+    @Setter
+    private Map<String, Integer> points;
+
+    @Getter
+    @Setter
+    private int voteCount;
+
+    @Getter
+    @Setter
+    private int voterCount;
+
+    @Getter
+    @Setter
+    private int participantCount;
+
+    @Getter
+    @Setter
+    private int delegatedCount;
+}
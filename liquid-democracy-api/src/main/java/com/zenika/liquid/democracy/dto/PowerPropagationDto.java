@@ -0,0 +1,35 @@
+package com.zenika.liquid.democracy.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Outcome, on one subject, of a delegation given or withdrawn on its category.
+ */
+public class PowerPropagationDto {
+
+    public enum Status {
+        APPLIED, CLOSED, ALREADY_VOTED, ALREADY_DELEGATED, CIRCULAR_DEPENDENCY, NOT_DELEGATED, CONFLICT
+    }
+
+    @Getter
+    @Setter
+    private String subjectUuid;
+
+    @Getter
+    @Setter
+    private String subjectTitle;
+
+    @Getter
+    @Setter
+    private Status status;
+
+    public PowerPropagationDto() {
+    }
+
+    public PowerPropagationDto(String subjectUuid, String subjectTitle, Status status) {
+        this.subjectUuid = subjectUuid;
+        this.subjectTitle = subjectTitle;
+        this.status = status;
+    }
+}
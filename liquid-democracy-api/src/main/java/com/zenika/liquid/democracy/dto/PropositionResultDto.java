@@ -0,0 +1,22 @@
+package com.zenika.liquid.democracy.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+public class PropositionResultDto {
+
+    @Getter
+    @Setter
+    private String id;
+
+    @Getter
+    @Setter
+    private int points;
+
+    /**
+     * Points won since the previous event of the subject.
+     */
+    @Getter
+    @Setter
+    private int delta;
+}
@@ -0,0 +1,40 @@
+package com.zenika.liquid.democracy.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Results of a subject pushed to the clients watching it. Points are absolute, deltas count from the previous event
+ * of the subject sent to the same client.
+ */
+public class ResultEventDto {
+
+    @Getter
+    @Setter
+    private String subjectUuid;
+
+    @Getter
+    @Setter
+    private String channelUuid;
+
+    /**
+     * Every proposition is listed, rather than the changed ones only.
+     */
+    @Getter
+    @Setter
+    private boolean snapshot;
+
+    @Getter
+    @Setter
+    private int voteCount;
+
+    @Getter
+    @Setter
+    private int participantCount;
+
+    @Getter
+    @Setter
+    private List<PropositionResultDto> propositions;
+}
@@ -1,5 +1,6 @@
 package com.zenika.liquid.democracy.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -74,4 +75,27 @@ public class SubjectDto {
     @Setter
     private ChannelDto channel;
 
+    /**
+     * Replaces {@link #category} in a {@link SubjectListDto}.
+     */
+    @Getter
+    @Setter
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String categoryUuid;
+
+    /**
+     * Replaces {@link #channel} in a {@link SubjectListDto}.
+     */
+    @Getter
+    @Setter
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String channelUuid;
+
+    /**
+     * Set once the subject is closed.
+     */
+    @Getter
+    @Setter
+    private FinalResultDto finalResult;
+
 }
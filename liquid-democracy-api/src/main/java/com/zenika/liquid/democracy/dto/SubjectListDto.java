@@ -0,0 +1,27 @@
+package com.zenika.liquid.democracy.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Normalized listing of subjects: each category and channel is written once, and the subjects refer to them by
+ * uuid.
+ */
+public class SubjectListDto {
+
+    @Getter
+    @Setter
+    private List<SubjectDto> subjects;
+
+    @Getter
+    @Setter
+    private Map<String, CategoryDto> categories;
+
+    @Getter
+    @Setter
+    private Map<String, ChannelDto> channels;
+
+}
@@ -0,0 +1,43 @@
+package com.zenika.liquid.democracy.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bson.BSON;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+import com.codahale.metrics.MetricRegistry;
+
+/**
+ * Records the size in bytes of the documents saved, per document type: subjects grow with their votes and powers.
+ *
+ * Encoding a document again costs as much as a part of its save, on the request thread: only one save in
+ * {@value #SAMPLE_INTERVAL} is measured, which is plenty for the distribution of the sizes. The count of the
+ * histograms is thus the count of the saves measured.
+ */
+@Component
+public class DocumentSizeListener extends AbstractMongoEventListener<Object> {
+
+    private static final int SAMPLE_INTERVAL = 20;
+
+    private final MetricRegistry metricRegistry;
+
+    private final AtomicLong saves = new AtomicLong();
+
+    @Autowired
+    public DocumentSizeListener(MetricRegistry metricRegistry) {
+        this.metricRegistry = metricRegistry;
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Object> event) {
+        if (saves.getAndIncrement() % SAMPLE_INTERVAL != 0) {
+            return;
+        }
+        metricRegistry.histogram(MetricRegistry.name("mongo", event.getSource().getClass().getSimpleName(), "size"))
+                .update(BSON.encode(event.getDBObject()).length);
+    }
+
+}
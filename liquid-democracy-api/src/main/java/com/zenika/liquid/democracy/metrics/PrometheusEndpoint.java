@@ -0,0 +1,24 @@
+package com.zenika.liquid.democracy.metrics;
+
+import org.springframework.boot.actuate.endpoint.AbstractEndpoint;
+
+import com.codahale.metrics.MetricRegistry;
+
+/**
+ * Actuator endpoint publishing the application metrics for a Prometheus scraper.
+ */
+public class PrometheusEndpoint extends AbstractEndpoint<String> {
+
+    private final MetricRegistry metricRegistry;
+
+    public PrometheusEndpoint(MetricRegistry metricRegistry) {
+        super("prometheus", false);
+        this.metricRegistry = metricRegistry;
+    }
+
+    @Override
+    public String invoke() {
+        return PrometheusTextFormat.write(metricRegistry);
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.zenika.liquid.democracy.metrics;
+
+import org.springframework.boot.actuate.endpoint.mvc.EndpointMvcAdapter;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * Serves {@link PrometheusEndpoint} as plain text rather than JSON.
+ */
+public class PrometheusMvcEndpoint extends EndpointMvcAdapter {
+
+    public PrometheusMvcEndpoint(PrometheusEndpoint delegate) {
+        super(delegate);
+    }
+
+    @Override
+    @ResponseBody
+    @RequestMapping(method = RequestMethod.GET, produces = PrometheusTextFormat.CONTENT_TYPE)
+    public Object invoke() {
+        return super.invoke();
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.zenika.liquid.democracy.metrics;
+
+import java.util.Map;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+
+/**
+ * Writes the metrics of a registry in the Prometheus text exposition format (version 0.0.4). Counters and meters
+ * become counters, timers and histograms summaries, timers in seconds. Their reservoirs only keep recent values and no
+ * total: the summaries have no {@code _sum}, which has to keep growing.
+ */
+public final class PrometheusTextFormat {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final double[] QUANTILES = { 0.5, 0.75, 0.95, 0.98, 0.99, 0.999 };
+
+    private static final double SECONDS_PER_NANO = 1e-9;
+
+    private PrometheusTextFormat() {
+    }
+
+    public static String write(MetricRegistry registry) {
+        StringBuilder out = new StringBuilder();
+
+        for (Map.Entry<String, Gauge> e : registry.getGauges().entrySet()) {
+            Object value = e.getValue().getValue();
+            if (value instanceof Number || value instanceof Boolean) {
+                String name = sanitize(e.getKey());
+                type(out, name, "gauge");
+                sample(out, name, "", value instanceof Boolean ? ((Boolean) value ? 1 : 0) : ((Number) value)
+                        .doubleValue());
+            }
+        }
+        for (Map.Entry<String, Counter> e : registry.getCounters().entrySet()) {
+            String name = sanitize(e.getKey()) + "_total";
+            type(out, name, "counter");
+            sample(out, name, "", e.getValue().getCount());
+        }
+        for (Map.Entry<String, Meter> e : registry.getMeters().entrySet()) {
+            String name = sanitize(e.getKey()) + "_total";
+            type(out, name, "counter");
+            sample(out, name, "", e.getValue().getCount());
+        }
+        for (Map.Entry<String, Histogram> e : registry.getHistograms().entrySet()) {
+            summary(out, sanitize(e.getKey()), e.getValue().getSnapshot(), e.getValue().getCount(), 1);
+        }
+        for (Map.Entry<String, Timer> e : registry.getTimers().entrySet()) {
+            summary(out, sanitize(e.getKey()) + "_seconds", e.getValue().getSnapshot(), e.getValue().getCount(),
+                    SECONDS_PER_NANO);
+        }
+
+        return out.toString();
+    }
+
+    static String sanitize(String name) {
+        String sanitized = name.replaceAll("[^a-zA-Z0-9_:]", "_");
+        return Character.isDigit(sanitized.charAt(0)) ? "_" + sanitized : sanitized;
+    }
+
+    private static void summary(StringBuilder out, String name, Snapshot snapshot, long count, double factor) {
+        type(out, name, "summary");
+        for (double quantile : QUANTILES) {
+            sample(out, name, "{quantile=\"" + quantile + "\"}", snapshot.getValue(quantile) * factor);
+        }
+        sample(out, name + "_count", "", count);
+    }
+
+    private static void type(StringBuilder out, String name, String type) {
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name).append(labels).append(' ').append(value).append('\n');
+    }
+
+}
@@ -0,0 +1,348 @@
+package com.zenika.liquid.democracy.api.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.boot.test.WebIntegrationTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.RestTemplate;
+
+import com.zenika.liquid.democracy.Application;
+import com.zenika.liquid.democracy.api.power.persistence.PowerRepository;
+import com.zenika.liquid.democracy.api.power.util.PowerUtil;
+import com.zenika.liquid.democracy.api.subject.persistence.SubjectRepository;
+import com.zenika.liquid.democracy.api.subject.persistence.SubjectStore;
+import com.zenika.liquid.democracy.api.vote.persistence.VoteRepository;
+import com.zenika.liquid.democracy.api.vote.util.TallyUtil;
+import com.zenika.liquid.democracy.api.vote.util.VoteUtil;
+import com.zenika.liquid.democracy.config.BallotCollectionMigration;
+import com.zenika.liquid.democracy.model.Power;
+import com.zenika.liquid.democracy.model.Proposition;
+import com.zenika.liquid.democracy.model.Subject;
+import com.zenika.liquid.democracy.model.Vote;
+import com.zenika.liquid.democracy.model.WeightedChoice;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringApplicationConfiguration(classes = Application.class)
+@WebIntegrationTest(value = "app.persistence.ballots=collections", randomPort = true)
+@ActiveProfiles("test")
+public class BallotCollectionsTest {
+
+	@Autowired
+	SubjectRepository repository;
+
+	@Autowired
+	VoteRepository voteRepository;
+
+	@Autowired
+	PowerRepository powerRepository;
+
+	@Autowired
+	SubjectStore store;
+
+	@Autowired
+	BallotCollectionMigration migration;
+
+	@Value("${local.server.port}")
+	private int serverPort;
+
+	private RestTemplate template;
+
+	@Before
+	public void setUp() throws Exception {
+		template = new RestTemplate();
+		template.setErrorHandler(new DefaultResponseErrorHandler() {
+			protected boolean hasError(HttpStatus statusCode) {
+				return statusCode.series() == HttpStatus.Series.SERVER_ERROR;
+			}
+		});
+		repository.deleteAll();
+		voteRepository.deleteAll();
+		powerRepository.deleteAll();
+	}
+
+	@Test
+	public void voteIsStoredInVoteCollectionTest() {
+		Subject s = generateSubject();
+		store.save(s);
+
+		ResponseEntity<Object> addResp = template.exchange(
+		        "http://localhost:" + serverPort + "api/votes/" + s.getUuid(), HttpMethod.PUT,
+		        new HttpEntity<>(generateVote(s.getPropositions().get(1))), Object.class);
+		assertEquals(HttpStatus.OK.value(), addResp.getStatusCode().value());
+
+		Subject savedSubject = repository.findSubjectByUuid(s.getUuid()).get();
+		assertEquals(0, savedSubject.getVotes().size());
+		assertEquals(1, savedSubject.getPropositions().get(1).getPoints());
+		assertEquals(1, savedSubject.getTalliedVoteCount());
+
+		List<Vote> votes = voteRepository.findBySubjectUuid(s.getUuid());
+		assertEquals(1, votes.size());
+		assertEquals("sandra.parlant@zenika.com", votes.get(0).getCollaboratorId());
+
+		assertTrue(store.findSubjectByUuid(s.getUuid()).get().isVoted("sandra.parlant@zenika.com"));
+	}
+
+	@Test
+	public void secondVoteIsRejectedTest() {
+		Subject s = generateSubject();
+		store.save(s);
+
+		template.exchange("http://localhost:" + serverPort + "api/votes/" + s.getUuid(), HttpMethod.PUT,
+		        new HttpEntity<>(generateVote(s.getPropositions().get(1))), Object.class);
+		ResponseEntity<Object> addResp = template.exchange(
+		        "http://localhost:" + serverPort + "api/votes/" + s.getUuid(), HttpMethod.PUT,
+		        new HttpEntity<>(generateVote(s.getPropositions().get(0))), Object.class);
+
+		assertEquals(HttpStatus.BAD_REQUEST.value(), addResp.getStatusCode().value());
+		assertEquals(1, voteRepository.findBySubjectUuid(s.getUuid()).size());
+	}
+
+	@Test
+	public void votesLoadedTogetherAreBothCountedTest() {
+		Subject s = generateSubject();
+		store.save(s);
+
+		Subject first = store.findSubjectByUuid(s.getUuid()).get();
+		Subject second = store.findSubjectByUuid(s.getUuid()).get();
+
+		Vote v1 = generateVote(first.getPropositions().get(0));
+		VoteUtil.checkVotes(v1, first, "sandra.parlant@zenika.com");
+		VoteUtil.prepareVotes(v1, first, "sandra.parlant@zenika.com");
+		Vote v2 = generateVote(second.getPropositions().get(0));
+		VoteUtil.checkVotes(v2, second, "julie.bourhis@zenika.com");
+		VoteUtil.prepareVotes(v2, second, "julie.bourhis@zenika.com");
+
+		store.saveVotes(first, Collections.singletonList(v1));
+		store.saveVotes(second, Collections.singletonList(v2));
+
+		Subject saved = repository.findSubjectByUuid(s.getUuid()).get();
+		assertEquals(2, voteRepository.findBySubjectUuid(s.getUuid()).size());
+		assertEquals(2, saved.getPropositions().get(0).getPoints());
+		assertEquals(2, saved.getTalliedVoteCount());
+	}
+
+	@Test
+	public void sameVoteLoadedTwiceIsStoredOnceTest() {
+		Subject s = generateSubject();
+		store.save(s);
+
+		Subject first = store.findSubjectByUuid(s.getUuid()).get();
+		Subject second = store.findSubjectByUuid(s.getUuid()).get();
+
+		Vote v1 = generateVote(first.getPropositions().get(0));
+		VoteUtil.checkVotes(v1, first, "sandra.parlant@zenika.com");
+		VoteUtil.prepareVotes(v1, first, "sandra.parlant@zenika.com");
+		Vote v2 = generateVote(second.getPropositions().get(1));
+		VoteUtil.checkVotes(v2, second, "sandra.parlant@zenika.com");
+		VoteUtil.prepareVotes(v2, second, "sandra.parlant@zenika.com");
+
+		assertTrue(store.saveVotes(first, Collections.singletonList(v1)).isEmpty());
+		assertEquals(Collections.singletonList(v2), store.saveVotes(second, Collections.singletonList(v2)));
+
+		Subject saved = repository.findSubjectByUuid(s.getUuid()).get();
+		assertEquals(1, voteRepository.findBySubjectUuid(s.getUuid()).size());
+		assertEquals(1, saved.getPropositions().get(0).getPoints());
+		assertEquals(0, saved.getPropositions().get(1).getPoints());
+	}
+
+	@Test
+	public void powerToVoterReweightsVoteTest() {
+		Subject s = generateSubject();
+		Vote v = generateVote(s.getPropositions().get(1));
+		v.setCollaboratorId("julie.bourhis@zenika.com");
+		s.getVotes().add(v);
+		s.getPropositions().get(1).setPoints(1);
+		s.setTalliedVoteCount(1);
+		store.save(s);
+
+		Power p = new Power();
+		p.setCollaboratorIdTo("julie.bourhis@zenika.com");
+
+		ResponseEntity<Object> addResp = template.exchange(
+		        "http://localhost:" + serverPort + "api/powers/subjects/" + s.getUuid(), HttpMethod.PUT,
+		        new HttpEntity<>(p), Object.class);
+		assertEquals(HttpStatus.OK.value(), addResp.getStatusCode().value());
+
+		assertEquals(1, powerRepository.findBySubjectUuid(s.getUuid()).size());
+		assertEquals(2, voteRepository.findBySubjectUuid(s.getUuid()).get(0).getWeight());
+		assertEquals(2, repository.findSubjectByUuid(s.getUuid()).get().getPropositions().get(1).getPoints());
+	}
+
+	@Test
+	public void migrationMovesEmbeddedBallotsTest() {
+		Subject s = generateSubject();
+		Vote v = generateVote(s.getPropositions().get(0));
+		v.setCollaboratorId("julie.bourhis@zenika.com");
+		s.getVotes().add(v);
+		Power p = new Power();
+		p.setCollaboratorIdFrom("guillaume.gerbaud@zenika.com");
+		p.setCollaboratorIdTo("julie.bourhis@zenika.com");
+		s.getPowers().add(p);
+		repository.save(s);
+
+		migration.migrate();
+
+		assertEquals(0, repository.findSubjectByUuid(s.getUuid()).get().getVotes().size());
+		assertEquals(1, voteRepository.findBySubjectUuid(s.getUuid()).size());
+		assertEquals(1, powerRepository.findBySubjectUuid(s.getUuid()).size());
+
+		Subject loaded = store.findSubjectByUuid(s.getUuid()).get();
+		assertEquals(1, loaded.getVoteCount());
+		assertEquals(1, loaded.getPowers().size());
+		assertTrue(loaded.isVoted("guillaume.gerbaud@zenika.com"));
+		assertEquals(1, loaded.getPropositions().get(0).getPoints());
+	}
+
+	@Test
+	public void powerDeletedWhileDelegateVotesTest() {
+		Subject s = generateSubject();
+		Power p = new Power();
+		p.setCollaboratorIdFrom("julie.bourhis@zenika.com");
+		p.setCollaboratorIdTo("sandra.parlant@zenika.com");
+		s.getPowers().add(p);
+		store.save(s);
+
+		Subject deleting = store.findSubjectByUuid(s.getUuid()).get();
+		Subject voting = store.findSubjectByUuid(s.getUuid()).get();
+
+		Vote v = generateVote(voting.getPropositions().get(0));
+		VoteUtil.checkVotes(v, voting, "sandra.parlant@zenika.com");
+		VoteUtil.prepareVotes(v, voting, "sandra.parlant@zenika.com");
+		store.saveVotes(voting, Collections.singletonList(v));
+
+		Power removed = PowerUtil.checkPowerForDelete(deleting, "julie.bourhis@zenika.com");
+		deleting.removePower(removed);
+		try {
+			store.deletePower(deleting, removed);
+			fail("Power deleted from a subject loaded before the vote of the delegate");
+		} catch (OptimisticLockingFailureException e) {
+			// expected
+		}
+
+		assertEquals(1, powerRepository.findBySubjectUuid(s.getUuid()).size());
+		assertEquals(2, voteRepository.findBySubjectUuid(s.getUuid()).get(0).getWeight());
+		assertEquals(2, repository.findSubjectByUuid(s.getUuid()).get().getPropositions().get(0).getPoints());
+	}
+
+	@Test
+	public void concurrentReversePowersTest() {
+		Subject s = generateSubject();
+		store.save(s);
+
+		Subject first = store.findSubjectByUuid(s.getUuid()).get();
+		Subject second = store.findSubjectByUuid(s.getUuid()).get();
+
+		Power toSandra = new Power();
+		toSandra.setCollaboratorIdTo("sandra.parlant@zenika.com");
+		PowerUtil.checkPowerForAddition(toSandra, first, "julie.bourhis@zenika.com");
+		PowerUtil.preparePower(toSandra, first, "julie.bourhis@zenika.com");
+		store.savePower(first, toSandra);
+
+		Power toJulie = new Power();
+		toJulie.setCollaboratorIdTo("julie.bourhis@zenika.com");
+		PowerUtil.checkPowerForAddition(toJulie, second, "sandra.parlant@zenika.com");
+		PowerUtil.preparePower(toJulie, second, "sandra.parlant@zenika.com");
+		try {
+			store.savePower(second, toJulie);
+			fail("Cycle of powers saved from a subject loaded before the first power");
+		} catch (OptimisticLockingFailureException e) {
+			// expected
+		}
+
+		assertEquals(1, powerRepository.findBySubjectUuid(s.getUuid()).size());
+		assertEquals("julie.bourhis@zenika.com", powerRepository.findBySubjectUuid(s.getUuid()).get(0).getCollaboratorIdFrom());
+	}
+
+	@Test
+	public void voteLoadedBeforeCloseIsRefusedTest() {
+		Subject s = generateSubject();
+		store.save(s);
+
+		Subject closing = store.findSubjectByUuid(s.getUuid()).get();
+		Subject voting = store.findSubjectByUuid(s.getUuid()).get();
+
+		Vote v = generateVote(voting.getPropositions().get(0));
+		VoteUtil.checkVotes(v, voting, "sandra.parlant@zenika.com");
+		VoteUtil.prepareVotes(v, voting, "sandra.parlant@zenika.com");
+
+		assertTrue(store.close(closing, TallyUtil.finalResult(closing, new Date())));
+		try {
+			store.saveVotes(voting, Collections.singletonList(v));
+			fail("Vote saved in a closed subject");
+		} catch (OptimisticLockingFailureException e) {
+			// expected
+		}
+
+		assertEquals(0, voteRepository.findBySubjectUuid(s.getUuid()).size());
+		assertEquals(0, repository.findSubjectByUuid(s.getUuid()).get().getPropositions().get(0).getPoints());
+	}
+
+	@Test
+	public void closeMissingVoteIsRefusedTest() {
+		Subject s = generateSubject();
+		store.save(s);
+
+		Subject closing = store.findSubjectByUuid(s.getUuid()).get();
+		Subject voting = store.findSubjectByUuid(s.getUuid()).get();
+
+		Vote v = generateVote(voting.getPropositions().get(0));
+		VoteUtil.checkVotes(v, voting, "sandra.parlant@zenika.com");
+		VoteUtil.prepareVotes(v, voting, "sandra.parlant@zenika.com");
+		store.saveVotes(voting, Collections.singletonList(v));
+
+		try {
+			store.close(closing, TallyUtil.finalResult(closing, new Date()));
+			fail("Subject closed with a result missing a vote");
+		} catch (OptimisticLockingFailureException e) {
+			// expected
+		}
+
+		Subject loaded = store.findSubjectByUuid(s.getUuid()).get();
+		assertTrue(store.close(loaded, TallyUtil.finalResult(loaded, new Date())));
+		Subject closed = repository.findSubjectByUuid(s.getUuid()).get();
+		assertEquals(1, closed.getFinalResult().getPoints().get(closed.getPropositions().get(0).getId()).intValue());
+	}
+
+	private Subject generateSubject() {
+		Subject s = new Subject();
+		s.setTitle("Title");
+		s.setDescription("Description");
+		s.setCollaboratorId("sandra.parlant@zenika.com");
+		Proposition p1 = new Proposition();
+		Proposition p2 = new Proposition();
+		p1.setTitle("P1 title");
+		p2.setTitle("P2 title");
+		s.getPropositions().add(p1);
+		s.getPropositions().add(p2);
+		return s;
+	}
+
+	private Vote generateVote(Proposition proposition) {
+		Vote v = new Vote();
+		WeightedChoice c = new WeightedChoice();
+		c.setPoints(1);
+		c.setPropositionId(proposition.getId());
+		v.getChoices().add(c);
+		return v;
+	}
+
+}
@@ -2,8 +2,10 @@ package com.zenika.liquid.democracy.api.controller;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import java.util.List;
+import java.util.Map;
 
 import com.zenika.liquid.democracy.api.channel.persistence.ChannelRepository;
 import com.zenika.liquid.democracy.model.Channel;
@@ -61,6 +63,12 @@ public class ChannelControllerTest {
 		addResp = template.postForEntity("http://localhost:" + serverPort + "api/channels/", c, Void.class);
 		assertNotNull(addResp);
 		assertEquals(HttpStatus.CREATED.value(), addResp.getStatusCode().value());
+
+		// Same title once trimmed and lower-cased
+		c.setTitle(" TITLE ");
+		addResp = template.postForEntity("http://localhost:" + serverPort + "api/channels/", c, Void.class);
+		assertEquals(HttpStatus.BAD_REQUEST.value(), addResp.getStatusCode().value());
+		assertEquals(1, repository.count());
 	}
 
 	@Test
@@ -108,4 +116,27 @@ public class ChannelControllerTest {
 		assertEquals(HttpStatus.NOT_FOUND.value(), addResp.getStatusCode().value());
 	}
 
+	@Test
+	public void joinAndQuitChannelTest() {
+		Channel c = new Channel();
+		c.setTitle("Title");
+		repository.save(c);
+
+		String url = "http://localhost:" + serverPort + "api/channels/" + c.getUuid();
+		assertEquals(HttpStatus.OK.value(), template.getForEntity(url + "/join", Void.class).getStatusCode().value());
+		assertEquals(HttpStatus.BAD_REQUEST.value(),
+		        template.getForEntity(url + "/join", Void.class).getStatusCode().value());
+
+		Channel joined = repository.findChannelByUuid(c.getUuid()).get();
+		assertEquals(1, joined.getMemberCount());
+		assertTrue(joined.isMember("sandra.parlant@zenika.com"));
+
+		ResponseEntity<List> channels = template.getForEntity("http://localhost:" + serverPort + "api/channels",
+		        List.class);
+		assertEquals(1, ((Map<?, ?>) channels.getBody().get(0)).get("memberCount"));
+
+		assertEquals(HttpStatus.OK.value(), template.getForEntity(url + "/quit", Void.class).getStatusCode().value());
+		assertEquals(0, repository.findChannelByUuid(c.getUuid()).get().getMemberCount());
+	}
+
 }
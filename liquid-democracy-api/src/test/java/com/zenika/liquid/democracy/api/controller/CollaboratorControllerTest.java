@@ -0,0 +1,134 @@
+package com.zenika.liquid.democracy.api.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.boot.test.WebIntegrationTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.RestTemplate;
+
+import com.zenika.liquid.democracy.Application;
+import com.zenika.liquid.democracy.api.collaborator.service.CollaboratorDirectory;
+import com.zenika.liquid.democracy.authentication.persistence.CollaboratorRepository;
+import com.zenika.liquid.democracy.authentication.security.service.DevSocialUserDetailsServiceImpl;
+import com.zenika.liquid.democracy.dto.CollaboratorDto;
+import com.zenika.si.core.zenika.model.Collaborator;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringApplicationConfiguration(classes = Application.class)
+@WebIntegrationTest(randomPort = true)
+@ActiveProfiles("test")
+public class CollaboratorControllerTest {
+
+	private static final List<String> EMAILS = Arrays.asList("alice.zorglub@zenika.com", "bob.zorglub@zenika.com",
+	        "carole.zorglub@zenika.com", "zorglub.nouveau@zenika.com");
+
+	@Autowired
+	CollaboratorRepository repository;
+
+	@Autowired
+	CollaboratorDirectory directory;
+
+	@Autowired
+	DevSocialUserDetailsServiceImpl userDetailsService;
+
+	@Value("${local.server.port}")
+	private int serverPort;
+
+	private RestTemplate template;
+
+	@Before
+	public void setUp() throws Exception {
+		template = new RestTemplate();
+		template.setErrorHandler(new DefaultResponseErrorHandler() {
+			protected boolean hasError(HttpStatus statusCode) {
+				return statusCode.series() == HttpStatus.Series.SERVER_ERROR;
+			}
+		});
+		tearDown();
+
+		for (String email : EMAILS.subList(0, 3)) {
+			Collaborator c = new Collaborator();
+			c.setEmail(email);
+			c.setFirstName(email.substring(0, email.indexOf('.')));
+			c.setLastName("Zorglub");
+			repository.save(c);
+		}
+		directory.refresh();
+	}
+
+	@After
+	public void tearDown() {
+		repository.delete(repository.findByEmailIn(EMAILS));
+		directory.refresh();
+	}
+
+	@Test
+	public void searchUsersTest() {
+		ResponseEntity<List<CollaboratorDto>> resp = search("?q=zorglub&page=0&size=2");
+		assertEquals(HttpStatus.OK.value(), resp.getStatusCode().value());
+		assertEquals("3", resp.getHeaders().getFirst("X-Total-Count"));
+		assertEquals(2, resp.getBody().size());
+		assertEquals("alice.zorglub@zenika.com", resp.getBody().get(0).getEmail());
+
+		resp = search("?q=zorglub&page=1&size=2");
+		assertEquals("3", resp.getHeaders().getFirst("X-Total-Count"));
+		assertEquals(1, resp.getBody().size());
+		assertEquals("carole.zorglub@zenika.com", resp.getBody().get(0).getEmail());
+
+		// Every word must start a field
+		resp = search("?q=zorglub,bo");
+		assertEquals("1", resp.getHeaders().getFirst("X-Total-Count"));
+		assertEquals("bob.zorglub@zenika.com", resp.getBody().get(0).getEmail());
+	}
+
+	@Test
+	public void searchUsersPagingTest() {
+		assertEquals(HttpStatus.BAD_REQUEST.value(), search("?q=zorglub&page=-1").getStatusCode().value());
+		assertEquals(HttpStatus.BAD_REQUEST.value(), search("?q=zorglub&size=0").getStatusCode().value());
+	}
+
+	@Test
+	public void getUsersWithoutQueryTest() {
+		// Without q, every collaborator is listed as before, without a total count
+		ResponseEntity<List<Collaborator>> resp = template.exchange(
+		        "http://localhost:" + serverPort + "api/collaborators", HttpMethod.GET, null,
+		        new ParameterizedTypeReference<List<Collaborator>>() {
+		        });
+		assertEquals(HttpStatus.OK.value(), resp.getStatusCode().value());
+		assertNull(resp.getHeaders().getFirst("X-Total-Count"));
+		assertEquals(3, resp.getBody().stream().filter(c -> EMAILS.contains(c.getEmail())).count());
+	}
+
+	@Test
+	public void newCollaboratorIsFoundAtOnceTest() {
+		userDetailsService.loadUserByUserId("zorglub.nouveau@zenika.com");
+
+		ResponseEntity<List<CollaboratorDto>> resp = search("?q=zorglub.nouveau");
+		assertEquals("1", resp.getHeaders().getFirst("X-Total-Count"));
+		assertEquals("zorglub.nouveau@zenika.com", resp.getBody().get(0).getEmail());
+	}
+
+	private ResponseEntity<List<CollaboratorDto>> search(String parameters) {
+		return template.exchange("http://localhost:" + serverPort + "api/collaborators" + parameters, HttpMethod.GET,
+		        null, new ParameterizedTypeReference<List<CollaboratorDto>>() {
+		        });
+	}
+
+}
@@ -3,6 +3,8 @@ package com.zenika.liquid.democracy.api.controller;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.junit.Before;
@@ -28,6 +30,7 @@ import com.zenika.liquid.democracy.model.Category;
 import com.zenika.liquid.democracy.model.Power;
 import com.zenika.liquid.democracy.model.Proposition;
 import com.zenika.liquid.democracy.model.Subject;
+import com.zenika.liquid.democracy.model.Vote;
 
 @RunWith(SpringJUnit4ClassRunner.class)
 @SpringApplicationConfiguration(classes = Application.class)
@@ -200,6 +203,63 @@ public class PowerControllerTest {
 		assertEquals(true, savedCategory.get().findPower("sandra.parlant@zenika.com").isPresent());
 	}
 
+	@Test
+	public void addPowerOnCategoryReportTest() {
+		Category c = new Category();
+		c.setTitle("c1");
+		categoryRepository.save(c);
+
+		Subject s1 = new Subject();
+		s1.setTitle("Title 1");
+		s1.setDescription("Description");
+		s1.getPropositions().add(new Proposition());
+		s1.getPropositions().add(new Proposition());
+		s1.setCategory(c);
+		subjectRepository.save(s1);
+
+		Subject s2 = new Subject();
+		s2.setTitle("Title 2");
+		s2.setDescription("Description");
+		s2.getPropositions().add(new Proposition());
+		s2.getPropositions().add(new Proposition());
+		s2.setCategory(c);
+		Power circular = new Power();
+		circular.setCollaboratorIdFrom("julie.bourhis@zenika.com");
+		circular.setCollaboratorIdTo("sandra.parlant@zenika.com");
+		s2.getPowers().add(circular);
+		subjectRepository.save(s2);
+
+		Subject s3 = new Subject();
+		s3.setTitle("Title 3");
+		s3.setDescription("Description");
+		s3.getPropositions().add(new Proposition());
+		s3.getPropositions().add(new Proposition());
+		s3.setCategory(c);
+		Vote v = new Vote();
+		v.setCollaboratorId("sandra.parlant@zenika.com");
+		s3.getVotes().add(v);
+		subjectRepository.save(s3);
+
+		Power p = new Power();
+		p.setCollaboratorIdTo("julie.bourhis@zenika.com");
+
+		ResponseEntity<List> addResp = template.exchange(
+		        "http://localhost:" + serverPort + "api/powers/categories/" + c.getUuid(), HttpMethod.PUT,
+		        new HttpEntity<>(p), List.class);
+
+		assertEquals(HttpStatus.OK.value(), addResp.getStatusCode().value());
+		// s3 is filtered out by the eligibility query: the user already voted on it
+		assertEquals(2, addResp.getBody().size());
+		assertEquals(s1.getUuid(), ((Map) addResp.getBody().get(0)).get("subjectUuid"));
+		assertEquals("APPLIED", ((Map) addResp.getBody().get(0)).get("status"));
+		assertEquals(s2.getUuid(), ((Map) addResp.getBody().get(1)).get("subjectUuid"));
+		assertEquals("CIRCULAR_DEPENDENCY", ((Map) addResp.getBody().get(1)).get("status"));
+
+		assertEquals(true, subjectRepository.findSubjectByUuid(s1.getUuid()).get().findPower("sandra.parlant@zenika.com").isPresent());
+		assertEquals(false, subjectRepository.findSubjectByUuid(s2.getUuid()).get().findPower("sandra.parlant@zenika.com").isPresent());
+		assertEquals(false, subjectRepository.findSubjectByUuid(s3.getUuid()).get().findPower("sandra.parlant@zenika.com").isPresent());
+	}
+
 	@Test
 	public void deletePowerOnSubjectTest() {
 		Subject s = new Subject();
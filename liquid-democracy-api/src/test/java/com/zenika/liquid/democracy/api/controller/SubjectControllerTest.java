@@ -2,15 +2,19 @@ package com.zenika.liquid.democracy.api.controller;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.sql.Date;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.List;
 
 import com.zenika.liquid.democracy.dto.SubjectDto;
+import com.zenika.liquid.democracy.dto.SubjectListDto;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -19,6 +23,9 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.SpringApplicationConfiguration;
 import org.springframework.boot.test.WebIntegrationTest;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -28,9 +35,17 @@ import org.springframework.web.client.DefaultResponseErrorHandler;
 import org.springframework.web.client.RestTemplate;
 
 import com.zenika.liquid.democracy.Application;
+import com.zenika.liquid.democracy.api.category.persistence.CategoryRepository;
 import com.zenika.liquid.democracy.api.subject.persistence.SubjectRepository;
+import com.zenika.liquid.democracy.api.subject.persistence.SubjectRepositoryImpl;
+import com.zenika.liquid.democracy.api.subject.persistence.SubjectStore;
+import com.zenika.liquid.democracy.api.vote.util.TallyUtil;
+import com.zenika.liquid.democracy.model.Category;
+import com.zenika.liquid.democracy.model.Power;
 import com.zenika.liquid.democracy.model.Proposition;
 import com.zenika.liquid.democracy.model.Subject;
+import com.zenika.liquid.democracy.model.Vote;
+import com.zenika.liquid.democracy.model.WeightedChoice;
 
 @RunWith(SpringJUnit4ClassRunner.class)
 @SpringApplicationConfiguration(classes = Application.class)
@@ -41,6 +56,15 @@ public class SubjectControllerTest {
 	@Autowired
 	SubjectRepository repository;
 
+	@Autowired
+	SubjectStore subjectStore;
+
+	@Autowired
+	MongoTemplate mongoTemplate;
+
+	@Autowired
+	CategoryRepository categoryRepository;
+
 	@Value("${local.server.port}")
 	private int serverPort;
 
@@ -55,6 +79,7 @@ public class SubjectControllerTest {
 			}
 		});
 		repository.deleteAll();
+		mongoTemplate.remove(new Query(), SubjectRepositoryImpl.ARCHIVE_COLLECTION);
 	}
 
 	@Test
@@ -248,4 +273,237 @@ public class SubjectControllerTest {
 		assertEquals(HttpStatus.NOT_FOUND.value(), addResp.getStatusCode().value());
 	}
 
+	@Test
+	public void getSubjectsFlagsTest() {
+		Subject l = new Subject();
+		l.setTitle("Title");
+		l.setDescription("Description");
+		l.setCollaboratorId("sandra.parlant@zenika.com");
+		Proposition p1 = new Proposition();
+		Proposition p2 = new Proposition();
+		l.getPropositions().add(p1);
+		l.getPropositions().add(p2);
+		p1.setTitle("P1 title");
+		p2.setTitle("P2 title");
+		Power power = new Power();
+		power.setCollaboratorIdFrom("julie.bourhis@zenika.com");
+		power.setCollaboratorIdTo("sandra.parlant@zenika.com");
+		l.getPowers().add(power);
+		l = repository.save(l);
+
+		Vote v = new Vote();
+		WeightedChoice c = new WeightedChoice();
+		c.setPoints(1);
+		c.setPropositionId(p2.getId());
+		v.getChoices().add(c);
+		template.exchange("http://localhost:" + serverPort + "api/votes/" + l.getUuid(), HttpMethod.PUT,
+				new HttpEntity<>(v), Object.class);
+
+		ResponseEntity<List<SubjectDto>> resp = template.exchange(
+				"http://localhost:" + serverPort + "api/subjects/", HttpMethod.GET, null,
+				new ParameterizedTypeReference<List<SubjectDto>>() {
+				});
+		assertEquals(HttpStatus.OK.value(), resp.getStatusCode().value());
+		assertEquals(1, resp.getBody().size());
+
+		SubjectDto dto = resp.getBody().get(0);
+		assertTrue(dto.getIsVoted());
+		assertNull(dto.getGivenDelegation());
+		assertEquals(1, dto.getReceivedDelegations());
+		assertEquals(2, dto.getVoteCount());
+		assertEquals(2, dto.getPropositions().get(1).getPoints());
+	}
+
+	@Test
+	public void getSubjectsPageTest() {
+		saveSubjects(5);
+
+		ResponseEntity<List<SubjectDto>> resp = template.exchange(
+				"http://localhost:" + serverPort + "api/subjects/?page=1&size=2", HttpMethod.GET, null,
+				new ParameterizedTypeReference<List<SubjectDto>>() {
+				});
+		assertEquals(HttpStatus.OK.value(), resp.getStatusCode().value());
+		assertEquals(2, resp.getBody().size());
+		assertEquals("5", resp.getHeaders().getFirst("X-Total-Count"));
+		assertEquals("Title 2", resp.getBody().get(0).getTitle());
+
+		ResponseEntity<Object> error = template.getForEntity(
+				"http://localhost:" + serverPort + "api/subjects/?page=0&size=0", Object.class);
+		assertEquals(HttpStatus.BAD_REQUEST.value(), error.getStatusCode().value());
+	}
+
+	@Test
+	public void getSubjectsCursorTest() {
+		saveSubjects(5);
+
+		List<String> titles = new ArrayList<>();
+		String cursor = null;
+		do {
+			String url = "http://localhost:" + serverPort + "api/subjects/?size=2"
+					+ (cursor == null ? "" : "&cursor=" + cursor);
+			ResponseEntity<List<SubjectDto>> resp = template.exchange(url, HttpMethod.GET, null,
+					new ParameterizedTypeReference<List<SubjectDto>>() {
+					});
+			assertEquals(HttpStatus.OK.value(), resp.getStatusCode().value());
+			resp.getBody().forEach(s -> titles.add(s.getTitle()));
+			cursor = resp.getHeaders().getFirst("X-Next-Cursor");
+		} while (cursor != null);
+
+		assertEquals(Arrays.asList("Title 4", "Title 3", "Title 2", "Title 1", "Title 0"), titles);
+
+		ResponseEntity<Object> error = template.getForEntity(
+				"http://localhost:" + serverPort + "api/subjects/?cursor=unknown", Object.class);
+		assertEquals(HttpStatus.BAD_REQUEST.value(), error.getStatusCode().value());
+	}
+
+	@Test
+	public void streamSubjectsTest() {
+		saveSubjects(3);
+
+		ResponseEntity<List<SubjectDto>> resp = template.exchange(
+				"http://localhost:" + serverPort + "api/subjects/?stream=true", HttpMethod.GET, null,
+				new ParameterizedTypeReference<List<SubjectDto>>() {
+				});
+		assertEquals(HttpStatus.OK.value(), resp.getStatusCode().value());
+		assertEquals(3, resp.getBody().size());
+		assertEquals("Title 2", resp.getBody().get(0).getTitle());
+	}
+
+	@Test
+	public void archivedSubjectsTest() {
+		saveSubjects(5);
+
+		String archivedUuid = null;
+		for (Subject l : repository.findAll()) {
+			if ("Title 1".equals(l.getTitle()) || "Title 3".equals(l.getTitle())) {
+				subjectStore.close(l, TallyUtil.finalResult(l, Date.from(Instant.now())));
+				subjectStore.archive(l, false);
+				archivedUuid = l.getUuid();
+			}
+		}
+		assertEquals(3, repository.count());
+
+		// Archived subjects are listed among the others, in the same order
+		ResponseEntity<List<SubjectDto>> resp = template.exchange(
+				"http://localhost:" + serverPort + "api/subjects/?page=1&size=2", HttpMethod.GET, null,
+				new ParameterizedTypeReference<List<SubjectDto>>() {
+				});
+		assertEquals("5", resp.getHeaders().getFirst("X-Total-Count"));
+		assertEquals("Title 2", resp.getBody().get(0).getTitle());
+		assertEquals("Title 1", resp.getBody().get(1).getTitle());
+
+		resp = template.exchange("http://localhost:" + serverPort + "api/subjects/?size=5", HttpMethod.GET, null,
+				new ParameterizedTypeReference<List<SubjectDto>>() {
+				});
+		assertEquals(5, resp.getBody().size());
+		assertEquals("Title 3", resp.getBody().get(1).getTitle());
+
+		resp = template.exchange("http://localhost:" + serverPort + "api/subjects/?stream=true", HttpMethod.GET, null,
+				new ParameterizedTypeReference<List<SubjectDto>>() {
+				});
+		assertEquals(5, resp.getBody().size());
+		assertEquals("Title 1", resp.getBody().get(3).getTitle());
+
+		ResponseEntity<SubjectDto> archived = template
+				.getForEntity("http://localhost:" + serverPort + "api/subjects/" + archivedUuid, SubjectDto.class);
+		assertEquals(HttpStatus.OK.value(), archived.getStatusCode().value());
+		assertTrue(archived.getBody().getIsClosed());
+		assertNotNull(archived.getBody().getFinalResult());
+	}
+
+	@Test
+	public void archivedSubjectFlagsTest() {
+		Subject l = new Subject();
+		l.setTitle("Title");
+		l.setDescription("Description");
+		l.setCollaboratorId("sandra.parlant@zenika.com");
+		Proposition p1 = new Proposition();
+		p1.setTitle("P1 title");
+		l.getPropositions().add(p1);
+		Power power = new Power();
+		power.setCollaboratorIdFrom("julie.bourhis@zenika.com");
+		power.setCollaboratorIdTo("sandra.parlant@zenika.com");
+		l.getPowers().add(power);
+		l = repository.save(l);
+
+		Vote v = new Vote();
+		WeightedChoice c = new WeightedChoice();
+		c.setPoints(1);
+		c.setPropositionId(p1.getId());
+		v.getChoices().add(c);
+		template.exchange("http://localhost:" + serverPort + "api/votes/" + l.getUuid(), HttpMethod.PUT,
+				new HttpEntity<>(v), Object.class);
+
+		Subject voted = subjectStore.findSubjectByUuid(l.getUuid()).get();
+		subjectStore.close(voted, TallyUtil.finalResult(voted, Date.from(Instant.now())));
+		subjectStore.archive(voted, false);
+
+		// Without its votes, the archived subject keeps the flags of its participants
+		ResponseEntity<SubjectDto> archived = template
+				.getForEntity("http://localhost:" + serverPort + "api/subjects/" + l.getUuid(), SubjectDto.class);
+		assertEquals(HttpStatus.OK.value(), archived.getStatusCode().value());
+		assertTrue(archived.getBody().getIsVoted());
+		assertEquals(1, archived.getBody().getReceivedDelegations());
+
+		ResponseEntity<List<SubjectDto>> resp = template.exchange(
+				"http://localhost:" + serverPort + "api/subjects/", HttpMethod.GET, null,
+				new ParameterizedTypeReference<List<SubjectDto>>() {
+				});
+		assertEquals(1, resp.getBody().size());
+		assertTrue(resp.getBody().get(0).getIsVoted());
+	}
+
+	@Test
+	public void normalizedSubjectsTest() {
+		categoryRepository.deleteAll();
+		Category category = new Category();
+		category.setTitle("Category");
+		categoryRepository.save(category);
+		saveSubjects(3);
+		for (Subject s : repository.findAll()) {
+			s.setCategory(category);
+			repository.save(s);
+		}
+
+		ResponseEntity<List<SubjectDto>> resp = template.exchange(
+				"http://localhost:" + serverPort + "api/subjects/", HttpMethod.GET, null,
+				new ParameterizedTypeReference<List<SubjectDto>>() {
+				});
+		assertEquals(HttpStatus.OK.value(), resp.getStatusCode().value());
+		assertEquals("Category", resp.getBody().get(0).getCategory().getTitle());
+		assertNull(resp.getBody().get(0).getCategoryUuid());
+
+		ResponseEntity<SubjectListDto> normalized = template.getForEntity(
+				"http://localhost:" + serverPort + "api/subjects/?normalized=true&page=0&size=2", SubjectListDto.class);
+		assertEquals(HttpStatus.OK.value(), normalized.getStatusCode().value());
+		assertEquals("3", normalized.getHeaders().getFirst("X-Total-Count"));
+		assertEquals(2, normalized.getBody().getSubjects().size());
+		assertEquals(1, normalized.getBody().getCategories().size());
+		assertEquals("Category", normalized.getBody().getCategories().get(category.getUuid()).getTitle());
+		assertTrue(normalized.getBody().getChannels().isEmpty());
+		assertNull(normalized.getBody().getSubjects().get(0).getCategory());
+		assertEquals(category.getUuid(), normalized.getBody().getSubjects().get(1).getCategoryUuid());
+
+		categoryRepository.deleteAll();
+	}
+
+	private void saveSubjects(int count) {
+		Instant submitted = Instant.now().minus(1, ChronoUnit.DAYS);
+		for (int i = 0; i < count; i++) {
+			Subject l = new Subject();
+			l.setTitle("Title " + i);
+			l.setDescription("Description");
+			l.setCollaboratorId("sandra.parlant@zenika.com");
+			Proposition p1 = new Proposition();
+			Proposition p2 = new Proposition();
+			p1.setTitle("P1 title");
+			p2.setTitle("P2 title");
+			l.getPropositions().add(p1);
+			l.getPropositions().add(p2);
+			// Two subjects submitted at the same time are ordered by uuid
+			l.setSubmitDate(Date.from(submitted.plus(i / 2, ChronoUnit.HOURS)));
+			repository.save(l);
+		}
+	}
+
 }
@@ -13,8 +13,10 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.SpringApplicationConfiguration;
 import org.springframework.boot.test.WebIntegrationTest;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
@@ -23,11 +25,14 @@ import org.springframework.web.client.RestTemplate;
 
 import com.zenika.liquid.democracy.Application;
 import com.zenika.liquid.democracy.api.subject.persistence.SubjectRepository;
+import com.zenika.liquid.democracy.authentication.persistence.CollaboratorRepository;
+import com.zenika.liquid.democracy.dto.BallotResultDto;
 import com.zenika.liquid.democracy.model.Power;
 import com.zenika.liquid.democracy.model.Proposition;
 import com.zenika.liquid.democracy.model.Subject;
 import com.zenika.liquid.democracy.model.Vote;
 import com.zenika.liquid.democracy.model.WeightedChoice;
+import com.zenika.si.core.zenika.model.Collaborator;
 
 @RunWith(SpringJUnit4ClassRunner.class)
 @SpringApplicationConfiguration(classes = Application.class)
@@ -38,6 +43,9 @@ public class VoteControllerTest {
 	@Autowired
 	SubjectRepository repository;
 
+	@Autowired
+	CollaboratorRepository collaboratorRepository;
+
 	@Value("${local.server.port}")
 	private int serverPort;
 
@@ -265,4 +273,89 @@ public class VoteControllerTest {
 		assertEquals(true, addResp.getBody().toString().contains("VotePropositionIncorrectException"));
 	}
 
+	@Test
+	public void importBallotsTest() {
+		Subject s = new Subject();
+		s.setTitle("Title");
+		s.setDescription("Description");
+		s.setCollaboratorId("sandra.parlant@zenika.com");
+		Proposition p1 = new Proposition();
+		Proposition p2 = new Proposition();
+		s.getPropositions().add(p1);
+		s.getPropositions().add(p2);
+		p1.setTitle("P1 title");
+		p2.setTitle("P2 title");
+		repository.save(s);
+
+		Collaborator julie = new Collaborator();
+		julie.setCollaboratorId("julie.bourhis");
+		julie.setEmail("julie.bourhis@zenika.com");
+		collaboratorRepository.save(julie);
+
+		String ballots = "{\"collaboratorId\":\"julie.bourhis@zenika.com\",\"choices\":[{\"propositionId\":\""
+		        + p1.getId() + "\",\"points\":1}]}\n"
+		        + "\n"
+		        + "not a ballot\n"
+		        + "{\"collaboratorId\":\"julie.bourhis@zenika.com\",\"choices\":[{\"propositionId\":\""
+		        + p2.getId() + "\",\"points\":1}]}\n"
+		        + "{\"collaboratorId\":\"julie.bourhis@zenika.com\",\"choices\":null}\n"
+		        + "{\"collaboratorId\":\"gwenael.cadoret@zenika.com\",\"choices\":[{\"propositionId\":\""
+		        + p1.getId() + "\",\"points\":1}]}\n";
+
+		ResponseEntity<BallotResultDto[]> importResp = template.exchange(
+		        "http://localhost:" + serverPort + "api/votes/" + s.getUuid() + "/import", HttpMethod.POST,
+		        new HttpEntity<>(ballots, ndjsonHeaders()), BallotResultDto[].class);
+		assertNotNull(importResp);
+		assertEquals(HttpStatus.OK.value(), importResp.getStatusCode().value());
+		assertEquals(5, importResp.getBody().length);
+		assertEquals(1, importResp.getBody()[0].getLine());
+		assertEquals(true, importResp.getBody()[0].isAccepted());
+		assertEquals(3, importResp.getBody()[1].getLine());
+		assertEquals("MalformedBallot", importResp.getBody()[1].getError());
+		assertEquals(4, importResp.getBody()[2].getLine());
+		assertEquals("UserAlreadyVoteException", importResp.getBody()[2].getError());
+		assertEquals(5, importResp.getBody()[3].getLine());
+		assertEquals("MalformedBallot", importResp.getBody()[3].getError());
+		assertEquals(6, importResp.getBody()[4].getLine());
+		assertEquals(false, importResp.getBody()[4].isAccepted());
+		assertEquals("UnknownCollaborator", importResp.getBody()[4].getError());
+
+		Optional<Subject> savedSubject = repository.findSubjectByUuid(s.getUuid());
+		assertEquals(true, savedSubject.isPresent());
+		assertEquals(true, savedSubject.get().findVote("julie.bourhis@zenika.com").isPresent());
+		assertEquals(1, savedSubject.get().getPropositions().get(0).getPoints());
+		collaboratorRepository.delete(julie);
+	}
+
+	@Test
+	public void importBallotsForOthersSubjectTest() {
+		Subject s = new Subject();
+		s.setTitle("Title");
+		s.setDescription("Description");
+		s.setCollaboratorId("julie.bourhis@zenika.com");
+		Proposition p1 = new Proposition();
+		s.getPropositions().add(p1);
+		p1.setTitle("P1 title");
+		repository.save(s);
+
+		String ballots = "{\"collaboratorId\":\"gwenael.cadoret@zenika.com\",\"choices\":[{\"propositionId\":\""
+		        + p1.getId() + "\",\"points\":1}]}\n";
+
+		ResponseEntity<Object> importResp = template.exchange(
+		        "http://localhost:" + serverPort + "api/votes/" + s.getUuid() + "/import", HttpMethod.POST,
+		        new HttpEntity<>(ballots, ndjsonHeaders()), Object.class);
+		assertNotNull(importResp);
+		assertEquals(HttpStatus.FORBIDDEN.value(), importResp.getStatusCode().value());
+
+		Optional<Subject> savedSubject = repository.findSubjectByUuid(s.getUuid());
+		assertEquals(true, savedSubject.isPresent());
+		assertEquals(false, savedSubject.get().findVote("gwenael.cadoret@zenika.com").isPresent());
+	}
+
+	private HttpHeaders ndjsonHeaders() {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(MediaType.parseMediaType("application/x-ndjson"));
+		return headers;
+	}
+
 }
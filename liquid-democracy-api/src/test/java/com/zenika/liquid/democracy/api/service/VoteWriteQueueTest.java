@@ -0,0 +1,364 @@
+package com.zenika.liquid.democracy.api.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.util.CloseableIterator;
+
+import com.codahale.metrics.MetricRegistry;
+import com.zenika.liquid.democracy.api.subject.persistence.Participation;
+import com.zenika.liquid.democracy.api.subject.persistence.SubjectCursor;
+import com.zenika.liquid.democracy.api.subject.persistence.SubjectStore;
+import com.zenika.liquid.democracy.api.vote.exception.TooManyPointsException;
+import com.zenika.liquid.democracy.api.vote.exception.UserAlreadyVoteException;
+import com.zenika.liquid.democracy.api.vote.exception.VoteForNonExistingSubjectException;
+import com.zenika.liquid.democracy.api.vote.service.impl.VoteWriteQueue;
+import com.zenika.liquid.democracy.model.FinalResult;
+import com.zenika.liquid.democracy.model.Power;
+import com.zenika.liquid.democracy.model.Proposition;
+import com.zenika.liquid.democracy.model.Subject;
+import com.zenika.liquid.democracy.model.Vote;
+import com.zenika.liquid.democracy.model.WeightedChoice;
+
+public class VoteWriteQueueTest {
+
+	private InMemorySubjectStore store;
+
+	private MetricRegistry metrics;
+
+	private VoteWriteQueue queue;
+
+	@Before
+	public void setUp() {
+		store = new InMemorySubjectStore();
+		metrics = new MetricRegistry();
+		queue = new VoteWriteQueue(store, metrics);
+		queue.start();
+	}
+
+	@After
+	public void tearDown() {
+		queue.stop();
+	}
+
+	@Test
+	public void concurrentVotesAreAllSavedTest() throws Exception {
+		int voters = 50;
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+		CountDownLatch start = new CountDownLatch(1);
+
+		List<Future<?>> results = new ArrayList<>();
+		for (int i = 0; i < voters; i++) {
+			String userId = "user" + i + "@zenika.com";
+			Vote vote = generateVote(i % 2);
+			results.add(executor.submit(() -> {
+				start.await();
+				queue.submit("subject", userId, vote);
+				return null;
+			}));
+		}
+		start.countDown();
+
+		for (Future<?> result : results) {
+			result.get(10, TimeUnit.SECONDS);
+		}
+		executor.shutdown();
+
+		assertEquals(voters, store.subject.getVotes().size());
+		assertEquals(voters, store.saves.get() + metrics.counter("votes.saves.avoided").getCount());
+		// Two writers on the subject would have conflicted on its version
+		assertEquals(0, metrics.counter("votes.lock.retries").getCount());
+		assertEquals(25, store.subject.getPropositions().get(0).getPoints());
+		assertEquals(25, store.subject.getPropositions().get(1).getPoints());
+	}
+
+	@Test
+	public void refusedVoteDoesNotFailBatchTest() {
+		Vote tooMany = generateVote(0);
+		tooMany.getChoices().get(0).setPoints(5);
+
+		try {
+			queue.submit("subject", "julie.bourhis@zenika.com", tooMany);
+			fail("Vote with too many points saved");
+		} catch (TooManyPointsException e) {
+			// expected
+		}
+		queue.submit("subject", "sandra.parlant@zenika.com", generateVote(1));
+
+		assertEquals(1, store.subject.getVotes().size());
+		assertEquals(1, store.subject.getPropositions().get(1).getPoints());
+	}
+
+	@Test
+	public void lockFailureIsRetriedTest() {
+		store.conflicts.set(2);
+
+		queue.submit("subject", "sandra.parlant@zenika.com", generateVote(0));
+
+		assertEquals(1, store.subject.getVotes().size());
+		assertEquals(2, metrics.counter("votes.lock.retries").getCount());
+	}
+
+	@Test(expected = VoteForNonExistingSubjectException.class)
+	public void voteForNonExistingSubjectTest() {
+		queue.submit("unknown", "sandra.parlant@zenika.com", generateVote(0));
+	}
+
+	@Test
+	public void voteCarriesDelegationsTest() {
+		Power p = new Power();
+		p.setCollaboratorIdFrom("julie.bourhis@zenika.com");
+		p.setCollaboratorIdTo("sandra.parlant@zenika.com");
+		store.subject.getPowers().add(p);
+
+		queue.submit("subject", "sandra.parlant@zenika.com", generateVote(1));
+
+		assertEquals(2, store.subject.getPropositions().get(1).getPoints());
+		assertTrue(store.subject.isVoted("julie.bourhis@zenika.com"));
+		assertEquals(2, store.subject.getParticipantCount());
+		assertTrue(store.subject.getParticipantIds().contains("julie.bourhis@zenika.com"));
+	}
+
+	@Test
+	public void ballotsAreSavedTogetherTest() {
+		List<Vote> ballots = new ArrayList<>();
+		ballots.add(generateBallot("julie.bourhis@zenika.com", 0));
+		ballots.add(generateBallot("sandra.parlant@zenika.com", 1));
+		ballots.add(generateBallot("julie.bourhis@zenika.com", 1));
+		Vote tooMany = generateBallot("gwenael.cadoret@zenika.com", 0);
+		tooMany.getChoices().get(0).setPoints(5);
+		ballots.add(tooMany);
+
+		List<RuntimeException> refusals = queue.submitAll("subject", ballots);
+
+		assertEquals(4, refusals.size());
+		assertNull(refusals.get(0));
+		assertNull(refusals.get(1));
+		assertTrue(refusals.get(2) instanceof UserAlreadyVoteException);
+		assertTrue(refusals.get(3) instanceof TooManyPointsException);
+		assertEquals(1, store.saves.get());
+		assertEquals(2, store.subject.getVotes().size());
+		assertEquals(1, store.subject.getPropositions().get(0).getPoints());
+		assertEquals(1, store.subject.getPropositions().get(1).getPoints());
+	}
+
+	private Vote generateBallot(String collaboratorId, int proposition) {
+		Vote v = generateVote(proposition);
+		v.setCollaboratorId(collaboratorId);
+		return v;
+	}
+
+	private Vote generateVote(int proposition) {
+		Vote v = new Vote();
+		WeightedChoice c = new WeightedChoice();
+		c.setPoints(1);
+		c.setPropositionId(store.subject.getPropositions().get(proposition).getId());
+		v.getChoices().add(c);
+		return v;
+	}
+
+	/**
+	 * Keeps one subject, handed out as a copy to mimic a load from the database.
+	 */
+	private static class InMemorySubjectStore implements SubjectStore {
+
+		private Subject subject;
+
+		private int version;
+
+		private final AtomicInteger saves = new AtomicInteger();
+
+		private final AtomicInteger conflicts = new AtomicInteger();
+
+		private InMemorySubjectStore() {
+			subject = new Subject();
+			subject.setId("subject");
+			subject.setTitle("Title");
+			subject.setDescription("Description");
+			Proposition p1 = new Proposition();
+			Proposition p2 = new Proposition();
+			p1.setTitle("P1 title");
+			p2.setTitle("P2 title");
+			subject.getPropositions().add(p1);
+			subject.getPropositions().add(p2);
+		}
+
+		@Override
+		public synchronized Optional<Subject> findSubjectByUuid(String subjectUuid) {
+			if (!"subject".equals(subjectUuid)) {
+				return Optional.empty();
+			}
+
+			Subject s = new Subject();
+			s.setId(subject.getUuid());
+			s.setVersion(String.valueOf(version));
+			s.setTitle(subject.getTitle());
+			s.setDescription(subject.getDescription());
+			s.setTalliedVoteCount(subject.getTalliedVoteCount());
+			s.setParticipantIds(new HashSet<>(subject.getParticipantIds()));
+			s.setParticipantCount(subject.getParticipantCount());
+			for (Proposition p : subject.getPropositions()) {
+				Proposition copy = new Proposition();
+				copy.setId(p.getId());
+				copy.setTitle(p.getTitle());
+				copy.setPoints(p.getPoints());
+				s.getPropositions().add(copy);
+			}
+			s.getVotes().addAll(subject.getVotes());
+			s.getPowers().addAll(subject.getPowers());
+			return Optional.of(s);
+		}
+
+		@Override
+		public synchronized List<Vote> saveVotes(Subject s, List<Vote> votes) {
+			if (conflicts.getAndDecrement() > 0 || !String.valueOf(version).equals(s.getVersion())) {
+				throw new OptimisticLockingFailureException("Subject modified");
+			}
+			version++;
+			saves.incrementAndGet();
+			subject = s;
+			return Collections.emptyList();
+		}
+
+		@Override
+		public List<Subject> findByDeadLineGreaterThanOrDeadLineIsNull(Date d) {
+			return Collections.singletonList(subject);
+		}
+
+		@Override
+		public List<Subject> findSubjectByCategoryUuid(String categoryUuid) {
+			return Collections.emptyList();
+		}
+
+		@Override
+		public List<Subject> findAll() {
+			return Collections.singletonList(subject);
+		}
+
+		@Override
+		public List<Subject> findSummaries() {
+			return Collections.singletonList(subject);
+		}
+
+		@Override
+		public List<Subject> findSummariesInProgress(Date d) {
+			return Collections.singletonList(subject);
+		}
+
+		@Override
+		public Page<Subject> findSummaries(boolean inProgressOnly, Pageable pageable) {
+			return new PageImpl<>(Collections.singletonList(subject));
+		}
+
+		@Override
+		public List<Subject> findSummaries(SubjectCursor cursor, Direction direction, boolean inProgressOnly, int size) {
+			return Collections.singletonList(subject);
+		}
+
+		@Override
+		public CloseableIterator<Subject> streamSummaries(boolean inProgressOnly) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public List<Subject> findClosingBefore(Date end) {
+			return Collections.emptyList();
+		}
+
+		@Override
+		public Optional<Subject> findClosedSubject(String subjectUuid) {
+			return Optional.empty();
+		}
+
+		@Override
+		public boolean close(Subject s, FinalResult finalResult) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public List<Subject> findArchivable(Date closedBefore, int size) {
+			return Collections.emptyList();
+		}
+
+		@Override
+		public void archive(Subject s, boolean keepVotes) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Map<String, Participation> findParticipations(Collection<String> subjectUuids, String userId) {
+			return Collections.emptyMap();
+		}
+
+		@Override
+		public void loadReferences(List<Subject> summaries) {
+		}
+
+		@Override
+		public List<Subject> findDelegableSubjects(String categoryUuid, String userId) {
+			return Collections.emptyList();
+		}
+
+		@Override
+		public List<Subject> findDelegatedSubjects(String categoryUuid, String userId, String collaboratorIdTo) {
+			return Collections.emptyList();
+		}
+
+		@Override
+		public Subject save(Subject s) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void savePower(Subject s, Power power) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void deletePower(Subject s, Power power) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Set<String> savePowers(Map<Subject, Power> powers) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Set<String> deletePowers(Map<Subject, Power> powers) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void delete(Subject s) {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+}
@@ -0,0 +1,59 @@
+package com.zenika.liquid.democracy.api.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.zenika.liquid.democracy.api.aspect.ArgumentSummary;
+import com.zenika.liquid.democracy.model.Power;
+import com.zenika.liquid.democracy.model.Proposition;
+import com.zenika.liquid.democracy.model.Subject;
+import com.zenika.liquid.democracy.model.Vote;
+import com.zenika.liquid.democracy.model.WeightedChoice;
+
+public class ArgumentSummaryTest {
+
+	@Test
+	public void summaryKeepsIdsAndSizesTest() {
+		Subject s = new Subject();
+		s.setId("subject");
+		s.setDescription("A description which must not be logged");
+		s.getPropositions().add(new Proposition());
+		s.getPropositions().add(new Proposition());
+
+		Vote v = new Vote();
+		v.setCollaboratorId("sandra.parlant@zenika.com");
+		v.getChoices().add(new WeightedChoice());
+
+		Power p = new Power();
+		p.setCollaboratorIdFrom("julie.bourhis@zenika.com");
+		p.setCollaboratorIdTo("sandra.parlant@zenika.com");
+
+		assertEquals("[subject{uuid=subject,propositions=2,votes=0,powers=0},"
+		        + "vote{collaborator=sandra.parlant@zenika.com,choices=1},"
+		        + "power{from=julie.bourhis@zenika.com,to=sandra.parlant@zenika.com},collection{size=3},null,12]",
+		        ArgumentSummary.of(new Object[] { s, v, p, Arrays.asList(1, 2, 3), null, 12 }));
+	}
+
+	@Test
+	public void summaryOfNullListsTest() {
+		Vote v = new Vote();
+		v.setCollaboratorId("sandra.parlant@zenika.com");
+		v.setChoices(null);
+
+		assertEquals("vote{collaborator=sandra.parlant@zenika.com,choices=null}", ArgumentSummary.of(v));
+	}
+
+	@Test
+	public void summaryTruncatesLongStringsTest() {
+		char[] chars = new char[1000];
+		Arrays.fill(chars, 'a');
+
+		assertEquals(64 + "...".length(), ArgumentSummary.of(new String(chars)).length());
+		assertEquals("[]", ArgumentSummary.of(new Object[0]));
+		assertEquals("Object", ArgumentSummary.of(new Object()));
+	}
+
+}
@@ -0,0 +1,56 @@
+package com.zenika.liquid.democracy.api.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import com.zenika.liquid.democracy.api.collaborator.util.CollaboratorIndex;
+import com.zenika.si.core.zenika.model.Collaborator;
+
+public class CollaboratorIndexTest {
+
+	private final CollaboratorIndex index = CollaboratorIndex.of(Arrays.asList(
+	        collaborator("sandra.parlant@zenika.com", "Sandra", "Parlant"),
+	        collaborator("julie.bourhis@zenika.com", "Julie", "Bourhis"),
+	        collaborator("jerome.bernard@zenika.com", "Jérôme", "Bernard"),
+	        collaborator("julien.parlant@zenika.com", "Julien", "Parlant")));
+
+	@Test
+	public void searchByPrefixTest() {
+		assertEquals(Arrays.asList("julie.bourhis@zenika.com", "julien.parlant@zenika.com"), emails("jul", 0, 10));
+		assertEquals(Arrays.asList("julien.parlant@zenika.com", "sandra.parlant@zenika.com"), emails("PARL", 0, 10));
+		assertEquals(Arrays.asList("jerome.bernard@zenika.com"), emails("jérô", 0, 10));
+		assertEquals(Arrays.asList("julien.parlant@zenika.com"), emails("parlant jul", 0, 10));
+		assertEquals(Arrays.asList(), emails("zorro", 0, 10));
+	}
+
+	@Test
+	public void searchPagesTest() {
+		Page<Collaborator> page = index.search("", new PageRequest(1, 3));
+
+		assertEquals(4, page.getTotalElements());
+		assertEquals(1, page.getContent().size());
+		assertEquals(Arrays.asList("jerome.bernard@zenika.com", "julie.bourhis@zenika.com"), emails(" ", 0, 2));
+	}
+
+	private List<String> emails(String query, int page, int size) {
+		return index.search(query, new PageRequest(page, size)).getContent().stream().map(Collaborator::getEmail)
+		        .collect(Collectors.toList());
+	}
+
+	private static Collaborator collaborator(String email, String firstName, String lastName) {
+		Collaborator c = new Collaborator();
+		c.setCollaboratorId(email);
+		c.setEmail(email);
+		c.setFirstName(firstName);
+		c.setLastName(lastName);
+		return c;
+	}
+
+}
@@ -0,0 +1,131 @@
+package com.zenika.liquid.democracy.api.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.zenika.liquid.democracy.dto.CollaboratorDto;
+import com.zenika.liquid.democracy.dto.DtoMapper;
+import com.zenika.liquid.democracy.dto.SubjectDto;
+import com.zenika.liquid.democracy.dto.SubjectListDto;
+import com.zenika.liquid.democracy.model.Category;
+import com.zenika.liquid.democracy.model.Channel;
+import com.zenika.liquid.democracy.model.Power;
+import com.zenika.liquid.democracy.model.Proposition;
+import com.zenika.liquid.democracy.model.Subject;
+import com.zenika.si.core.zenika.model.Collaborator;
+
+public class DtoMapperTest {
+
+	@Test
+	public void subjectFieldsAreCopiedTest() {
+		Subject s = generateSubject("subject", generateCategory("category"), null);
+
+		SubjectDto dto = new DtoMapper().toDto(s);
+
+		assertEquals("subject", dto.getUuid());
+		assertEquals("Title", dto.getTitle());
+		assertEquals("sandra.parlant@zenika.com", dto.getCollaboratorId());
+		assertEquals(s.getDeadLine(), dto.getDeadLine());
+		assertEquals(2, dto.getMaxPoints());
+		assertEquals(2, dto.getPropositions().size());
+		assertEquals("p1", dto.getPropositions().get(1).getId());
+		assertEquals(3, dto.getPropositions().get(1).getPoints());
+		assertEquals("category", dto.getCategory().getUuid());
+		assertNull(dto.getCategory().getGivenDelegation());
+		assertNull(dto.getChannel());
+		assertNull(dto.getFinalResult());
+	}
+
+	@Test
+	public void categoriesAndChannelsAreSharedWithinOneMapperTest() {
+		Channel channel = new Channel();
+		channel.setUuid("channel");
+		channel.setMemberCount(4);
+		Category category = generateCategory("category");
+
+		DtoMapper mapper = new DtoMapper();
+		SubjectDto first = mapper.toDto(generateSubject("first", category, channel));
+		SubjectDto second = mapper.toDto(generateSubject("second", category, channel));
+
+		assertSame(first.getCategory(), second.getCategory());
+		assertSame(first.getChannel(), second.getChannel());
+		assertEquals(4, first.getChannel().getMemberCount());
+		assertNull(first.getChannel().getCollaborators());
+		assertNotSame(first.getCategory(), new DtoMapper().toDto(generateSubject("third", category, channel))
+		        .getCategory());
+	}
+
+	@Test
+	public void normalizeMovesCategoriesAndChannelsOutTest() {
+		Category category = generateCategory("category");
+		DtoMapper mapper = new DtoMapper();
+		List<SubjectDto> subjects = Arrays.asList(mapper.toDto(generateSubject("first", category, null)),
+		        mapper.toDto(generateSubject("second", category, null)), mapper.toDto(generateSubject("third", null, null)));
+
+		SubjectListDto list = DtoMapper.normalize(subjects);
+
+		assertEquals(3, list.getSubjects().size());
+		assertEquals(1, list.getCategories().size());
+		assertEquals("Category", list.getCategories().get("category").getTitle());
+		assertEquals(0, list.getChannels().size());
+		assertNull(list.getSubjects().get(0).getCategory());
+		assertEquals("category", list.getSubjects().get(1).getCategoryUuid());
+		assertNull(list.getSubjects().get(2).getCategoryUuid());
+	}
+
+	@Test
+	public void collaboratorsAreCopiedTest() {
+		Collaborator c = new Collaborator();
+		c.setCollaboratorId("sandra.parlant");
+		c.setEmail("sandra.parlant@zenika.com");
+		c.setFirstName("Sandra");
+		c.setLastName("Parlant");
+
+		List<CollaboratorDto> dtos = Arrays.asList(c).stream().map(DtoMapper::toDto).collect(Collectors.toList());
+
+		assertEquals("sandra.parlant", dtos.get(0).getCollaboratorId());
+		assertEquals("sandra.parlant@zenika.com", dtos.get(0).getEmail());
+		assertEquals("Sandra", dtos.get(0).getFirstName());
+		assertEquals("Parlant", dtos.get(0).getLastName());
+	}
+
+	private Subject generateSubject(String uuid, Category category, Channel channel) {
+		Subject s = new Subject();
+		s.setId(uuid);
+		s.setTitle("Title");
+		s.setCollaboratorId("sandra.parlant@zenika.com");
+		s.setDeadLine(new Date());
+		s.setMaxPoints(2);
+		s.setCategory(category);
+		s.setChannel(channel);
+		for (int i = 0; i < 2; i++) {
+			Proposition p = new Proposition();
+			p.setId("p" + i);
+			p.setTitle("Proposition " + i);
+			p.setPoints(3 * i);
+			s.getPropositions().add(p);
+		}
+		return s;
+	}
+
+	private Category generateCategory(String uuid) {
+		Category c = new Category();
+		c.setUuid(uuid);
+		c.setTitle("Category");
+		Power p = new Power();
+		p.setCollaboratorIdFrom("julie.bourhis@zenika.com");
+		p.setCollaboratorIdTo("sandra.parlant@zenika.com");
+		c.addPower(p);
+		return c;
+	}
+
+}
@@ -12,6 +12,8 @@ import org.junit.Test;
 import java.util.Calendar;
 import java.util.Date;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class PowerUtilTest {
@@ -294,4 +296,116 @@ public class PowerUtilTest {
 		PowerUtil.checkPowerForDelete(s, "sandra.parlant@zenika.com");
 	}
 
+	@Test(expected = CircularPowerDependencyException.class)
+	public void testCheckPowerForAddition_LongChainCircularKO() {
+		Calendar calendar = Calendar.getInstance();
+		calendar.add(Calendar.YEAR, 1);
+
+		Subject s = new Subject();
+		s.setTitle("Title");
+		s.setDescription("Description");
+		s.setDeadLine(calendar.getTime());
+
+		// user0 -> user1 -> ... -> user999
+		for (int i = 0; i < 999; i++) {
+			Power p = new Power();
+			p.setCollaboratorIdFrom("user" + i + "@zenika.com");
+			p.setCollaboratorIdTo("user" + (i + 1) + "@zenika.com");
+			s.getPowers().add(p);
+		}
+
+		Power p = new Power();
+		p.setCollaboratorIdTo("user0@zenika.com");
+
+		PowerUtil.checkPowerForAddition(p, s, "user999@zenika.com");
+	}
+
+	@Test
+	public void testCheckPowerForAddition_LongChainOK() {
+		Calendar calendar = Calendar.getInstance();
+		calendar.add(Calendar.YEAR, 1);
+
+		Subject s = new Subject();
+		s.setTitle("Title");
+		s.setDescription("Description");
+		s.setDeadLine(calendar.getTime());
+
+		for (int i = 0; i < 999; i++) {
+			Power p = new Power();
+			p.setCollaboratorIdFrom("user" + i + "@zenika.com");
+			p.setCollaboratorIdTo("user" + (i + 1) + "@zenika.com");
+			PowerUtil.preparePower(p, s, "user" + i + "@zenika.com");
+		}
+
+		Power p = new Power();
+		p.setCollaboratorIdTo("user500@zenika.com");
+
+		PowerUtil.checkPowerForAddition(p, s, "sandra.parlant@zenika.com");
+
+		assertEquals(999, PowerUtil.countDelegators(s, "user999@zenika.com"));
+		assertEquals(1, s.getReceivedDelegations("user500@zenika.com"));
+	}
+
+	@Test(expected = CircularPowerDependencyException.class)
+	public void testCheckCategoryPowerForAddition_CircularKO() {
+		Category c = new Category();
+
+		Power p1 = new Power();
+		p1.setCollaboratorIdFrom("sandra.parlant@zenika.com");
+		p1.setCollaboratorIdTo("julie.bourhis@zenika.com");
+		c.getPowers().add(p1);
+
+		Power p2 = new Power();
+		p2.setCollaboratorIdFrom("julie.bourhis@zenika.com");
+		p2.setCollaboratorIdTo("guillaume.gerbaud@zenika.com");
+		c.getPowers().add(p2);
+
+		Power p = new Power();
+		p.setCollaboratorIdTo("sandra.parlant@zenika.com");
+
+		PowerUtil.checkCategoryPowerForAddition(p, c, "guillaume.gerbaud@zenika.com");
+	}
+
+	@Test
+	public void testCategoryPower_UpdatesDelegationGraph() {
+		Category c = new Category();
+
+		Power p = new Power();
+		p.setCollaboratorIdTo("julie.bourhis@zenika.com");
+		PowerUtil.prepareCategoryPower(p, c, "sandra.parlant@zenika.com");
+
+		assertEquals("julie.bourhis@zenika.com", c.getGivenDelegation("sandra.parlant@zenika.com"));
+		assertEquals(1, c.getDelegationGraph().getPowersTo("julie.bourhis@zenika.com").size());
+
+		c.removePower(p);
+		assertFalse(c.findPower("sandra.parlant@zenika.com").isPresent());
+		assertEquals(0, c.getPowers().size());
+	}
+
+	@Test
+	public void testRemovePower_UpdatesDelegationGraph() {
+		Subject s = new Subject();
+
+		Power p1 = new Power();
+		p1.setCollaboratorIdFrom("sandra.parlant@zenika.com");
+		p1.setCollaboratorIdTo("julie.bourhis@zenika.com");
+		s.addPower(p1);
+
+		assertEquals(1, s.getReceivedDelegations("julie.bourhis@zenika.com"));
+
+		s.removePower(p1);
+
+		assertEquals(0, s.getReceivedDelegations("julie.bourhis@zenika.com"));
+		assertFalse(s.findPower("sandra.parlant@zenika.com").isPresent());
+
+		// Une délégation ajoutée directement à la liste est prise en compte
+		Power p2 = new Power();
+		p2.setCollaboratorIdFrom("guillaume.gerbaud@zenika.com");
+		p2.setCollaboratorIdTo("julie.bourhis@zenika.com");
+		s.getPowers().add(p2);
+
+		assertEquals(1, s.getReceivedDelegations("julie.bourhis@zenika.com"));
+		assertTrue(s.findPower("guillaume.gerbaud@zenika.com").isPresent());
+	}
+
 }
@@ -0,0 +1,96 @@
+package com.zenika.liquid.democracy.api.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.zenika.liquid.democracy.api.subject.util.ResultUtil;
+import com.zenika.liquid.democracy.dto.ResultEventDto;
+import com.zenika.liquid.democracy.model.Proposition;
+import com.zenika.liquid.democracy.model.Subject;
+
+public class ResultUtilTest {
+
+	@Test
+	public void snapshotListsEveryPropositionTest() {
+		Subject s = generateSubject();
+
+		ResultEventDto snapshot = ResultUtil.snapshot(s);
+
+		assertTrue(snapshot.isSnapshot());
+		assertEquals(2, snapshot.getPropositions().size());
+		assertEquals(0, snapshot.getPropositions().get(0).getDelta());
+	}
+
+	@Test
+	public void diffListsChangedPropositionsTest() {
+		Subject s = generateSubject();
+		ResultEventDto previous = ResultUtil.snapshot(s);
+
+		assertNull(ResultUtil.diff(previous, s));
+
+		s.getPropositions().get(1).setPoints(5);
+		ResultEventDto event = ResultUtil.diff(previous, s);
+
+		assertFalse(event.isSnapshot());
+		assertEquals(1, event.getPropositions().size());
+		assertEquals(s.getPropositions().get(1).getId(), event.getPropositions().get(0).getId());
+		assertEquals(5, event.getPropositions().get(0).getPoints());
+		assertEquals(3, event.getPropositions().get(0).getDelta());
+	}
+
+	@Test
+	public void countsOnlyHidesThePointsTest() {
+		Subject s = generateSubject();
+
+		ResultEventDto snapshot = ResultUtil.snapshot(s);
+		ResultEventDto counts = ResultUtil.countsOnly(snapshot);
+
+		assertFalse(counts.isSnapshot());
+		assertTrue(counts.getPropositions().isEmpty());
+		assertEquals(snapshot.getSubjectUuid(), counts.getSubjectUuid());
+		assertEquals(snapshot.getVoteCount(), counts.getVoteCount());
+		assertEquals(2, snapshot.getPropositions().size());
+	}
+
+	@Test
+	public void mergeKeepsEveryChangedPropositionTest() {
+		Subject s = generateSubject();
+		ResultEventDto previous = ResultUtil.snapshot(s);
+
+		s.getPropositions().get(0).setPoints(4);
+		ResultEventDto first = ResultUtil.diff(previous, s);
+		previous = ResultUtil.snapshot(s);
+		s.getPropositions().get(1).setPoints(3);
+		ResultEventDto second = ResultUtil.diff(previous, s);
+		previous = ResultUtil.snapshot(s);
+		s.getPropositions().get(0).setPoints(6);
+		ResultEventDto third = ResultUtil.diff(previous, s);
+
+		ResultEventDto merged = ResultUtil.merge(ResultUtil.merge(first, second), third);
+
+		assertFalse(merged.isSnapshot());
+		assertEquals(2, merged.getPropositions().size());
+		assertEquals(6, merged.getPropositions().get(0).getPoints());
+		assertEquals(5, merged.getPropositions().get(0).getDelta());
+		assertEquals(3, merged.getPropositions().get(1).getPoints());
+		assertEquals(1, merged.getPropositions().get(1).getDelta());
+		assertEquals(4, first.getPropositions().get(0).getPoints());
+	}
+
+	private Subject generateSubject() {
+		Subject s = new Subject();
+		s.setId("subject");
+		Proposition p1 = new Proposition();
+		p1.setPoints(1);
+		Proposition p2 = new Proposition();
+		p2.setPoints(2);
+		s.getPropositions().add(p1);
+		s.getPropositions().add(p2);
+		return s;
+	}
+
+}
@@ -0,0 +1,200 @@
+package com.zenika.liquid.democracy.api.util;
+
+import com.zenika.liquid.democracy.api.power.util.PowerUtil;
+import com.zenika.liquid.democracy.api.vote.util.TallyUtil;
+import com.zenika.liquid.democracy.api.vote.util.VoteUtil;
+import com.zenika.liquid.democracy.model.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TallyUtilTest {
+
+	@Test
+	public void applyVotesAddsOnlyDelta() {
+		Subject s = generateSubject();
+
+		VoteUtil.prepareVotes(generateVote(s, 0, 1), s, "sandra.parlant@zenika.com");
+		VoteUtil.prepareVotes(generateVote(s, 1, 1), s, "julie.bourhis@zenika.com");
+
+		// Un compteur modifié à la main n'est pas recalculé par un ajout incrémental
+		s.getPropositions().get(0).setPoints(10);
+		VoteUtil.prepareVotes(generateVote(s, 1, 1), s, "guillaume.gerbaud@zenika.com");
+
+		assertEquals(10, s.getPropositions().get(0).getPoints());
+		assertEquals(2, s.getPropositions().get(1).getPoints());
+		assertEquals(3, s.getTalliedVoteCount());
+	}
+
+	@Test
+	public void applyVotesRebuildsWhenOutOfSync() {
+		Subject s = generateSubject();
+
+		// Votes enregistrés avant le décompte incrémental
+		s.getVotes().add(generateVote(s, 0, 1));
+		s.getVotes().add(generateVote(s, 0, 1));
+
+		VoteUtil.prepareVotes(generateVote(s, 1, 1), s, "sandra.parlant@zenika.com");
+
+		assertEquals(2, s.getPropositions().get(0).getPoints());
+		assertEquals(1, s.getPropositions().get(1).getPoints());
+		assertTrue(TallyUtil.isConsistent(s));
+	}
+
+	@Test
+	public void applyVotesWithPowerCountsDelegatedVote() {
+		Subject s = generateSubject();
+
+		Power p = new Power();
+		p.setCollaboratorIdFrom("sandra.parlant@zenika.com");
+		p.setCollaboratorIdTo("julie.bourhis@zenika.com");
+		s.getPowers().add(p);
+
+		VoteUtil.prepareVotes(generateVote(s, 1, 1), s, "julie.bourhis@zenika.com");
+
+		assertEquals(0, s.getPropositions().get(0).getPoints());
+		assertEquals(2, s.getPropositions().get(1).getPoints());
+		assertTrue(TallyUtil.isConsistent(s));
+	}
+
+	@Test
+	public void repairFixesDrift() {
+		Subject s = generateSubject();
+
+		VoteUtil.prepareVotes(generateVote(s, 0, 1), s, "sandra.parlant@zenika.com");
+		assertFalse(TallyUtil.repair(s));
+
+		s.getPropositions().get(0).setPoints(5);
+		assertFalse(TallyUtil.isConsistent(s));
+
+		assertTrue(TallyUtil.repair(s));
+		assertEquals(1, s.getPropositions().get(0).getPoints());
+		assertTrue(TallyUtil.isConsistent(s));
+	}
+
+	@Test
+	public void rebuildMatchesIncrementalTally() {
+		Subject s = generateSubject();
+
+		for (int i = 0; i < 20; i++) {
+			VoteUtil.prepareVotes(generateVote(s, i % 2, 1), s, "user" + i + "@zenika.com");
+		}
+		int p0 = s.getPropositions().get(0).getPoints();
+		int p1 = s.getPropositions().get(1).getPoints();
+
+		TallyUtil.rebuild(s);
+
+		assertEquals(p0, s.getPropositions().get(0).getPoints());
+		assertEquals(p1, s.getPropositions().get(1).getPoints());
+		assertEquals(10, p0);
+		assertEquals(10, p1);
+	}
+
+	@Test
+	public void participantsFollowVotesAndDelegations() {
+		Subject s = generateSubject();
+
+		VoteUtil.prepareVotes(generateVote(s, 0, 1), s, "julie.bourhis@zenika.com");
+
+		Power p = new Power();
+		p.setCollaboratorIdTo("julie.bourhis@zenika.com");
+		PowerUtil.preparePower(p, s, "sandra.parlant@zenika.com");
+
+		assertEquals(2, s.getParticipantCount());
+		assertTrue(s.getParticipantIds().contains("sandra.parlant@zenika.com"));
+		assertTrue(TallyUtil.isConsistent(s));
+
+		s.setParticipantIds(new HashSet<>());
+		assertFalse(TallyUtil.isConsistent(s));
+
+		TallyUtil.rebuild(s);
+		assertEquals(2, s.getParticipantCount());
+		assertTrue(s.getParticipantIds().contains("julie.bourhis@zenika.com"));
+	}
+
+	@Test
+	public void applyVotesIgnoresUnknownProposition() {
+		Subject s = generateSubject();
+
+		Vote v = new Vote();
+		WeightedChoice c = new WeightedChoice();
+		c.setPropositionId(new Proposition().getId());
+		c.setPoints(1);
+		v.getChoices().add(c);
+		s.getVotes().add(v);
+
+		TallyUtil.applyVotes(s, Collections.singletonList(v));
+
+		assertEquals(0, s.getPropositions().get(0).getPoints());
+		assertEquals(0, s.getPropositions().get(1).getPoints());
+		assertTrue(TallyUtil.isConsistent(s));
+	}
+
+	@Test
+	public void finalResultFreezesTally() {
+		Subject s = generateSubject();
+
+		VoteUtil.prepareVotes(generateVote(s, 0, 1), s, "julie.bourhis@zenika.com");
+		VoteUtil.prepareVotes(generateVote(s, 1, 1), s, "guillaume.gerbaud@zenika.com");
+
+		Power p = new Power();
+		p.setCollaboratorIdTo("julie.bourhis@zenika.com");
+		PowerUtil.preparePower(p, s, "sandra.parlant@zenika.com");
+
+		// Un compteur faux n'est pas repris dans le résultat figé
+		s.getPropositions().get(1).setPoints(7);
+
+		FinalResult result = TallyUtil.finalResult(s, new Date());
+		s.close(result);
+
+		assertEquals(2, (int) result.getPoints().get(s.getPropositions().get(0).getId()));
+		assertEquals(1, (int) result.getPoints().get(s.getPropositions().get(1).getId()));
+		assertEquals(3, result.getVoteCount());
+		assertEquals(2, result.getVoterCount());
+		assertEquals(1, result.getDelegatedCount());
+		assertEquals(3, result.getParticipantCount());
+
+		// Le compteur faux est remplacé par le résultat figé, et le sujet clôturé se lit sans ses votes
+		assertEquals(1, s.getPropositions().get(1).getPoints());
+		s.setVotes(new ArrayList<>());
+		assertTrue(s.isClosed());
+		assertEquals(3, s.getVoteCount());
+	}
+
+	private Vote generateVote(Subject s, int proposition, int points) {
+		Vote v = new Vote();
+		WeightedChoice c = new WeightedChoice();
+		c.setPropositionId(s.getPropositions().get(proposition).getId());
+		c.setPoints(points);
+		v.getChoices().add(c);
+		return v;
+	}
+
+	private Subject generateSubject() {
+		Calendar calendar = Calendar.getInstance();
+		calendar.add(Calendar.YEAR, 1);
+
+		Subject s = new Subject();
+		s.setTitle("Title");
+		s.setDescription("Description");
+		s.setDeadLine(calendar.getTime());
+
+		Proposition p1 = new Proposition();
+		Proposition p2 = new Proposition();
+		p1.setTitle("P1 title");
+		p2.setTitle("P2 title");
+		s.getPropositions().add(p1);
+		s.getPropositions().add(p2);
+
+		return s;
+	}
+
+}
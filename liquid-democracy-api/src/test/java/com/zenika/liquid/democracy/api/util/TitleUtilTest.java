@@ -0,0 +1,35 @@
+package com.zenika.liquid.democracy.api.util;
+
+import org.junit.Test;
+import org.springframework.dao.DuplicateKeyException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TitleUtilTest {
+
+	@Test
+	public void normalizeTitleTest() {
+		assertEquals("sujets divers", TitleUtil.normalizeTitle("  Sujets Divers "));
+	}
+
+	@Test
+	public void duplicateTitleTest() {
+		// MongoDB 3.0
+		assertTrue(TitleUtil.isDuplicateTitle(new DuplicateKeyException(
+				"E11000 duplicate key error index: democracy.category.$normalizedTitle  dup key: { : \"divers\" }")));
+		// MongoDB 3.2 and later
+		assertTrue(TitleUtil.isDuplicateTitle(new DuplicateKeyException(
+				"E11000 duplicate key error collection: democracy.channel index: normalizedTitle dup key: { : \"divers\" }")));
+	}
+
+	@Test
+	public void duplicateOtherIndexTest() {
+		assertFalse(TitleUtil.isDuplicateTitle(new DuplicateKeyException(
+				"E11000 duplicate key error collection: democracy.channel index: _id_ dup key: { : \"4a1b\" }")));
+		assertFalse(TitleUtil.isDuplicateTitle(new DuplicateKeyException(
+				"E11000 duplicate key error collection: democracy.channel index: normalizedTitleOld dup key: { : 1 }")));
+	}
+
+}
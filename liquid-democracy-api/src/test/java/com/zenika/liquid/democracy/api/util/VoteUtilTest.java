@@ -4,15 +4,20 @@ import com.zenika.liquid.democracy.api.exception.CloseSubjectException;
 import com.zenika.liquid.democracy.api.power.exception.UserAlreadyGavePowerException;
 import com.zenika.liquid.democracy.api.vote.exception.TooManyPointsException;
 import com.zenika.liquid.democracy.api.vote.exception.UserAlreadyVoteException;
+import com.zenika.liquid.democracy.api.power.util.PowerUtil;
 import com.zenika.liquid.democracy.api.vote.exception.VotePropositionIncorrectException;
+import com.zenika.liquid.democracy.api.vote.util.TallyUtil;
 import com.zenika.liquid.democracy.api.vote.util.VoteUtil;
 import com.zenika.liquid.democracy.model.*;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class VoteUtilTest {
 
@@ -74,6 +79,24 @@ public class VoteUtilTest {
 
 	}
 
+	@Test(expected = TooManyPointsException.class)
+	public void testCheckVote_TooManyPointsBeforeIncorrectPropositionKO() {
+		Subject s = generateSubject();
+
+		Vote v = new Vote();
+		WeightedChoice unknown = new WeightedChoice();
+		unknown.setPropositionId(new Proposition().getId());
+		unknown.setPoints(1);
+		v.getChoices().add(unknown);
+
+		WeightedChoice choice1 = new WeightedChoice();
+		choice1.setPropositionId(s.getPropositions().get(0).getId());
+		choice1.setPoints(1);
+		v.getChoices().add(choice1);
+
+		VoteUtil.checkVotes(v, s, "sandra.parlant@zenika.com");
+	}
+
 	@Test(expected = UserAlreadyGavePowerException.class)
 	public void testCheckVote_GavePowerKO() throws VotePropositionIncorrectException, TooManyPointsException,
 			UserAlreadyVoteException, UserAlreadyGavePowerException, CloseSubjectException {
@@ -187,7 +210,7 @@ public class VoteUtilTest {
 		WeightedChoice choice3 = new WeightedChoice();
 		choice3.setPropositionId(s.getPropositions().get(1).getId());
 		choice3.setPoints(1);
-		v.getChoices().add(choice3);
+		v3.getChoices().add(choice3);
 		VoteUtil.prepareVotes(v3, s, "sandra.parlant@zenika.com");
 
 		assertEquals(1, s.getPropositions().get(0).getPoints());
@@ -218,6 +241,82 @@ public class VoteUtilTest {
 		assertEquals(2, s.getPropositions().get(1).getPoints());
 	}
 
+	@Test
+	public void prepareVoteWithDelegationChainTest() {
+		Subject s = generateSubject();
+		s.getPowers().add(generatePower("sandra.parlant@zenika.com", "julie.bourhis@zenika.com"));
+		s.getPowers().add(generatePower("julie.bourhis@zenika.com", "guillaume.gerbaud@zenika.com"));
+
+		Vote v = new Vote();
+		WeightedChoice choice = new WeightedChoice();
+		choice.setPropositionId(s.getPropositions().get(1).getId());
+		choice.setPoints(1);
+		v.getChoices().add(choice);
+
+		VoteUtil.prepareVotes(v, s, "guillaume.gerbaud@zenika.com");
+
+		assertEquals(1, s.getVotes().size());
+		assertEquals(3, v.getWeight());
+		assertEquals(3, s.getVoteCount());
+		assertEquals(3, s.getPropositions().get(1).getPoints());
+		assertTrue(s.isVoted("sandra.parlant@zenika.com"));
+		assertTrue(s.isVoted("julie.bourhis@zenika.com"));
+		assertEquals(1, s.getReceivedDelegations("guillaume.gerbaud@zenika.com"));
+	}
+
+	@Test
+	public void preparePowerAfterVoteTest() {
+		Subject s = generateSubject();
+		s.getPowers().add(generatePower("sandra.parlant@zenika.com", "julie.bourhis@zenika.com"));
+
+		Vote v = new Vote();
+		WeightedChoice choice = new WeightedChoice();
+		choice.setPropositionId(s.getPropositions().get(0).getId());
+		choice.setPoints(1);
+		v.getChoices().add(choice);
+		VoteUtil.prepareVotes(v, s, "guillaume.gerbaud@zenika.com");
+
+		// julie (qui porte la voix de sandra) délègue à guillaume qui a déjà voté
+		Power p = new Power();
+		p.setCollaboratorIdTo("guillaume.gerbaud@zenika.com");
+		PowerUtil.preparePower(p, s, "julie.bourhis@zenika.com");
+
+		assertEquals(1, s.getVotes().size());
+		assertEquals(3, v.getWeight());
+		assertEquals(3, s.getPropositions().get(0).getPoints());
+		assertTrue(s.isVoted("sandra.parlant@zenika.com"));
+		assertTrue(TallyUtil.isConsistent(s));
+	}
+
+	@Test
+	public void voteIndexFollowsVotesTest() {
+		Subject s = generateSubject();
+
+		for (int i = 0; i < 1000; i++) {
+			Vote v = new Vote();
+			v.setCollaboratorId("user" + i + "@zenika.com");
+			s.addVote(v);
+		}
+		assertTrue(s.isVoted("user999@zenika.com"));
+		assertFalse(s.isVoted("sandra.parlant@zenika.com"));
+
+		// Vote ajouté directement à la liste : l'index est reconstruit
+		Vote v = new Vote();
+		v.setCollaboratorId("sandra.parlant@zenika.com");
+		s.getVotes().add(v);
+		assertTrue(s.isVoted("sandra.parlant@zenika.com"));
+
+		s.setVotes(new ArrayList<>());
+		assertFalse(s.isVoted("user0@zenika.com"));
+	}
+
+	private Power generatePower(String from, String to) {
+		Power p = new Power();
+		p.setCollaboratorIdFrom(from);
+		p.setCollaboratorIdTo(to);
+		return p;
+	}
+
 	private Subject generateSubject() {
 		Calendar calendar = Calendar.getInstance();
 		calendar.add(Calendar.YEAR, 1);
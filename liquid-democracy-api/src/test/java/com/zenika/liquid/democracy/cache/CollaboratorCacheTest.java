@@ -0,0 +1,69 @@
+package com.zenika.liquid.democracy.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.boot.test.WebIntegrationTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import com.zenika.liquid.democracy.Application;
+import com.zenika.liquid.democracy.authentication.persistence.CollaboratorRepository;
+import com.zenika.si.core.zenika.model.Collaborator;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringApplicationConfiguration(classes = Application.class)
+@WebIntegrationTest(randomPort = true)
+@ActiveProfiles("test")
+public class CollaboratorCacheTest {
+
+	@Autowired
+	CollaboratorRepository collaboratorRepository;
+
+	@Autowired
+	CollaboratorCache collaboratorCache;
+
+	Collaborator collaborator;
+
+	@Before
+	public void setUp() {
+		collaborator = new Collaborator();
+		collaborator.setCollaboratorId("julie.bourhis");
+		collaborator.setEmail("julie.bourhis@zenika.com");
+		collaboratorRepository.save(collaborator);
+		collaboratorCache.invalidateCollaborator(collaborator);
+	}
+
+	@After
+	public void tearDown() {
+		collaboratorRepository.delete(collaborator);
+		collaboratorCache.invalidateCollaborator(collaborator);
+	}
+
+	@Test
+	public void findCollaboratorByEmailTest() {
+		assertEquals("julie.bourhis", collaboratorCache.findCollaboratorByEmail("julie.bourhis@zenika.com").get()
+		        .getCollaboratorId());
+		assertFalse(collaboratorCache.findCollaboratorByEmail("nobody@zenika.com").isPresent());
+	}
+
+	@Test
+	public void invalidateCollaboratorTest() {
+		collaboratorCache.findCollaboratorByEmail("julie.bourhis@zenika.com");
+		collaboratorRepository.delete(collaborator);
+
+		assertTrue(collaboratorCache.findCollaboratorByEmail("julie.bourhis@zenika.com").isPresent());
+
+		collaboratorCache.invalidateCollaborator(collaborator);
+
+		assertFalse(collaboratorCache.findCollaboratorByEmail("julie.bourhis@zenika.com").isPresent());
+	}
+
+}
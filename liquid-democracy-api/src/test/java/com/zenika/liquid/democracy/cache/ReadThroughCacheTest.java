@@ -0,0 +1,93 @@
+package com.zenika.liquid.democracy.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.codahale.metrics.MetricRegistry;
+
+public class ReadThroughCacheTest {
+
+	private final AtomicLong now = new AtomicLong();
+
+	private final AtomicInteger loads = new AtomicInteger();
+
+	private final Function<String, Optional<Object>> loader = key -> {
+		loads.incrementAndGet();
+		return "unknown".equals(key) ? Optional.empty() : Optional.of(new Object());
+	};
+
+	private CacheConfig.Settings settings;
+
+	private MetricRegistry metrics;
+
+	private ReadThroughCache<Object> cache;
+
+	@Before
+	public void setUp() {
+		settings = new CacheConfig.Settings(2, 10);
+		metrics = new MetricRegistry();
+		cache = new ReadThroughCache<>("test", settings, v -> {
+		}, metrics, now::get);
+	}
+
+	@Test
+	public void hitUntilExpiryTest() {
+		Object first = cache.get("a", loader).get();
+		assertSame(first, cache.get("a", loader).get());
+
+		now.addAndGet(10_000);
+		cache.get("a", loader);
+
+		assertEquals(2, loads.get());
+		assertEquals(1, metrics.counter("cache.test.hits").getCount());
+		assertEquals(2, metrics.counter("cache.test.misses").getCount());
+	}
+
+	@Test
+	public void leastRecentlyReadIsEvictedTest() {
+		cache.get("a", loader);
+		cache.get("b", loader);
+		cache.get("a", loader);
+		cache.get("c", loader);
+		assertEquals(2, cache.size());
+
+		cache.get("a", loader);
+		assertEquals(3, loads.get());
+		cache.get("b", loader);
+		assertEquals(4, loads.get());
+	}
+
+	@Test
+	public void invalidationDropsLoadInProgressTest() {
+		cache.get("a", key -> {
+			cache.invalidate("a");
+			return Optional.of(new Object());
+		});
+		assertEquals(0, cache.size());
+
+		cache.get("unknown", loader);
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void disabledCacheAlwaysLoadsTest() {
+		settings.setEnabled(false);
+
+		cache.get("a", loader);
+		assertFalse(cache.get("unknown", loader).isPresent());
+		cache.get("a", loader);
+
+		assertEquals(3, loads.get());
+		assertEquals(0, cache.size());
+	}
+
+}
@@ -0,0 +1,31 @@
+package com.zenika.liquid.democracy.config;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.boot.test.WebIntegrationTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import com.zenika.liquid.democracy.Application;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringApplicationConfiguration(classes = Application.class)
+@WebIntegrationTest(randomPort = true)
+@ActiveProfiles("test")
+public class QueryPlanVerifierTest {
+
+	@Autowired
+	QueryPlanVerifier verifier;
+
+	@Test
+	public void repositoryQueriesUseIndexesTest() {
+		assertEquals(Collections.emptyList(), verifier.findCollectionScans());
+	}
+
+}
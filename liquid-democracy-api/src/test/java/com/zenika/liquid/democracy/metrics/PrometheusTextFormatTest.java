@@ -0,0 +1,36 @@
+package com.zenika.liquid.democracy.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.codahale.metrics.MetricRegistry;
+
+public class PrometheusTextFormatTest {
+
+	@Test
+	public void countersAndTimersTest() {
+		MetricRegistry registry = new MetricRegistry();
+		registry.counter("http.errors.CloseSubjectException").inc(3);
+		registry.timer("http.SubjectController.getSubjects").update(2, TimeUnit.MILLISECONDS);
+
+		String out = PrometheusTextFormat.write(registry);
+
+		assertTrue(out.contains("# TYPE http_errors_CloseSubjectException_total counter\nhttp_errors_CloseSubjectException_total 3.0\n"));
+		assertTrue(out.contains("# TYPE http_SubjectController_getSubjects_seconds summary\n"));
+		assertTrue(out.contains("http_SubjectController_getSubjects_seconds{quantile=\"0.99\"} 0.002\n"));
+		assertFalse(out.contains("_sum"));
+		assertTrue(out.contains("http_SubjectController_getSubjects_seconds_count 1.0\n"));
+	}
+
+	@Test
+	public void sanitizeTest() {
+		assertEquals("mongo_Subject_size", PrometheusTextFormat.sanitize("mongo.Subject.size"));
+		assertEquals("_1m_rate", PrometheusTextFormat.sanitize("1m-rate"));
+	}
+
+}
@@ -0,0 +1,124 @@
+package com.zenika.liquid.democracy.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Random;
+
+import com.zenika.liquid.democracy.model.Power;
+import com.zenika.liquid.democracy.model.Proposition;
+import com.zenika.liquid.democracy.model.Subject;
+import com.zenika.liquid.democracy.model.Vote;
+import com.zenika.liquid.democracy.model.WeightedChoice;
+
+/**
+ * Reproducible data for the benchmarks: ids are derived from positions and choices are drawn from a fixed seed,
+ * so two runs (or two releases) measure exactly the same subjects.
+ */
+public final class BenchmarkData {
+
+	public static final long SEED = 42L;
+
+	private BenchmarkData() {
+	}
+
+	public static String user(int i) {
+		return "user" + i + "@zenika.com";
+	}
+
+	/**
+	 * Open subject with {@code propositions} propositions of ids p0, p1, ... and as many points to give.
+	 */
+	public static Subject subject(int propositions) {
+		Calendar deadLine = Calendar.getInstance();
+		deadLine.add(Calendar.YEAR, 1);
+
+		Subject s = new Subject();
+		s.setId("benchmark");
+		s.setTitle("Benchmark");
+		s.setDescription("Benchmark subject");
+		s.setDeadLine(deadLine.getTime());
+		s.setMaxPoints(propositions);
+
+		for (int i = 0; i < propositions; i++) {
+			Proposition p = new Proposition();
+			p.setId("p" + i);
+			p.setTitle("Proposition " + i);
+			s.getPropositions().add(p);
+		}
+
+		return s;
+	}
+
+	/**
+	 * Vote giving one point to each of {@code choices} distinct propositions of the subject.
+	 */
+	public static Vote vote(Subject s, int choices, Random random) {
+		List<Proposition> propositions = new ArrayList<>(s.getPropositions());
+		Vote v = new Vote();
+		for (int i = 0; i < choices; i++) {
+			Proposition p = propositions.remove(random.nextInt(propositions.size()));
+			WeightedChoice c = new WeightedChoice();
+			c.setPropositionId(p.getId());
+			c.setPoints(1);
+			v.getChoices().add(c);
+		}
+		return v;
+	}
+
+	/**
+	 * Adds {@code count} votes of user0, user1, ... with a weight of one each, without counting them.
+	 */
+	public static void addVotes(Subject s, int count, int choices) {
+		Random random = new Random(SEED);
+		for (int i = 0; i < count; i++) {
+			Vote v = vote(s, choices, random);
+			v.setCollaboratorId(user(i));
+			s.addVote(v);
+		}
+	}
+
+	/**
+	 * Full delegation tree rooted on user0: each user of a level receives the power of {@code fanOut} users of the
+	 * next level, down to {@code depth} levels.
+	 *
+	 * @return the powers, from the root's direct delegators to the leaves
+	 */
+	public static List<Power> delegationTree(int depth, int fanOut) {
+		List<Power> powers = new ArrayList<>();
+		int next = 1;
+		List<Integer> level = new ArrayList<>();
+		level.add(0);
+
+		for (int d = 0; d < depth; d++) {
+			List<Integer> children = new ArrayList<>();
+			for (int parent : level) {
+				for (int f = 0; f < fanOut; f++) {
+					powers.add(power(next, parent));
+					children.add(next++);
+				}
+			}
+			level = children;
+		}
+
+		return powers;
+	}
+
+	/**
+	 * Delegation chain user1 -> user0, user2 -> user1, ... of {@code length} powers.
+	 */
+	public static List<Power> delegationChain(int length) {
+		List<Power> powers = new ArrayList<>();
+		for (int i = 1; i <= length; i++) {
+			powers.add(power(i, i - 1));
+		}
+		return powers;
+	}
+
+	public static Power power(int from, int to) {
+		Power p = new Power();
+		p.setCollaboratorIdFrom(user(from));
+		p.setCollaboratorIdTo(user(to));
+		return p;
+	}
+}
@@ -0,0 +1,58 @@
+package com.zenika.liquid.democracy.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.zenika.liquid.democracy.api.vote.util.VoteUtil;
+import com.zenika.liquid.democracy.model.Subject;
+import com.zenika.liquid.democracy.model.Vote;
+
+/**
+ * Validation of a new vote on a subject already holding {@code votes} votes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CheckVotesBenchmark {
+
+	@Param({ "2", "10", "50" })
+	private int propositions;
+
+	@Param({ "0", "10000" })
+	private int votes;
+
+	private Subject subject;
+
+	private Vote vote;
+
+	private String voter;
+
+	@Setup
+	public void setUp() {
+		subject = BenchmarkData.subject(propositions);
+		BenchmarkData.addVotes(subject, votes, 1);
+		vote = BenchmarkData.vote(subject, propositions, new Random(BenchmarkData.SEED));
+		voter = BenchmarkData.user(votes);
+	}
+
+	@Benchmark
+	public Vote checkVotes() {
+		VoteUtil.checkVotes(vote, subject, voter);
+		return vote;
+	}
+}
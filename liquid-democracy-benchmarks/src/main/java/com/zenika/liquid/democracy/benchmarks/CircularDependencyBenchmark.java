@@ -0,0 +1,66 @@
+package com.zenika.liquid.democracy.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.zenika.liquid.democracy.api.power.util.PowerUtil;
+import com.zenika.liquid.democracy.model.Power;
+import com.zenika.liquid.democracy.model.Subject;
+
+/**
+ * Cycle checks on a delegation chain of {@code length} powers: the new power's destination is the end of the
+ * chain, so the check walks all of it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CircularDependencyBenchmark {
+
+	@Param({ "100", "1000", "10000" })
+	private int length;
+
+	private Subject subject;
+
+	private Power power;
+
+	@Setup
+	public void setUp() {
+		subject = BenchmarkData.subject(2);
+		subject.getPowers().addAll(BenchmarkData.delegationChain(length));
+
+		power = new Power();
+		power.setCollaboratorIdTo(BenchmarkData.user(length));
+	}
+
+	/**
+	 * A user outside of the chain delegates to its last delegator: accepted after walking the chain.
+	 */
+	@Benchmark
+	public Power checkPowerForAddition() {
+		PowerUtil.checkPowerForAddition(power, subject, BenchmarkData.user(length + 1));
+		return power;
+	}
+
+	/**
+	 * The user at the end of the chain delegates to its last delegator: the walk finds the cycle. Measured on the
+	 * delegation graph, without the cost of throwing the refusal.
+	 */
+	@Benchmark
+	public boolean createsCycle() {
+		return subject.getDelegationGraph().createsCycle(BenchmarkData.user(0), BenchmarkData.user(length));
+	}
+}
@@ -0,0 +1,70 @@
+package com.zenika.liquid.democracy.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares two JMH result files written with {@code -rf json}, typically a release baseline and the current run.
+ *
+ * Usage: {@code CompareResults baseline.json current.json [tolerance %, 10 by default]}. Exits with status 1 when
+ * a benchmark present in both files got slower than the tolerance (scores are average times).
+ */
+public class CompareResults {
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage: CompareResults <baseline.json> <current.json> [tolerance %]");
+			System.exit(2);
+		}
+
+		Map<String, JsonNode> baseline = read(new File(args[0]));
+		Map<String, JsonNode> current = read(new File(args[1]));
+		double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+
+		boolean regression = false;
+		System.out.println(String.format("%-90s %14s %14s %8s", "Benchmark", "Baseline", "Current", "Change"));
+		for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+			JsonNode before = baseline.get(entry.getKey());
+			JsonNode after = entry.getValue().get("primaryMetric");
+			String unit = after.get("scoreUnit").asText();
+
+			if (before == null) {
+				System.out.println(String.format("%-90s %14s %14.3f %8s", entry.getKey(), "-", after.get("score").asDouble(), "new"));
+				continue;
+			}
+
+			double baseScore = before.get("primaryMetric").get("score").asDouble();
+			double score = after.get("score").asDouble();
+			double change = (score - baseScore) / baseScore * 100;
+			boolean slower = change > tolerance;
+			regression |= slower;
+
+			System.out.println(String.format("%-90s %14.3f %14.3f %+7.1f%% %s%s", entry.getKey(), baseScore, score, change,
+			        unit, slower ? "  <- slower" : ""));
+		}
+
+		System.exit(regression ? 1 : 0);
+	}
+
+	/**
+	 * Results by benchmark name and parameters.
+	 */
+	private static Map<String, JsonNode> read(File file) throws IOException {
+		Map<String, JsonNode> results = new LinkedHashMap<>();
+		for (JsonNode result : new ObjectMapper().readTree(file)) {
+			Map<String, String> params = new TreeMap<>();
+			JsonNode paramsNode = result.get("params");
+			if (paramsNode != null) {
+				paramsNode.fields().forEachRemaining(p -> params.put(p.getKey(), p.getValue().asText()));
+			}
+			results.put(result.get("benchmark").asText() + params, result);
+		}
+		return results;
+	}
+}
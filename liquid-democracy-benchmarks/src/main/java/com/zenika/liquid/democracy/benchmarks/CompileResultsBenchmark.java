@@ -0,0 +1,50 @@
+package com.zenika.liquid.democracy.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.zenika.liquid.democracy.api.vote.util.VoteUtil;
+import com.zenika.liquid.democracy.model.Subject;
+
+/**
+ * Full recount of a subject: points of every proposition and participants.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompileResultsBenchmark {
+
+	@Param({ "10000", "100000" })
+	private int votes;
+
+	@Param({ "5" })
+	private int propositions;
+
+	private Subject subject;
+
+	@Setup
+	public void setUp() {
+		subject = BenchmarkData.subject(propositions);
+		BenchmarkData.addVotes(subject, votes, 2);
+	}
+
+	@Benchmark
+	public Subject compileResults() {
+		VoteUtil.compileResults(subject);
+		return subject;
+	}
+}
@@ -0,0 +1,98 @@
+package com.zenika.liquid.democracy.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.zenika.liquid.democracy.dto.DtoMapper;
+import com.zenika.liquid.democracy.dto.SubjectDto;
+import com.zenika.liquid.democracy.model.Category;
+import com.zenika.liquid.democracy.model.Channel;
+import com.zenika.liquid.democracy.model.Subject;
+
+/**
+ * Mapping of a listing of {@code subjects} subjects to their DTOs, spread over a few categories and channels with
+ * {@code members} powers and members each: Orika against the hand-written {@link DtoMapper}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DtoMappingBenchmark {
+
+	private static final int CATEGORIES = 5;
+
+	@Param({ "20", "200" })
+	private int subjects;
+
+	@Param({ "1000" })
+	private int members;
+
+	private List<Subject> listing;
+
+	private OrikaMapper orika;
+
+	@Setup
+	public void setUp() {
+		List<Category> categories = new ArrayList<>();
+		List<Channel> channels = new ArrayList<>();
+		for (int i = 0; i < CATEGORIES; i++) {
+			Category category = new Category();
+			category.setUuid("category" + i);
+			category.setTitle("Category " + i);
+			Channel channel = new Channel();
+			channel.setUuid("channel" + i);
+			channel.setTitle("Channel " + i);
+			for (int j = 0; j < members; j++) {
+				category.addPower(BenchmarkData.power(members + j, j));
+				channel.addCollaborator(BenchmarkData.user(j));
+			}
+			categories.add(category);
+			channels.add(channel);
+		}
+
+		listing = new ArrayList<>(subjects);
+		for (int i = 0; i < subjects; i++) {
+			Subject s = BenchmarkData.subject(5);
+			s.setId("subject" + i);
+			s.setCategory(categories.get(i % CATEGORIES));
+			s.setChannel(channels.get(i % CATEGORIES));
+			listing.add(s);
+		}
+
+		orika = new OrikaMapper();
+	}
+
+	@Benchmark
+	public List<SubjectDto> orika() {
+		List<SubjectDto> out = new ArrayList<>(listing.size());
+		for (Subject s : listing) {
+			out.add(orika.map(s, SubjectDto.class));
+		}
+		return out;
+	}
+
+	@Benchmark
+	public List<SubjectDto> handWritten() {
+		DtoMapper mapper = new DtoMapper();
+		List<SubjectDto> out = new ArrayList<>(listing.size());
+		for (Subject s : listing) {
+			out.add(mapper.toDto(s));
+		}
+		return out;
+	}
+}
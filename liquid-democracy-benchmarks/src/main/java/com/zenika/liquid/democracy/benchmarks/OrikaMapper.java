@@ -0,0 +1,35 @@
+package com.zenika.liquid.democracy.benchmarks;
+
+import com.zenika.liquid.democracy.dto.CategoryDto;
+import com.zenika.liquid.democracy.dto.ChannelDto;
+import com.zenika.liquid.democracy.dto.CollaboratorDto;
+import com.zenika.liquid.democracy.dto.DtoMapper;
+import com.zenika.liquid.democracy.dto.FinalResultDto;
+import com.zenika.liquid.democracy.dto.PropositionDto;
+import com.zenika.liquid.democracy.dto.SubjectDto;
+import com.zenika.liquid.democracy.model.Category;
+import com.zenika.liquid.democracy.model.Channel;
+import com.zenika.liquid.democracy.model.FinalResult;
+import com.zenika.liquid.democracy.model.Proposition;
+import com.zenika.liquid.democracy.model.Subject;
+import com.zenika.si.core.zenika.model.Collaborator;
+
+import ma.glasnost.orika.MapperFactory;
+import ma.glasnost.orika.impl.ConfigurableMapper;
+
+/**
+ * Orika mapping of the entities to their DTOs, as the API did before {@link DtoMapper}: the baseline of
+ * {@link DtoMappingBenchmark}.
+ */
+public class OrikaMapper extends ConfigurableMapper {
+
+	@Override
+	protected void configure(MapperFactory factory) {
+		factory.classMap(Subject.class, SubjectDto.class).byDefault().register();
+		factory.classMap(Category.class, CategoryDto.class).byDefault().register();
+		factory.classMap(Channel.class, ChannelDto.class).byDefault().register();
+		factory.classMap(Proposition.class, PropositionDto.class).byDefault().register();
+		factory.classMap(Collaborator.class, CollaboratorDto.class).byDefault().register();
+		factory.classMap(FinalResult.class, FinalResultDto.class).byDefault().register();
+	}
+}
@@ -0,0 +1,79 @@
+package com.zenika.liquid.democracy.benchmarks;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.zenika.liquid.democracy.api.vote.util.VoteUtil;
+import com.zenika.liquid.democracy.model.Power;
+import com.zenika.liquid.democracy.model.Subject;
+import com.zenika.liquid.democracy.model.Vote;
+import com.zenika.liquid.democracy.model.WeightedChoice;
+
+/**
+ * Vote of the root of a full delegation tree: weight computation and tally of all the delegated voices.
+ *
+ * Each invocation votes on a fresh subject loaded with the tree, like a request does on a subject read from the
+ * database, so the delegation index is built within the measure.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PrepareVotesBenchmark {
+
+	@Param({ "1", "4", "8" })
+	private int depth;
+
+	@Param({ "2", "4" })
+	private int fanOut;
+
+	private List<Power> tree;
+
+	private Vote template;
+
+	private Subject subject;
+
+	private Vote vote;
+
+	@Setup(Level.Trial)
+	public void setUpTree() {
+		tree = BenchmarkData.delegationTree(depth, fanOut);
+		template = BenchmarkData.vote(BenchmarkData.subject(4), 2, new Random(BenchmarkData.SEED));
+	}
+
+	@Setup(Level.Invocation)
+	public void setUpSubject() {
+		subject = BenchmarkData.subject(4);
+		subject.getPowers().addAll(tree);
+
+		vote = new Vote();
+		for (WeightedChoice c : template.getChoices()) {
+			WeightedChoice copy = new WeightedChoice();
+			copy.setPropositionId(c.getPropositionId());
+			copy.setPoints(c.getPoints());
+			vote.getChoices().add(copy);
+		}
+	}
+
+	@Benchmark
+	public Subject prepareVotes() {
+		VoteUtil.prepareVotes(vote, subject, BenchmarkData.user(0));
+		return subject;
+	}
+}
@@ -0,0 +1,55 @@
+package com.zenika.liquid.democracy.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.zenika.liquid.democracy.model.Subject;
+
+/**
+ * Per-user flags read for each subject of a listing, on a subject with {@code votes} votes and as many powers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SubjectLookupBenchmark {
+
+	@Param({ "100", "10000" })
+	private int votes;
+
+	private Subject subject;
+
+	private String delegator;
+
+	@Setup
+	public void setUp() {
+		subject = BenchmarkData.subject(2);
+		BenchmarkData.addVotes(subject, votes, 1);
+		// user(votes + i) delegates to user(i): every voter received one delegation
+		for (int i = 0; i < votes; i++) {
+			subject.addPower(BenchmarkData.power(votes + i, i));
+		}
+		delegator = BenchmarkData.user(2 * votes - 1);
+	}
+
+	@Benchmark
+	public void userFlags(Blackhole bh) {
+		bh.consume(subject.isVoted(delegator));
+		bh.consume(subject.getGivenDelegation(delegator));
+		bh.consume(subject.getReceivedDelegations(BenchmarkData.user(votes - 1)));
+	}
+}
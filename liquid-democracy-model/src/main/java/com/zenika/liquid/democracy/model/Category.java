@@ -6,7 +6,9 @@ import java.util.Optional;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document
@@ -18,12 +20,23 @@ public class Category {
 	@Version
 	private String version;
 
+	@Indexed
 	private String title;
 
+	/**
+	 * Titre en minuscules, sans espaces autour : l'index unique refuse les doublons de titre entre catégories.
+	 * Renseigné à la création ; absent des documents créés avant lui, d'où l'index sparse.
+	 */
+	@Indexed(unique = true, sparse = true)
+	private String normalizedTitle;
+
 	private String description;
 
 	private List<Power> powers;
 
+	@Transient
+	private DelegationGraph delegationGraph;
+
 	public Category() {
 		powers = new ArrayList<>();
 	}
@@ -52,6 +65,15 @@ public class Category {
 		this.title = title;
 	}
 
+	@JsonIgnore
+	public String getNormalizedTitle() {
+		return normalizedTitle;
+	}
+
+	public void setNormalizedTitle(String normalizedTitle) {
+		this.normalizedTitle = normalizedTitle;
+	}
+
 	public String getDescription() {
 		return description;
 	}
@@ -66,18 +88,36 @@ public class Category {
 
 	public void setPowers(List<Power> powers) {
 		this.powers = powers;
+		this.delegationGraph = null;
+	}
+
+	/**
+	 * Index des délégations, reconstruit si la liste des pouvoirs a été modifiée sans passer par
+	 * {@link #addPower(Power)} / {@link #removePower(Power)}.
+	 */
+	@JsonIgnore
+	public DelegationGraph getDelegationGraph() {
+		if (delegationGraph == null || delegationGraph.size() != powers.size()) {
+			delegationGraph = new DelegationGraph(powers);
+		}
+		return delegationGraph;
 	}
 
 	public Optional<Power> findPower(String userId) {
-		Optional<Power> foundPower = getPowers().stream().filter(p -> {
-			return userId.equals(p.getCollaboratorIdFrom());
-		}).findFirst();
+		return getDelegationGraph().findPower(userId);
+	}
 
-		return foundPower;
+	public void addPower(Power power) {
+		DelegationGraph graph = getDelegationGraph();
+		powers.add(power);
+		graph.addPower(power);
 	}
 
 	public void removePower(Power power) {
-		powers.remove(power);
+		DelegationGraph graph = getDelegationGraph();
+		if (powers.remove(power)) {
+			graph.removePower(power);
+		}
 	}
 
 	@JsonIgnore
@@ -1,14 +1,13 @@
 package com.zenika.liquid.democracy.model;
 
-import com.zenika.si.core.zenika.model.Collaborator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.Version;
-import org.springframework.data.mongodb.core.mapping.DBRef;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
+import java.util.HashSet;
+import java.util.Set;
 
 @Document
 public class Channel {
@@ -19,15 +18,28 @@ public class Channel {
 	@Version
 	private String version;
 
+	@Indexed
 	private String title;
 
+	/**
+	 * Titre en minuscules, sans espaces autour : l'index unique refuse les doublons de titre entre canaux.
+	 * Renseigné à la création ; absent des documents créés avant lui, d'où l'index sparse.
+	 */
+	@Indexed(unique = true, sparse = true)
+	private String normalizedTitle;
+
 	private String description;
 
-	@DBRef
-	private List<Collaborator> collaborators;
+	/**
+	 * Identifiants des membres : les collaborateurs ne sont chargés qu'à l'affichage du canal, en une requête.
+	 */
+	@Indexed
+	private Set<String> collaboratorIds;
+
+	private int memberCount;
 
 	public Channel() {
-		collaborators = new ArrayList<>();
+		collaboratorIds = new HashSet<>();
 	}
 
 	public String getUuid() {
@@ -54,6 +66,15 @@ public class Channel {
 		this.title = title;
 	}
 
+	@JsonIgnore
+	public String getNormalizedTitle() {
+		return normalizedTitle;
+	}
+
+	public void setNormalizedTitle(String normalizedTitle) {
+		this.normalizedTitle = normalizedTitle;
+	}
+
 	public String getDescription() {
 		return description;
 	}
@@ -62,22 +83,37 @@ public class Channel {
 		this.description = description;
 	}
 
-	public List<Collaborator> getCollaborators() {
-		return collaborators;
+	public Set<String> getCollaboratorIds() {
+		return collaboratorIds;
+	}
+
+	public void setCollaboratorIds(Set<String> collaboratorIds) {
+		this.collaboratorIds = collaboratorIds;
+	}
+
+	public int getMemberCount() {
+		return memberCount;
+	}
+
+	public void setMemberCount(int memberCount) {
+		this.memberCount = memberCount;
 	}
 
-	public void setCollaborators(List<Collaborator> collaborators) {
-		this.collaborators = collaborators;
+	@JsonIgnore
+	public boolean isMember(String userId) {
+		return collaboratorIds.contains(userId);
 	}
 
-	public Optional<Collaborator> findCollaborator(String userId) {
-		return getCollaborators().stream().filter(p -> {
-			return userId.equals(p.getCollaboratorId());
-		}).findFirst();
+	public void addCollaborator(String userId) {
+		if (collaboratorIds.add(userId)) {
+			memberCount++;
+		}
 	}
 
-	public void removeCollaborator(Collaborator collaborator) {
-		collaborators.remove(collaborator);
+	public void removeCollaborator(String userId) {
+		if (collaboratorIds.remove(userId)) {
+			memberCount--;
+		}
 	}
 
 }
@@ -0,0 +1,123 @@
+package com.zenika.liquid.democracy.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Index d'une liste de {@link Power} par délégant (from) et par délégataire (to).
+ *
+ * Chaque collaborateur donne au plus une délégation : suivre l'index "from" parcourt une chaîne. Savoir si une
+ * personne est atteinte ou si une délégation crée un cycle coûte la longueur de la chaîne, au lieu de parcourir
+ * tous les pouvoirs à chaque étape.
+ */
+public class DelegationGraph {
+
+	private final Map<String, Power> powerByFrom;
+
+	private final Map<String, List<Power>> powersByTo;
+
+	private int size;
+
+	public DelegationGraph(Collection<Power> powers) {
+		powerByFrom = new HashMap<>();
+		powersByTo = new HashMap<>();
+		powers.forEach(this::addPower);
+	}
+
+	public void addPower(Power power) {
+		powerByFrom.putIfAbsent(power.getCollaboratorIdFrom(), power);
+		powersByTo.computeIfAbsent(power.getCollaboratorIdTo(), k -> new ArrayList<>()).add(power);
+		size++;
+	}
+
+	public void removePower(Power power) {
+		List<Power> powers = powersByTo.get(power.getCollaboratorIdTo());
+		if (powers == null || !powers.remove(power)) {
+			return;
+		}
+		if (powers.isEmpty()) {
+			powersByTo.remove(power.getCollaboratorIdTo());
+		}
+		powerByFrom.remove(power.getCollaboratorIdFrom(), power);
+		size--;
+	}
+
+	/**
+	 * Nombre de pouvoirs indexés, pour détecter une liste de pouvoirs modifiée sans passer par le graphe.
+	 */
+	public int size() {
+		return size;
+	}
+
+	public Optional<Power> findPower(String from) {
+		return Optional.ofNullable(powerByFrom.get(from));
+	}
+
+	public String getDelegate(String from) {
+		Power power = powerByFrom.get(from);
+		return power != null ? power.getCollaboratorIdTo() : null;
+	}
+
+	public List<Power> getPowersTo(String to) {
+		return powersByTo.getOrDefault(to, Collections.emptyList());
+	}
+
+	/**
+	 * Vrai si suivre les délégations depuis {@code from} mène à {@code target}.
+	 */
+	public boolean reaches(String from, String target) {
+		Set<String> visited = new HashSet<>();
+		String current = from;
+
+		while (current != null && visited.add(current)) {
+			if (current.equals(target)) {
+				return true;
+			}
+			current = getDelegate(current);
+		}
+
+		return false;
+	}
+
+	/**
+	 * Vrai si une délégation de {@code from} à {@code to} fermerait un cycle.
+	 */
+	public boolean createsCycle(String from, String to) {
+		return to != null && reaches(to, from);
+	}
+
+	/**
+	 * Collaborateurs ayant délégué à {@code to}, directement ou par d'autres délégations.
+	 */
+	public Set<String> getTransitiveDelegators(String to) {
+		Set<String> delegators = new HashSet<>();
+
+		Deque<String> users = new ArrayDeque<>();
+		users.add(to);
+
+		while (!users.isEmpty()) {
+			String user = users.pop();
+			for (Power p : getPowersTo(user)) {
+				if (!p.getCollaboratorIdFrom().equals(to) && delegators.add(p.getCollaboratorIdFrom())) {
+					users.add(p.getCollaboratorIdFrom());
+				}
+			}
+		}
+
+		return delegators;
+	}
+
+	public int countTransitiveDelegators(String to) {
+		return getTransitiveDelegators(to).size();
+	}
+
+}
@@ -0,0 +1,75 @@
+package com.zenika.liquid.democracy.model;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Résultat figé d'un sujet, calculé une seule fois à sa clôture : il est lu ensuite sans charger les votes.
+ */
+public class FinalResult {
+
+	private Date finalizedAt;
+
+	/**
+	 * Points de chaque proposition, par identifiant de proposition.
+	 */
+	private Map<String, Integer> points;
+
+	/**
+	 * Voix comptées, délégations comprises.
+	 */
+	private int voteCount;
+
+	/**
+	 * Collaborateurs ayant voté eux-mêmes.
+	 */
+	private int voterCount;
+
+	private int participantCount;
+
+	/**
+	 * Voix portées par le vote d'un autre collaborateur.
+	 */
+	private int delegatedCount;
+
+	private FinalResult() {
+		points = new HashMap<>();
+	}
+
+	public FinalResult(Date finalizedAt, Map<String, Integer> points, int voteCount, int voterCount,
+	        int participantCount) {
+		this.finalizedAt = finalizedAt;
+		this.points = new HashMap<>(points);
+		this.voteCount = voteCount;
+		this.voterCount = voterCount;
+		this.participantCount = participantCount;
+		this.delegatedCount = voteCount - voterCount;
+	}
+
+	public Date getFinalizedAt() {
+		return finalizedAt;
+	}
+
+	public Map<String, Integer> getPoints() {
+		return Collections.unmodifiableMap(points);
+	}
+
+	public int getVoteCount() {
+		return voteCount;
+	}
+
+	public int getVoterCount() {
+		return voterCount;
+	}
+
+	public int getParticipantCount() {
+		return participantCount;
+	}
+
+	public int getDelegatedCount() {
+		return delegatedCount;
+	}
+
+}
@@ -1,13 +1,28 @@
 package com.zenika.liquid.democracy.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.bson.types.ObjectId;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
 
+/**
+ * Embarqué dans {@link Subject} ou {@link Category}, ou stocké dans sa propre collection lorsque les délégations
+ * sur les sujets sont persistées à part ({@link #getSubjectUuid()} est alors renseigné).
+ */
+@Document
+@CompoundIndexes({
+		@CompoundIndex(name = "subject_from", def = "{'subjectUuid': 1, 'collaboratorIdFrom': 1}", unique = true),
+		@CompoundIndex(name = "subject_to", def = "{'subjectUuid': 1, 'collaboratorIdTo': 1}")
+})
 public class Power {
 
 	@Id
 	private String id;
 
+	private String subjectUuid;
+
 	private String collaboratorIdFrom;
 
 	private String collaboratorIdTo;
@@ -24,6 +39,15 @@ public class Power {
 		this.id = id;
 	}
 
+	@JsonIgnore
+	public String getSubjectUuid() {
+		return subjectUuid;
+	}
+
+	public void setSubjectUuid(String subjectUuid) {
+		this.subjectUuid = subjectUuid;
+	}
+
 	public String getCollaboratorIdFrom() {
 		return collaboratorIdFrom;
 	}
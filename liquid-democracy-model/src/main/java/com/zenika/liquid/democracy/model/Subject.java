@@ -2,17 +2,31 @@ package com.zenika.liquid.democracy.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.util.StringUtils;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Document
+@CompoundIndexes({
+        @CompoundIndex(name = "listing", def = "{'submitDate': -1, '_id': -1}"),
+        @CompoundIndex(name = "category_deadline", def = "{'category.$id': 1, 'deadLine': 1}"),
+        @CompoundIndex(name = "channel_deadline", def = "{'channel.$id': 1, 'deadLine': 1}"),
+        @CompoundIndex(name = "closing", def = "{'closed': 1, 'deadLine': 1}") })
 public class Subject {
 
     @Id
@@ -27,6 +41,7 @@ public class Subject {
 
     private int maxPoints;
 
+    @Indexed
     private Date deadLine;
 
     private Date submitDate;
@@ -39,6 +54,28 @@ public class Subject {
 
     private List<Power> powers;
 
+    private int talliedVoteCount;
+
+    private Set<String> participantIds;
+
+    private int participantCount;
+
+    /**
+     * Vrai une fois le résultat figé, à l'échéance du sujet.
+     */
+    private boolean closed;
+
+    private FinalResult finalResult;
+
+    @Transient
+    private DelegationGraph delegationGraph;
+
+    @Transient
+    private Map<String, Vote> voteByCollaborator;
+
+    @Transient
+    private int indexedVoteCount;
+
     @DBRef
     private Category category;
 
@@ -51,6 +88,7 @@ public class Subject {
         propositions = new ArrayList<>();
         powers = new ArrayList<>();
         votes = new ArrayList<>();
+        participantIds = new HashSet<>();
     }
 
     public String getUuid() {
@@ -123,6 +161,32 @@ public class Subject {
 
     public void setVotes(List<Vote> votes) {
         this.votes = votes;
+        this.voteByCollaborator = null;
+    }
+
+    /**
+     * Ajoute le vote en tenant l'index des votes à jour.
+     */
+    public void addVote(Vote vote) {
+        Map<String, Vote> index = getVoteIndex();
+        votes.add(vote);
+        index.putIfAbsent(vote.getCollaboratorId(), vote);
+        indexedVoteCount++;
+    }
+
+    /**
+     * Index des votes par votant, reconstruit si la liste des votes a été modifiée sans passer par
+     * {@link #addVote(Vote)}.
+     */
+    private Map<String, Vote> getVoteIndex() {
+        if (voteByCollaborator == null || indexedVoteCount != votes.size()) {
+            voteByCollaborator = new HashMap<>();
+            for (Vote v : votes) {
+                voteByCollaborator.putIfAbsent(v.getCollaboratorId(), v);
+            }
+            indexedVoteCount = votes.size();
+        }
+        return voteByCollaborator;
     }
 
     public List<Power> getPowers() {
@@ -131,6 +195,58 @@ public class Subject {
 
     public void setPowers(List<Power> powers) {
         this.powers = powers;
+        this.delegationGraph = null;
+    }
+
+    /**
+     * Index des délégations, reconstruit si la liste des pouvoirs a été modifiée sans passer par
+     * {@link #addPower(Power)} / {@link #removePower(Power)}.
+     */
+    @JsonIgnore
+    public DelegationGraph getDelegationGraph() {
+        if (delegationGraph == null || delegationGraph.size() != powers.size()) {
+            delegationGraph = new DelegationGraph(powers);
+        }
+        return delegationGraph;
+    }
+
+    @JsonIgnore
+    public int getTalliedVoteCount() {
+        return talliedVoteCount;
+    }
+
+    public void setTalliedVoteCount(int talliedVoteCount) {
+        this.talliedVoteCount = talliedVoteCount;
+    }
+
+    /**
+     * Personnes dont la voix est comptée : les votants et tous ceux qui leur ont délégué leur pouvoir,
+     * directement ou non. Permet de savoir si un utilisateur a voté sans charger les votes.
+     */
+    @JsonIgnore
+    public Set<String> getParticipantIds() {
+        return participantIds;
+    }
+
+    public void setParticipantIds(Set<String> participantIds) {
+        this.participantIds = participantIds;
+    }
+
+    public void addParticipants(Collection<String> userIds) {
+        participantIds.addAll(userIds);
+        participantCount = participantIds.size();
+    }
+
+    /**
+     * Nombre de voix comptées, conservé avec le sujet pour être lu sans les votes ni les participants.
+     */
+    @JsonIgnore
+    public int getParticipantCount() {
+        return participantCount;
+    }
+
+    public void setParticipantCount(int participantCount) {
+        this.participantCount = participantCount;
     }
 
     public Category getCategory() {
@@ -150,35 +266,77 @@ public class Subject {
     }
 
     public Optional<Power> findPower(String userId) {
-        Optional<Power> foundPower = getPowers().stream().filter(p -> {
-            return userId.equals(p.getCollaboratorIdFrom());
-        }).findFirst();
-
-        return foundPower;
+        return getDelegationGraph().findPower(userId);
     }
 
+    /**
+     * Vote qui compte pour l'utilisateur : le sien, ou celui de la personne au bout de sa chaîne de délégation.
+     */
     public Optional<Vote> findVote(String userId) {
-        return getVotes().stream().filter(v -> v.getCollaboratorId().equals(userId)).findFirst();
+        final Map<String, Vote> index = getVoteIndex();
+        final Set<String> visited = new HashSet<>();
+        String current = userId;
+
+        while (current != null && visited.add(current)) {
+            final Vote vote = index.get(current);
+            if (vote != null) {
+                return Optional.of(vote);
+            }
+            current = getGivenDelegation(current);
+        }
+
+        return Optional.empty();
     }
 
-    public void removePower(Power p) {
-        powers.remove(p);
+    public void addPower(Power p) {
+        DelegationGraph graph = getDelegationGraph();
+        powers.add(p);
+        graph.addPower(p);
+    }
 
+    public void removePower(Power p) {
+        DelegationGraph graph = getDelegationGraph();
+        if (powers.remove(p)) {
+            graph.removePower(p);
+        }
     }
 
     @JsonIgnore
     public int getVoteCount() {
-        return votes.size();
+        if (finalResult != null) {
+            return finalResult.getVoteCount();
+        }
+        return votes.stream().mapToInt(Vote::getWeight).sum();
     }
 
     @JsonIgnore
     public boolean isClosed() {
-                        return getDeadLine() != null && getDeadLine().before(new Date());
-                    }
+        return closed || (getDeadLine() != null && getDeadLine().before(new Date()));
+    }
+
+    /**
+     * Résultat figé à la clôture, null tant que le sujet n'a pas été clôturé : les votes ne sont alors plus
+     * nécessaires pour afficher le sujet.
+     */
+    @JsonIgnore
+    public FinalResult getFinalResult() {
+        return finalResult;
+    }
+
+    /**
+     * Clôture le sujet : les propositions prennent leurs points du résultat figé.
+     */
+    public void close(FinalResult finalResult) {
+        this.closed = true;
+        this.finalResult = finalResult;
+        for (Proposition p : propositions) {
+            p.setPoints(finalResult.getPoints().getOrDefault(p.getId(), 0));
+        }
+    }
 
     @JsonIgnore
     public boolean isVoted(String userId) {
-        return votes.stream().filter(v -> v.getCollaboratorId().equals(userId)).count() > 0;
+        return findVote(userId).isPresent();
     }
 
     @JsonIgnore
@@ -194,7 +352,7 @@ public class Subject {
 
     @JsonIgnore
     public long getReceivedDelegations(String userId) {
-        return this.powers.stream().filter(p -> p.getCollaboratorIdTo().equals(userId)).count();
+        return getDelegationGraph().getPowersTo(userId).size();
     }
 
     @JsonIgnore
@@ -7,19 +7,32 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import org.bson.types.ObjectId;
 import org.springframework.data.annotation.Id;
-
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Embarqué dans {@link Subject}, ou stocké dans sa propre collection lorsque les votes sont persistés à part
+ * ({@link #getSubjectUuid()} est alors renseigné).
+ */
+@Document
+@CompoundIndex(name = "subject_collaborator", def = "{'subjectUuid': 1, 'collaboratorId': 1}", unique = true)
 public class Vote {
 
 	@Id
 	private String id;
 
+	private String subjectUuid;
+
 	private String collaboratorId;
 
 	private List<WeightedChoice> choices;
 
+	private int weight;
+
 	public Vote() {
 		id = new ObjectId().toString();
 		choices = new ArrayList<>();
+		weight = 1;
 	}
 
 	public String getId() {
@@ -30,6 +43,15 @@ public class Vote {
 		this.id = id;
 	}
 
+	@JsonIgnore
+	public String getSubjectUuid() {
+		return subjectUuid;
+	}
+
+	public void setSubjectUuid(String subjectUuid) {
+		this.subjectUuid = subjectUuid;
+	}
+
 	public String getCollaboratorId() {
 		return collaboratorId;
 	}
@@ -46,12 +68,25 @@ public class Vote {
 		this.choices = choices;
 	}
 
+	/**
+	 * Nombre de voix portées par ce vote : le votant et tous ceux qui lui ont délégué leur pouvoir, directement
+	 * ou non.
+	 */
+	public int getWeight() {
+		return weight;
+	}
+
+	public void setWeight(int weight) {
+		this.weight = weight;
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder strB = new StringBuilder();
 
 		strB.append("Vote : ");
 		strB.append("\n \t CollaboratorId : ").append(getCollaboratorId());
+		strB.append("\n \t Weight : ").append(getWeight());
 
 		for (WeightedChoice choice : choices) {
 			strB.append("\n \t").append(choice);